@@ -7,13 +7,16 @@ import de.firemage.autograder.cmd.output.Annotation;
 import de.firemage.autograder.core.CodePosition;
 import de.firemage.autograder.core.Linter;
 import de.firemage.autograder.core.LinterException;
+import de.firemage.autograder.core.LinterMetrics;
 import de.firemage.autograder.core.LinterStatus;
 import de.firemage.autograder.core.Problem;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.cache.ResultCache;
 import de.firemage.autograder.core.compiler.CompilationFailureException;
 import de.firemage.autograder.core.compiler.JavaVersion;
 import de.firemage.autograder.core.errorprone.TempLocation;
-import de.firemage.autograder.core.file.UploadedFile;
+import de.firemage.autograder.core.file.FileSourceInfo;
+import de.firemage.autograder.core.file.SourceInfo;
 import de.firemage.autograder.span.Formatter;
 import de.firemage.autograder.span.Highlight;
 import de.firemage.autograder.span.Position;
@@ -37,6 +40,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
@@ -48,9 +52,9 @@ import java.util.stream.Stream;
 @Command(mixinStandardHelpOptions = true, version = "codelinter-cmd 1.0",
         description = "Static code analysis for student java code")
 public class Application implements Callable<Integer> {
-    private static final int IO_EXIT_CODE = 3;
-    private static final int COMPILATION_EXIT_CODE = 4;
-    private static final int MISC_EXIT_CODE = 10;
+    static final int IO_EXIT_CODE = 3;
+    static final int COMPILATION_EXIT_CODE = 4;
+    static final int MISC_EXIT_CODE = 10;
 
     private static final int CAPTION_LENGTH = 20;
 
@@ -88,6 +92,15 @@ public class Application implements Callable<Integer> {
     @Option(names = { "--max-problems" }, description = "The maximum number of problems to report per check", defaultValue = "10")
     private int maxProblemsPerCheck;
 
+    @Option(names = { "--cache" }, description = "Reuse the problems of unchanged submissions from this directory, which can be shared by multiple processes")
+    private Path cacheDirectory;
+
+    @Option(names = { "--cache-size" }, description = "The maximum size of the cache in MiB", defaultValue = "256")
+    private long cacheSize;
+
+    @Option(names = { "--metrics" }, description = "Print how much time and memory the stages and checks have used, in the given format (only json is supported)")
+    private String metricsFormat;
+
     @Spec
     private CommandSpec spec;
 
@@ -109,6 +122,18 @@ public class Application implements Callable<Integer> {
 
     // Useful for testing
     public static int runApplication(String... args) {
+        // The commands are dispatched here instead of being registered as picocli subcommands,
+        // because the positional parameters of this command are required.
+        if (args.length > 0 && args[0].equals(ServeCommand.NAME)) {
+            return runServeCommand(Arrays.copyOfRange(args, 1, args.length));
+        }
+
+        if (args.length > 0 && args[0].equals(ClientCommand.NAME)) {
+            return new CommandLine(new ClientCommand())
+                .setUnmatchedOptionsArePositionalParams(true)
+                .execute(Arrays.copyOfRange(args, 1, args.length));
+        }
+
         // to automatically delete the temp location on exit
         try (TempLocation tempLocation = TempLocation.of(".autograder-tmp")) {
             return new CommandLine(new Application(tempLocation)).execute(args);
@@ -117,6 +142,59 @@ public class Application implements Callable<Integer> {
         }
     }
 
+    private static int runServeCommand(String... args) {
+        try (TempLocation tempLocation = TempLocation.of(".autograder-tmp")) {
+            return new CommandLine(new ServeCommand(tempLocation)).execute(args);
+        } catch (IOException exception) {
+            throw new IllegalArgumentException("Could not create temp location", exception);
+        }
+    }
+
+    static List<ProblemType> readCheckConfig(String checkConfig, boolean passConfig) throws IOException {
+        if (passConfig) {
+            return List.of(new ObjectMapper(new YAMLFactory()).readValue(checkConfig, ProblemType[].class));
+        } else {
+            return List.of(new ObjectMapper(new YAMLFactory()).readValue(new File(checkConfig), ProblemType[].class));
+        }
+    }
+
+    static Path findArtemisSourceFolder(Path workspace) throws IOException {
+        try (Stream<Path> files = Files.list(workspace)) {
+            return files
+                    .filter(child -> !child.endsWith(".metadata"))
+                    .findAny()
+                    .orElseThrow(() -> new IllegalStateException("No student code found"))
+                    .resolve("assignment")
+                    .resolve("src");
+        }
+    }
+
+    /**
+     * Converts the parsed arguments into a job for the daemon, see {@link ClientCommand}.
+     * All paths are made absolute, because the daemon might run in a different working directory.
+     */
+    GradingJob toGradingJob(String id) {
+        return new GradingJob(
+            id,
+            this.passConfig ? this.checkConfig : Path.of(this.checkConfig).toAbsolutePath().toString(),
+            this.passConfig,
+            this.file.toAbsolutePath().toString(),
+            this.tests.toString().equals("") ? null : this.tests.toAbsolutePath().toString(),
+            this.javaVersion,
+            this.staticOnly,
+            this.artemisFolders,
+            this.maxProblemsPerCheck
+        );
+    }
+
+    boolean isOutputJson() {
+        return this.outputJson;
+    }
+
+    boolean isPrettyOutput() {
+        return this.isPrettyOutput;
+    }
+
     private static Highlight highlightFromCodePosition(CodePosition codePosition, String label) {
         return new Highlight(
             new Span(
@@ -128,16 +206,26 @@ public class Application implements Callable<Integer> {
         );
     }
 
+    static ResultCache openResultCache(Path directory, long sizeInMebibytes) throws IOException {
+        if (directory == null) {
+            return null;
+        }
+
+        return ResultCache.open(directory, sizeInMebibytes * 1024 * 1024);
+    }
+
     private void execute(
         Linter linter,
         List<ProblemType> checks,
-        UploadedFile uploadedFile,
+        SourceInfo source,
         Consumer<LinterStatus> statusConsumer
     ) throws LinterException, IOException {
+        LinterMetrics metrics = new LinterMetrics();
         if (outputJson) {
-            List<Problem> problems = linter.checkFile(uploadedFile, tests, checks, statusConsumer);
+            List<Problem> problems = linter.checkSource(source, tests, checks, statusConsumer, metrics);
             System.out.println(">> Problems <<");
             printProblemsAsJson(problems, linter);
+            printMetrics(metrics);
             return;
         }
 
@@ -145,7 +233,7 @@ public class Application implements Callable<Integer> {
             CmdUtil.beginSection("Checks");
             ProgressAnimation progress = new ProgressAnimation("Checking...");
             progress.start();
-            List<Problem> problems = linter.checkFile(uploadedFile, tests, checks, statusConsumer);
+            List<Problem> problems = linter.checkSource(source, tests, checks, statusConsumer, metrics);
             progress.finish("Completed checks");
 
             if (problems.isEmpty()) {
@@ -174,18 +262,20 @@ public class Application implements Callable<Integer> {
             }
 
             CmdUtil.endSection();
+            printMetrics(metrics);
             return;
         }
 
         CmdUtil.beginSection("Checks");
         ProgressAnimation progress = new ProgressAnimation("Checking...");
         progress.start();
-        List<Problem> problems = linter.checkFile(uploadedFile, tests, checks, statusConsumer);
+        List<Problem> problems = linter.checkSource(source, tests, checks, statusConsumer, metrics);
         progress.finish("Completed checks");
 
         printProblems(problems, linter);
 
         CmdUtil.endSection();
+        printMetrics(metrics);
     }
 
     @Override
@@ -194,14 +284,13 @@ public class Application implements Callable<Integer> {
             throw new ParameterException(this.spec.commandLine(), "Unknown java version '" + javaVersion + "'");
         }
 
+        if (this.metricsFormat != null && !this.metricsFormat.equals("json")) {
+            throw new ParameterException(this.spec.commandLine(), "Unknown metrics format '" + this.metricsFormat + "'");
+        }
+
         if (this.artemisFolders) {
-            try (Stream<Path> files = Files.list(this.file)) {
-                this.file = files
-                        .filter(child -> !child.endsWith(".metadata"))
-                        .findAny()
-                        .orElseThrow(() -> new IllegalStateException("No student code found"))
-                        .resolve("assignment")
-                        .resolve("src");
+            try {
+                this.file = findArtemisSourceFolder(this.file);
             } catch (IOException e) {
                 e.printStackTrace();
                 return IO_EXIT_CODE;
@@ -220,22 +309,25 @@ public class Application implements Callable<Integer> {
 
         List<ProblemType> checks;
         try {
-            if (passConfig) {
-                checks = List.of(new ObjectMapper(new YAMLFactory()).readValue(checkConfig, ProblemType[].class));
-            } else {
-                checks = List.of(new ObjectMapper(new YAMLFactory()).readValue(new File(checkConfig), ProblemType[].class));
-            }
+            checks = readCheckConfig(this.checkConfig, this.passConfig);
         } catch (IOException e) {
             e.printStackTrace();
             return IO_EXIT_CODE;
         }
 
-        Linter linter = Linter.builder(Locale.GERMANY)
-            .threads(0)
-            .tempLocation(this.tempLocation)
-            .enableDynamicAnalysis(isDynamicAnalysisEnabled)
-            .maxProblemsPerCheck(this.maxProblemsPerCheck)
-            .build();
+        Linter linter;
+        try {
+            linter = Linter.builder(Locale.GERMANY)
+                .threads(0)
+                .tempLocation(this.tempLocation)
+                .enableDynamicAnalysis(isDynamicAnalysisEnabled)
+                .maxProblemsPerCheck(this.maxProblemsPerCheck)
+                .resultCache(openResultCache(this.cacheDirectory, this.cacheSize))
+                .build();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return IO_EXIT_CODE;
+        }
 
         Consumer<LinterStatus> statusConsumer = status ->
                 System.out.println(linter.translateMessage(status.getMessage()));
@@ -245,13 +337,8 @@ public class Application implements Callable<Integer> {
             return COMPILATION_EXIT_CODE;
         }
 
-        try (UploadedFile uploadedFile = UploadedFile.build(
-                file,
-                JavaVersion.fromString(this.javaVersion),
-                this.tempLocation,
-                statusConsumer,
-            null)) {
-            this.execute(linter, checks, uploadedFile, statusConsumer);
+        try {
+            this.execute(linter, checks, FileSourceInfo.fromPath(file, JavaVersion.fromString(this.javaVersion)), statusConsumer);
         } catch (CompilationFailureException e) {
             CmdUtil.printlnErr("Compilation failed: " + e.getMessage());
             return COMPILATION_EXIT_CODE;
@@ -271,30 +358,47 @@ public class Application implements Callable<Integer> {
             CmdUtil.println("No problems found - good job!");
         } else {
             CmdUtil.println("Found " + problems.size() + " problem(s):");
-            problems.stream().map(p -> this.formatProblem(p, linter)).sorted().forEach(CmdUtil::println);
+            problems.stream().map(p -> formatProblem(p, linter)).sorted().forEach(CmdUtil::println);
         }
     }
 
     private void printProblemsAsJson(Collection<? extends Problem> problems, Linter linter) {
         try {
             ObjectMapper mapper = new ObjectMapper();
-            String jsonOutput = mapper.writeValueAsString(problems.stream().map(problem -> {
-                CodePosition position = problem.getPosition();
-                return new Annotation(
-                    problem.getProblemType(),
-                    linter.translateMessage(problem.getExplanation()),
-                    position.file().toString().replace("\\", "/"),
-                    position.startLine(),
-                    position.endLine()
-                );
-            }).toList());
+            String jsonOutput = mapper.writeValueAsString(problems.stream()
+                .map(problem -> toAnnotation(problem, linter))
+                .toList());
             System.out.println(jsonOutput);
         } catch (JsonProcessingException ex) {
             ex.printStackTrace();
         }
     }
 
-    private String formatProblem(Problem problem, Linter linter) {
+    private void printMetrics(LinterMetrics metrics) {
+        if (this.metricsFormat == null) {
+            return;
+        }
+
+        try {
+            System.out.println(">> Metrics <<");
+            System.out.println(new ObjectMapper().writeValueAsString(metrics));
+        } catch (JsonProcessingException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    static Annotation toAnnotation(Problem problem, Linter linter) {
+        CodePosition position = problem.getPosition();
+        return new Annotation(
+            problem.getProblemType(),
+            linter.translateMessage(problem.getExplanation()),
+            position.file().toString().replace("\\", "/"),
+            position.startLine(),
+            position.endLine()
+        );
+    }
+
+    static String formatProblem(Problem problem, Linter linter) {
         return String.format("%s %s (Source: %s)",
                 problem.getDisplayLocation(),
                 linter.translateMessage(problem.getExplanation()),
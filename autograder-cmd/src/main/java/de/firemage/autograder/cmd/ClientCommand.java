@@ -0,0 +1,154 @@
+package de.firemage.autograder.cmd;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.firemage.autograder.cmd.output.Annotation;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Forwards a normal invocation of the command line to a daemon started with {@link ServeCommand}.
+ * If no daemon is listening on the socket or the arguments contain options that the daemon does not support,
+ * the check is executed by this process like without the client.
+ */
+@Command(name = ClientCommand.NAME, mixinStandardHelpOptions = true,
+        description = "Check a submission with a running daemon, the arguments are the same as without the client")
+public class ClientCommand implements Callable<Integer> {
+    static final String NAME = "client";
+    static final Path DEFAULT_SOCKET = findDefaultSocket();
+    // the options that are not supported by the daemon, the check is executed by this process if one of them is set
+    private static final List<String> LOCAL_OPTIONS = List.of("--cache", "--cache-size", "--metrics");
+
+    @Option(names = {"--socket"}, description = "The unix domain socket of the daemon")
+    private Path socket = DEFAULT_SOCKET;
+
+    @Parameters(arity = "0..*", description = "The arguments of the check, see the help without the client")
+    private List<String> arguments = new ArrayList<>();
+
+    // The socket must be in a directory that only the user can write to. Otherwise, another user could
+    // start a daemon on it and would receive the paths of the submissions and answer with their own problems.
+    private static Path findDefaultSocket() {
+        String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+        if (runtimeDirectory != null && !runtimeDirectory.isEmpty()) {
+            return Path.of(runtimeDirectory, "autograder-daemon.sock");
+        }
+
+        // the daemon creates the directory with permissions for the user only
+        return Path.of(System.getProperty("user.home"), ".autograder", "autograder-daemon.sock");
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        String[] args = this.arguments.toArray(String[]::new);
+
+        // the arguments are parsed here, so that invalid arguments are reported like without the client
+        Application application = new Application(TempLocation.of(".autograder-tmp"));
+        CommandLine.ParseResult parseResult;
+        try {
+            parseResult = new CommandLine(application).parseArgs(args);
+        } catch (CommandLine.ParameterException exception) {
+            return Application.runApplication(args);
+        }
+
+        // the pretty output highlights the code, which requires the model of the submission,
+        // and the daemon neither uses a result cache nor reports metrics
+        if (parseResult.isUsageHelpRequested() || parseResult.isVersionHelpRequested() || application.isPrettyOutput()
+            || LOCAL_OPTIONS.stream().anyMatch(parseResult::hasMatchedOption)) {
+            return Application.runApplication(args);
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(this.socket));
+        } catch (IOException exception) {
+            // no daemon is running
+            return Application.runApplication(args);
+        }
+
+        try (channel) {
+            return forwardToDaemon(application, channel);
+        }
+    }
+
+    private static int forwardToDaemon(Application application, SocketChannel channel) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+
+        Writer output = new BufferedWriter(new OutputStreamWriter(
+            new ServeCommand.SocketChannelOutputStream(channel),
+            StandardCharsets.UTF_8
+        ));
+        output.write(mapper.writeValueAsString(application.toGradingJob("0")));
+        output.write('\n');
+        output.flush();
+        channel.shutdownOutput();
+
+        BufferedReader input = new BufferedReader(new InputStreamReader(
+            new ServeCommand.SocketChannelInputStream(channel),
+            StandardCharsets.UTF_8
+        ));
+
+        List<Annotation> annotations = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        String line;
+        while ((line = input.readLine()) != null) {
+            JobEvent event = mapper.readValue(line, JobEvent.class);
+            if (event.type() == JobEvent.Type.PROBLEM) {
+                annotations.add(event.problem());
+                texts.add(event.text());
+                continue;
+            }
+
+            if (event.exitCode() != 0) {
+                CmdUtil.printlnErr(event.message());
+                return event.exitCode();
+            }
+
+            printProblems(application, annotations, texts, mapper);
+            return 0;
+        }
+
+        CmdUtil.printlnErr("The daemon closed the connection before the check was completed");
+        return Application.MISC_EXIT_CODE;
+    }
+
+    private static void printProblems(
+        Application application,
+        List<Annotation> annotations,
+        List<String> texts,
+        ObjectMapper mapper
+    ) throws JsonProcessingException {
+        if (application.isOutputJson()) {
+            System.out.println(">> Problems <<");
+            System.out.println(mapper.writeValueAsString(annotations));
+            return;
+        }
+
+        CmdUtil.beginSection("Checks");
+        if (texts.isEmpty()) {
+            CmdUtil.println("No problems found - good job!");
+        } else {
+            CmdUtil.println("Found " + texts.size() + " problem(s):");
+            texts.stream().sorted().forEach(CmdUtil::println);
+        }
+        CmdUtil.endSection();
+    }
+}
@@ -0,0 +1,182 @@
+package de.firemage.autograder.cmd;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.firemage.autograder.core.Linter;
+import de.firemage.autograder.core.LinterException;
+import de.firemage.autograder.core.LinterMetrics;
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.cache.ResultCache;
+import de.firemage.autograder.core.compiler.CompilationFailureException;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.FileSourceInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+
+/**
+ * Runs {@link GradingJob}s with linters that stay loaded between the jobs.
+ * <p>
+ * The jobs are read as newline delimited JSON and the {@link JobEvent}s are written in the same format.
+ * Jobs of the same connection run concurrently, so the events of different jobs may be interleaved.
+ */
+public class GradingDaemon {
+    private static final String DEFAULT_JAVA_VERSION = "17";
+    private static final int DEFAULT_MAX_PROBLEMS_PER_CHECK = 10;
+
+    private final TempLocation tempLocation;
+    private final int threads;
+    private final ResultCache resultCache;
+    private final ExecutorService jobExecutor;
+    private final ObjectMapper mapper;
+    // the linters only differ in their configuration, so they are shared by all jobs with the same options
+    private final Map<LinterOptions, Linter> linters;
+
+    private record LinterOptions(boolean isDynamicAnalysisEnabled, int maxProblemsPerCheck) {
+    }
+
+    public GradingDaemon(TempLocation tempLocation, int threads, ResultCache resultCache, ExecutorService jobExecutor) {
+        this.tempLocation = tempLocation;
+        this.threads = threads;
+        this.resultCache = resultCache;
+        this.jobExecutor = jobExecutor;
+        this.mapper = new ObjectMapper();
+        this.linters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Reads jobs until the end of the input and returns after all of them have finished.
+     *
+     * @param input the input to read the jobs from
+     * @param output the output to write the events to
+     * @throws IOException if the input could not be read
+     */
+    public void serve(BufferedReader input, Writer output) throws IOException {
+        // the reading thread is registered until the end of the input is reached
+        Phaser runningJobs = new Phaser(1);
+
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                GradingJob job;
+                try {
+                    job = this.mapper.readValue(line, GradingJob.class);
+                } catch (JsonProcessingException exception) {
+                    this.writeEvent(output, JobEvent.done(null, Application.IO_EXIT_CODE, "Invalid job: " + exception.getOriginalMessage()));
+                    continue;
+                }
+
+                runningJobs.register();
+                this.jobExecutor.execute(() -> {
+                    try {
+                        this.runJob(job, output);
+                    } finally {
+                        runningJobs.arriveAndDeregister();
+                    }
+                });
+            }
+        } finally {
+            runningJobs.arriveAndAwaitAdvance();
+        }
+    }
+
+    private void runJob(GradingJob job, Writer output) {
+        JobEvent result;
+        try {
+            result = this.checkJob(job, output);
+        } catch (CompilationFailureException exception) {
+            result = JobEvent.done(job.id(), Application.COMPILATION_EXIT_CODE, "Compilation failed: " + exception.getMessage());
+        } catch (IOException exception) {
+            result = JobEvent.done(job.id(), Application.IO_EXIT_CODE, exception.toString());
+        } catch (LinterException | RuntimeException exception) {
+            result = JobEvent.done(job.id(), Application.MISC_EXIT_CODE, exception.toString());
+        }
+
+        this.writeEvent(output, result);
+    }
+
+    private JobEvent checkJob(GradingJob job, Writer output) throws IOException, LinterException {
+        String javaVersion = job.javaVersion() == null ? DEFAULT_JAVA_VERSION : job.javaVersion();
+        if (!JavaVersion.isValidJavaVersion(javaVersion)) {
+            return JobEvent.done(job.id(), Application.MISC_EXIT_CODE, "Unknown java version '" + javaVersion + "'");
+        }
+
+        Path file = Path.of(job.file());
+        if (job.artemisFolders()) {
+            file = Application.findArtemisSourceFolder(file);
+        }
+
+        if (!Files.exists(file)) {
+            return JobEvent.done(job.id(), Application.COMPILATION_EXIT_CODE, "The path '%s' does not exist".formatted(file));
+        }
+
+        List<ProblemType> checks = Application.readCheckConfig(job.checkConfig(), job.passConfig());
+        Path tests = job.tests() == null ? null : Path.of(job.tests());
+        Linter linter = this.linters.computeIfAbsent(
+            new LinterOptions(
+                !job.staticOnly() && tests != null,
+                job.maxProblemsPerCheck() == null ? DEFAULT_MAX_PROBLEMS_PER_CHECK : job.maxProblemsPerCheck()
+            ),
+            this::createLinter
+        );
+
+        // the problems are sent as soon as a stage has found them, instead of waiting for the slowest one
+        linter.checkSource(
+            FileSourceInfo.fromPath(file, JavaVersion.fromString(javaVersion)),
+            tests,
+            checks,
+            status -> {},
+            new LinterMetrics(),
+            problems -> {
+                for (Problem problem : problems) {
+                    this.writeEvent(output, JobEvent.problem(
+                        job.id(),
+                        Application.toAnnotation(problem, linter),
+                        Application.formatProblem(problem, linter)
+                    ));
+                }
+            }
+        );
+
+        return JobEvent.done(job.id(), 0, null);
+    }
+
+    private Linter createLinter(LinterOptions options) {
+        return Linter.builder(Locale.GERMANY)
+            .threads(this.threads)
+            .tempLocation(this.tempLocation)
+            .enableDynamicAnalysis(options.isDynamicAnalysisEnabled())
+            .maxProblemsPerCheck(options.maxProblemsPerCheck())
+            .resultCache(this.resultCache)
+            .build();
+    }
+
+    private void writeEvent(Writer output, JobEvent event) {
+        try {
+            String line = this.mapper.writeValueAsString(event);
+            // events of concurrent jobs must not be interleaved within a line
+            synchronized (output) {
+                output.write(line);
+                output.write('\n');
+                output.flush();
+            }
+        } catch (IOException exception) {
+            // the client has disconnected, the remaining events of the job are dropped
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package de.firemage.autograder.cmd;
+
+/**
+ * A job that is sent to the daemon as one line of JSON, see {@link ServeCommand}.
+ * The fields correspond to the parameters and options of {@link Application}.
+ *
+ * @param id an identifier chosen by the client, it is included in every event of the job
+ * @param checkConfig the path to the check configuration or its contents if {@code passConfig} is set
+ * @param passConfig whether {@code checkConfig} contains the configuration instead of a path
+ * @param file the root folder which contains the files to check
+ * @param tests the root folder which contains the tests to run, null if no tests should be run
+ * @param javaVersion the java version of the submission, null for the default
+ * @param staticOnly whether the dynamic analysis should be disabled
+ * @param artemisFolders whether {@code file} is the workspace root of the grading tool
+ * @param maxProblemsPerCheck the maximum number of problems to report per check, null for the default
+ */
+public record GradingJob(
+    String id,
+    String checkConfig,
+    boolean passConfig,
+    String file,
+    String tests,
+    String javaVersion,
+    boolean staticOnly,
+    boolean artemisFolders,
+    Integer maxProblemsPerCheck
+) {
+}
@@ -0,0 +1,34 @@
+package de.firemage.autograder.cmd;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.firemage.autograder.cmd.output.Annotation;
+
+/**
+ * An event that is sent by the daemon as one line of JSON, see {@link ServeCommand}.
+ * <p>
+ * A job produces a {@link Type#PROBLEM} event for every problem, followed by exactly one {@link Type#DONE} event.
+ * The problems are sent as soon as the stage that found them has completed, so a job that fails later
+ * might have sent some problems before its {@link Type#DONE} event.
+ *
+ * @param id the id of the job
+ * @param type the type of the event
+ * @param problem the problem for {@link Type#PROBLEM} events
+ * @param text the problem formatted like the plain text output of the command line
+ * @param exitCode the exit code the command line would have returned for {@link Type#DONE} events
+ * @param message the reason why the job failed or null
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobEvent(String id, Type type, Annotation problem, String text, Integer exitCode, String message) {
+    public enum Type {
+        PROBLEM,
+        DONE
+    }
+
+    public static JobEvent problem(String id, Annotation problem, String text) {
+        return new JobEvent(id, Type.PROBLEM, problem, text, null, null);
+    }
+
+    public static JobEvent done(String id, int exitCode, String message) {
+        return new JobEvent(id, Type.DONE, null, null, exitCode, message);
+    }
+}
@@ -0,0 +1,246 @@
+package de.firemage.autograder.cmd;
+
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.errorprone.VMWorkerPool;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the linter loaded and checks the submissions of {@link GradingJob}s, so that the startup
+ * of the JVM and the warm-up of the analysis are only paid once.
+ * <p>
+ * The jobs are read from stdin, or from the clients of a unix domain socket if {@code --socket} is given.
+ * Every job is one line of JSON and the daemon answers with one line of JSON per {@link JobEvent}.
+ */
+@Command(name = ServeCommand.NAME, mixinStandardHelpOptions = true,
+        description = "Run as a daemon that checks the submissions it receives as newline delimited JSON")
+public class ServeCommand implements Callable<Integer> {
+    static final String NAME = "serve";
+    // the file type bits of the unix:mode attribute
+    private static final int FILE_TYPE_MASK = 0170000;
+    private static final int SOCKET_FILE_TYPE = 0140000;
+
+    @Option(names = {"--socket"}, arity = "0..1", fallbackValue = "",
+            description = "Listen on this unix domain socket instead of reading jobs from stdin, the client uses $XDG_RUNTIME_DIR/autograder-daemon.sock or ~/.autograder/autograder-daemon.sock by default")
+    private String socket;
+
+    @Option(names = {"--jobs"}, defaultValue = "2", description = "The maximum number of jobs that are checked at the same time")
+    private int jobs;
+
+    @Option(names = {"--threads"}, defaultValue = "0", description = "The number of analysis threads per job, 0 to choose automatically")
+    private int threads;
+
+    @Option(names = {"--cache"}, description = "Reuse the problems of unchanged submissions from this directory, which can be shared by multiple processes")
+    private Path cacheDirectory;
+
+    @Option(names = {"--cache-size"}, defaultValue = "256", description = "The maximum size of the cache in MiB")
+    private long cacheSize;
+
+    private final TempLocation tempLocation;
+
+    public ServeCommand(TempLocation tempLocation) {
+        this.tempLocation = tempLocation;
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        ExecutorService jobExecutor = Executors.newFixedThreadPool(Math.max(this.jobs, 1));
+        GradingDaemon daemon = new GradingDaemon(
+            this.tempLocation,
+            this.threads,
+            Application.openResultCache(this.cacheDirectory, this.cacheSize),
+            jobExecutor
+        );
+
+        try {
+            if (this.socket == null) {
+                serveStandardStreams(daemon);
+                return 0;
+            }
+
+            return serveSocket(daemon, this.socket.isEmpty() ? ClientCommand.DEFAULT_SOCKET : Path.of(this.socket));
+        } finally {
+            jobExecutor.shutdown();
+            // the idle error-prone workers would otherwise keep running until they time out
+            VMWorkerPool.closeErrorPronePools();
+        }
+    }
+
+    private static void serveStandardStreams(GradingDaemon daemon) throws IOException {
+        Writer output = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(FileDescriptor.out),
+            StandardCharsets.UTF_8
+        ));
+        // stdout is reserved for the events, anything else printed by the analysis would corrupt them
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.err), true, StandardCharsets.UTF_8));
+
+        daemon.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), output);
+    }
+
+    private static int serveSocket(GradingDaemon daemon, Path socket) throws IOException {
+        createSocketDirectory(socket);
+        if (!removeStaleSocket(socket)) {
+            return Application.IO_EXIT_CODE;
+        }
+
+        ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            CmdUtil.printlnErr("Listening on " + socket);
+
+            while (server.isOpen()) {
+                SocketChannel channel = server.accept();
+                connectionExecutor.execute(() -> serveConnection(daemon, channel));
+            }
+        } finally {
+            connectionExecutor.shutdown();
+            Files.deleteIfExists(socket);
+        }
+
+        return 0;
+    }
+
+    private static void createSocketDirectory(Path socket) throws IOException {
+        Path directory = socket.toAbsolutePath().getParent();
+        if (directory == null || Files.isDirectory(directory)) {
+            return;
+        }
+
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            // other users must not be able to replace the socket with their own
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * Deletes the socket file that is left over from a daemon that has crashed, because it would prevent binding.
+     * Anything else at the path is left alone and reported.
+     *
+     * @param socket the path of the socket
+     * @return true if nothing is at the path anymore, false if it is used by a running daemon or is not a socket
+     * @throws IOException if the path could not be inspected or deleted
+     */
+    static boolean removeStaleSocket(Path socket) throws IOException {
+        if (!Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            return true;
+        }
+
+        if (!isSocket(socket)) {
+            CmdUtil.printlnErr("The path '%s' exists and is not a socket".formatted(socket));
+            return false;
+        }
+
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (ConnectException exception) {
+            // no daemon is accepting connections on the socket anymore
+            Files.delete(socket);
+            return true;
+        }
+
+        CmdUtil.printlnErr("Another daemon is already listening on '%s'".formatted(socket));
+        return false;
+    }
+
+    private static boolean isSocket(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.isOther()) {
+            return false;
+        }
+
+        // without the unix attributes, a socket cannot be told apart from other special files
+        if (!path.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+            return true;
+        }
+
+        int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        return (mode & FILE_TYPE_MASK) == SOCKET_FILE_TYPE;
+    }
+
+    private static void serveConnection(GradingDaemon daemon, SocketChannel channel) {
+        try (channel) {
+            daemon.serve(
+                new BufferedReader(new InputStreamReader(new SocketChannelInputStream(channel), StandardCharsets.UTF_8)),
+                new BufferedWriter(new OutputStreamWriter(new SocketChannelOutputStream(channel), StandardCharsets.UTF_8))
+            );
+        } catch (IOException exception) {
+            // the client has disconnected
+        }
+    }
+
+    // The streams of Channels hold the same lock while reading and writing, so events could not be
+    // written while the daemon is waiting for the next job. A socket channel can read and write at the same time.
+    static final class SocketChannelInputStream extends InputStream {
+        private final SocketChannel channel;
+
+        SocketChannelInputStream(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int count = this.read(buffer, 0, 1);
+            return count == -1 ? -1 : buffer[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+
+            return this.channel.read(ByteBuffer.wrap(buffer, offset, length));
+        }
+    }
+
+    static final class SocketChannelOutputStream extends OutputStream {
+        private final SocketChannel channel;
+
+        SocketChannelOutputStream(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            this.write(new byte[] { (byte) value }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+            while (byteBuffer.hasRemaining()) {
+                this.channel.write(byteBuffer);
+            }
+        }
+    }
+}
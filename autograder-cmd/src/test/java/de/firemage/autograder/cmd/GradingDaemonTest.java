@@ -0,0 +1,110 @@
+package de.firemage.autograder.cmd;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.cache.ResultCache;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GradingDaemonTest {
+    @Test
+    void testJobsAreAnsweredWithProblemsAndExitCode(@TempDir Path directory) throws IOException {
+        Path source = directory.resolve("src");
+        Files.createDirectories(source);
+        Files.writeString(source.resolve("Test.java"), """
+            import java.util.List;
+
+            public class Test {
+                public static void main(String[] args) {
+                }
+            }
+            """);
+
+        ObjectMapper mapper = new ObjectMapper();
+        String jobs = String.join("\n",
+            mapper.writeValueAsString(new GradingJob("a", "[UNUSED_IMPORT]", true, source.toString(), null, "17", true, false, null)),
+            mapper.writeValueAsString(new GradingJob("b", "[UNUSED_IMPORT]", true, directory.resolve("missing").toString(), null, "17", true, false, null))
+        );
+
+        StringWriter output = new StringWriter();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (TempLocation tempLocation = TempLocation.random()) {
+            new GradingDaemon(tempLocation, 1, null, executor).serve(new BufferedReader(new StringReader(jobs)), output);
+        } finally {
+            executor.shutdown();
+        }
+
+        List<JobEvent> events = new ArrayList<>();
+        for (String line : output.toString().split("\n")) {
+            events.add(mapper.readValue(line, JobEvent.class));
+        }
+
+        List<JobEvent> eventsOfA = events.stream().filter(event -> event.id().equals("a")).toList();
+        assertEquals(2, eventsOfA.size());
+        assertEquals(ProblemType.UNUSED_IMPORT, eventsOfA.get(0).problem().type());
+        assertEquals(JobEvent.Type.DONE, eventsOfA.get(1).type());
+        assertEquals(0, eventsOfA.get(1).exitCode());
+
+        List<JobEvent> eventsOfB = events.stream().filter(event -> event.id().equals("b")).toList();
+        assertEquals(1, eventsOfB.size());
+        assertEquals(Application.COMPILATION_EXIT_CODE, eventsOfB.get(0).exitCode());
+    }
+
+    @Test
+    void testCachedProblemsAreSent(@TempDir Path directory) throws IOException {
+        Path source = directory.resolve("src");
+        Files.createDirectories(source);
+        Files.writeString(source.resolve("Test.java"), """
+            import java.util.List;
+
+            public class Test {
+                public static void main(String[] args) {
+                }
+            }
+            """);
+
+        ObjectMapper mapper = new ObjectMapper();
+        String job = mapper.writeValueAsString(new GradingJob("a", "[UNUSED_IMPORT]", true, source.toString(), null, "17", true, false, null));
+
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try (TempLocation tempLocation = TempLocation.random()) {
+            GradingDaemon daemon = new GradingDaemon(
+                tempLocation,
+                1,
+                ResultCache.open(directory.resolve("cache"), 1024 * 1024),
+                executor
+            );
+
+            // the second job is answered from the cache
+            for (int i = 0; i < 2; i++) {
+                StringWriter output = new StringWriter();
+                daemon.serve(new BufferedReader(new StringReader(job)), output);
+
+                List<JobEvent> events = new ArrayList<>();
+                for (String line : output.toString().split("\n")) {
+                    events.add(mapper.readValue(line, JobEvent.class));
+                }
+
+                assertEquals(2, events.size());
+                assertEquals(ProblemType.UNUSED_IMPORT, events.get(0).problem().type());
+                assertEquals(JobEvent.Type.DONE, events.get(1).type());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
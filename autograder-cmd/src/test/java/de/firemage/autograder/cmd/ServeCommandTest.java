@@ -0,0 +1,50 @@
+package de.firemage.autograder.cmd;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServeCommandTest {
+    @Test
+    void testStaleSocketIsRemoved(@TempDir Path directory) throws IOException {
+        Path socket = directory.resolve("daemon.sock");
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+        }
+
+        // closing the channel does not delete the file, like after a crash
+        assertTrue(Files.exists(socket));
+        assertTrue(ServeCommand.removeStaleSocket(socket));
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void testSocketOfRunningDaemonIsKept(@TempDir Path directory) throws IOException {
+        Path socket = directory.resolve("daemon.sock");
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+
+            assertFalse(ServeCommand.removeStaleSocket(socket));
+            assertTrue(Files.exists(socket));
+        }
+    }
+
+    @Test
+    void testOtherFileIsKept(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("notes.txt");
+        Files.writeString(file, "notes");
+
+        assertFalse(ServeCommand.removeStaleSocket(file));
+        assertEquals("notes", Files.readString(file));
+    }
+}
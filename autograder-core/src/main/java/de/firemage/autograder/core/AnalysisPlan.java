@@ -0,0 +1,56 @@
+package de.firemage.autograder.core;
+
+import de.firemage.autograder.core.check.AnalysisRequirement;
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.check.ExecutableCheck;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which parts of the analysis are needed for a set of checks, so that the others can be skipped.
+ *
+ * @param requirements the requirements of all checks
+ */
+public record AnalysisPlan(Set<AnalysisRequirement> requirements) {
+    private static final AnalysisPlan FULL = new AnalysisPlan(EnumSet.allOf(AnalysisRequirement.class));
+
+    public AnalysisPlan {
+        requirements = Set.copyOf(requirements);
+    }
+
+    /**
+     * Returns a plan that does every part of the analysis.
+     *
+     * @return the plan
+     */
+    public static AnalysisPlan full() {
+        return FULL;
+    }
+
+    /**
+     * Creates a plan from the requirements of the given checks, which are declared with {@link ExecutableCheck#requires()}.
+     * A check without an {@link ExecutableCheck} annotation might need anything, so the plan will do every part of the analysis.
+     *
+     * @param checks the checks that will be executed
+     * @return the plan
+     */
+    public static AnalysisPlan forChecks(Iterable<? extends Check> checks) {
+        Set<AnalysisRequirement> requirements = EnumSet.noneOf(AnalysisRequirement.class);
+        for (Check check : checks) {
+            ExecutableCheck annotation = check.getClass().getAnnotation(ExecutableCheck.class);
+            if (annotation == null) {
+                return FULL;
+            }
+
+            requirements.addAll(List.of(annotation.requires()));
+        }
+
+        return new AnalysisPlan(requirements);
+    }
+
+    public boolean requires(AnalysisRequirement requirement) {
+        return this.requirements.contains(requirement);
+    }
+}
@@ -0,0 +1,44 @@
+package de.firemage.autograder.core;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.stream.Stream;
+
+/**
+ * The version of the autograder, which is part of the keys of the caches, because a new version
+ * might report different problems for the same code.
+ */
+public final class AutograderVersion {
+    private static final String VERSION = findVersion();
+
+    private AutograderVersion() {
+    }
+
+    /**
+     * Returns the version of the autograder.
+     *
+     * @return the version of the released jar or the time of the last build during development
+     */
+    public static String get() {
+        return VERSION;
+    }
+
+    private static String findVersion() {
+        String version = AutograderVersion.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+
+        // not running from a released jar, so the time of the last build is used instead
+        CodeSource codeSource = AutograderVersion.class.getProtectionDomain().getCodeSource();
+        try (Stream<Path> files = Files.walk(Path.of(codeSource.getLocation().toURI()))) {
+            long lastModified = files.mapToLong(file -> file.toFile().lastModified()).max().orElse(0);
+            return "development-" + lastModified;
+        } catch (URISyntaxException | IOException | RuntimeException exception) {
+            return "development";
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package de.firemage.autograder.core;
 
+import de.firemage.autograder.core.compiler.CompilationResult;
 import de.firemage.autograder.core.file.SourceInfo;
 import de.firemage.autograder.core.integrated.ModelBuildException;
 import de.firemage.autograder.core.integrated.SpoonUtil;
+import de.firemage.autograder.core.jfr.ModelBuildEvent;
 import spoon.Launcher;
 import spoon.compiler.Environment;
 import spoon.compiler.ModelBuildingException;
@@ -22,9 +24,6 @@ import spoon.reflect.visitor.ImportConflictDetector;
 import spoon.reflect.visitor.filter.NamedElementFilter;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
@@ -34,35 +33,45 @@ import java.util.Optional;
  */
 public final class CodeModel implements AutoCloseable {
     private final SourceInfo file;
-    private final Path jar;
-    private final ClassLoader userClassLoader;
-    private final URLClassLoader classLoader;
+    private final ClassLoader classLoader;
+    private final boolean isCommentEnabled;
     private Factory factory;
     private CtModel model;
     private CtPackage basePackage;
     private Optional<CtMethod<Void>> mainMethod;
 
-    private CodeModel(SourceInfo file, Path jar, ClassLoader classLoader) {
+    private CodeModel(SourceInfo file, CompilationResult compilationResult, ClassLoader classLoader, boolean isCommentEnabled) {
         this.file = file;
-        this.jar = jar;
+        this.isCommentEnabled = isCommentEnabled;
 
         if (classLoader != null) {
-            this.userClassLoader = classLoader;
-            this.classLoader = null;
+            this.classLoader = classLoader;
         } else {
-            // Use a custom class loader because spoon won't close its standard URLClassLoader and will leak the handle to the jar file
-            try {
-                this.classLoader =
-                        new URLClassLoader(new URL[]{jar.toUri().toURL()}, Thread.currentThread().getContextClassLoader());
-                this.userClassLoader = null;
-            } catch (MalformedURLException e) {
-                throw new RuntimeException(e);
-            }
+            // the compiled classes are loaded from memory, so spoon does not need a jar on the classpath
+            this.classLoader = compilationResult.createClassLoader(Thread.currentThread().getContextClassLoader());
         }
     }
 
-    public static CodeModel buildFor(SourceInfo file, Path jar, ClassLoader classLoader) {
-        return new CodeModel(file, jar, classLoader);
+    public static CodeModel buildFor(SourceInfo file, CompilationResult compilationResult, ClassLoader classLoader) {
+        return CodeModel.buildFor(file, compilationResult, classLoader, true);
+    }
+
+    /**
+     * Creates a model of the code, which is built on first use.
+     *
+     * @param file the code
+     * @param compilationResult the compiled code
+     * @param classLoader the class loader for the compiled code or null to load it from the compilation result
+     * @param isCommentEnabled whether the model should contain comments, building it without them is faster
+     * @return the model
+     */
+    public static CodeModel buildFor(
+        SourceInfo file,
+        CompilationResult compilationResult,
+        ClassLoader classLoader,
+        boolean isCommentEnabled
+    ) {
+        return new CodeModel(file, compilationResult, classLoader, isCommentEnabled);
     }
 
     public void ensureModelBuild() {
@@ -89,16 +98,20 @@ public final class CodeModel implements AutoCloseable {
         this.buildModelMaybe();
 
         // NOTE: this is intentional, so that the main method is only searched once
-        if (this.mainMethod == null) {
-            this.mainMethod = this.getModel()
-                .getElements(new NamedElementFilter<>(CtMethod.class, "main"))
-                .stream()
-                .filter(SpoonUtil::isMainMethod)
-                .findFirst()
-                .map(ctMethod -> (CtMethod<Void>) ctMethod);
-        }
+        //
+        // Checks might call this method concurrently, so the search is synchronized
+        synchronized (this) {
+            if (this.mainMethod == null) {
+                this.mainMethod = this.getModel()
+                    .getElements(new NamedElementFilter<>(CtMethod.class, "main"))
+                    .stream()
+                    .filter(SpoonUtil::isMainMethod)
+                    .findFirst()
+                    .map(ctMethod -> (CtMethod<Void>) ctMethod);
+            }
 
-        return this.mainMethod.orElse(null);
+            return this.mainMethod.orElse(null);
+        }
     }
 
     /**
@@ -117,9 +130,7 @@ public final class CodeModel implements AutoCloseable {
 
     @Override
     public void close() throws IOException {
-        if (this.classLoader != null) {
-            this.classLoader.close();
-        }
+        // nothing to close, the classes are loaded from memory
     }
 
     @SuppressWarnings({"java:S3599", "java:S1171"}) // ignore some sonarlint warnings
@@ -135,12 +146,12 @@ public final class CodeModel implements AutoCloseable {
                 return;
             }
 
+            ModelBuildEvent event = new ModelBuildEvent(this.file);
             Launcher launcher = new Launcher();
             launcher.addInputResource(file.getSpoonResource());
             launcher.getEnvironment().setShouldCompile(false);
-            launcher.getEnvironment().setSourceClasspath(new String[]{jar.toAbsolutePath().toString()});
             launcher.getEnvironment().setNoClasspath(false);
-            launcher.getEnvironment().setCommentEnabled(true);
+            launcher.getEnvironment().setCommentEnabled(this.isCommentEnabled);
             launcher.getEnvironment().setComplianceLevel(this.file.getVersion().getVersionNumber());
             // The encoding might differ by file
             launcher.getEnvironment().setEncodingProvider(
@@ -168,11 +179,7 @@ public final class CodeModel implements AutoCloseable {
                 }
             });
 
-            if (this.userClassLoader != null) {
-                launcher.getEnvironment().setInputClassLoader(this.userClassLoader);
-            } else {
-                launcher.getEnvironment().setInputClassLoader(this.classLoader);
-            }
+            launcher.getEnvironment().setInputClassLoader(this.classLoader);
 
             CtModel model;
             try {
@@ -204,6 +211,7 @@ public final class CodeModel implements AutoCloseable {
 
             // Only set the model at the end when everything has been initialized
             this.model = model;
+            event.finish(this.isCommentEnabled);
         }
     }
 }
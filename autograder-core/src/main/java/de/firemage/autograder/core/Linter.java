@@ -1,18 +1,29 @@
 package de.firemage.autograder.core;
 
+import de.firemage.autograder.core.cache.ResultCache;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.Check;
-import de.firemage.autograder.core.check.ExecutableCheck;
+import de.firemage.autograder.core.check.CheckDescriptor;
+import de.firemage.autograder.core.check.CheckRegistry;
 import de.firemage.autograder.core.check.general.CopyPasteCheck;
+import de.firemage.autograder.core.check.general.SharedCodeCheck;
 import de.firemage.autograder.core.cpd.CPDLinter;
 import de.firemage.autograder.core.errorprone.ErrorProneCheck;
 import de.firemage.autograder.core.errorprone.ErrorProneLinter;
 import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.errorprone.VMWorkerPool;
+import de.firemage.autograder.core.file.SourceInfo;
 import de.firemage.autograder.core.file.UploadedFile;
+import de.firemage.autograder.core.integrated.CheckTimeout;
 import de.firemage.autograder.core.integrated.IntegratedAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
 import de.firemage.autograder.core.parallel.AnalysisResult;
 import de.firemage.autograder.core.parallel.AnalysisScheduler;
+import de.firemage.autograder.core.parallel.ProblemReporter;
+import de.firemage.autograder.core.plagiarism.PlagiarismIndex;
+import de.firemage.autograder.core.plagiarism.SharedCodeProblem;
 import de.firemage.autograder.core.pmd.PMDCheck;
+import de.firemage.autograder.core.pmd.PMDCache;
 import de.firemage.autograder.core.pmd.PMDLinter;
 import de.firemage.autograder.core.spotbugs.SpotbugsCheck;
 import de.firemage.autograder.core.spotbugs.SpotbugsLinter;
@@ -21,29 +32,46 @@ import fluent.bundle.FluentResource;
 import fluent.functions.icu.ICUFunctionFactory;
 import fluent.syntax.parser.FTLParser;
 import fluent.syntax.parser.FTLStream;
-import org.reflections.Reflections;
-import org.reflections.scanners.Scanners;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public final class Linter {
+    private final Locale locale;
     private final int threads;
     private final TempLocation tempLocation;
     private final FluentBundle fluentBundle;
     private final boolean disableDynamicAnalysis;
     private final ClassLoader classLoader;
     private final int maxProblemsPerCheck;
+    private final ResultCache resultCache;
+    private final VMWorkerPool errorProneWorkers;
+    private final Duration checkTimeout;
+    private final Duration submissionTimeout;
+    private final PMDLinter pmdLinter;
+    private final PlagiarismIndex plagiarismIndex;
+    private SpotbugsLinter spotbugsLinter;
 
     private Linter(
         Locale locale,
@@ -51,7 +79,13 @@ public final class Linter {
         int threads,
         boolean disableDynamicAnalysis,
         ClassLoader classLoader,
-        int maxProblemsPerCheck
+        int maxProblemsPerCheck,
+        ResultCache resultCache,
+        PMDCache pmdCache,
+        VMWorkerPool errorProneWorkers,
+        Duration checkTimeout,
+        Duration submissionTimeout,
+        PlagiarismIndex plagiarismIndex
     ) {
         String filename = switch (locale.getLanguage()) {
             case "de" -> "/strings.de.ftl";
@@ -67,11 +101,18 @@ public final class Linter {
             throw new IllegalStateException(e);
         }
 
+        this.locale = locale;
         this.tempLocation = tempLocation;
         this.threads = threads;
         this.disableDynamicAnalysis = disableDynamicAnalysis;
         this.classLoader = classLoader;
         this.maxProblemsPerCheck = maxProblemsPerCheck;
+        this.resultCache = resultCache;
+        this.errorProneWorkers = errorProneWorkers;
+        this.checkTimeout = checkTimeout;
+        this.submissionTimeout = submissionTimeout;
+        this.pmdLinter = new PMDLinter(classLoader, pmdCache);
+        this.plagiarismIndex = plagiarismIndex;
     }
 
     public static class Builder {
@@ -81,6 +122,13 @@ public final class Linter {
         private boolean disableDynamicAnalysis = true;
         private ClassLoader classLoader;
         private int maxProblemsPerCheck = -1;
+        private ResultCache resultCache;
+        private PMDCache pmdCache;
+        private int errorProneWorkers = 1;
+        private int errorProneJobsPerWorker = 50;
+        private Duration checkTimeout;
+        private Duration submissionTimeout;
+        private PlagiarismIndex plagiarismIndex;
 
         private Builder(Locale locale) {
             this.locale = locale;
@@ -115,6 +163,94 @@ public final class Linter {
             return this;
         }
 
+        /**
+         * Sets the cache that is used by {@link Linter#checkSource} and {@link Linter#checkSubmissions}.
+         *
+         * @param resultCache the cache or null to disable caching
+         * @return this builder
+         */
+        public Builder resultCache(ResultCache resultCache) {
+            this.resultCache = resultCache;
+            return this;
+        }
+
+        /**
+         * Sets the cache for the PMD violations of single files, so unchanged files of resubmissions
+         * are not analyzed by PMD again.
+         *
+         * @param pmdCache the cache or null to disable caching, which is the default
+         * @return this builder
+         */
+        public Builder pmdCache(PMDCache pmdCache) {
+            this.pmdCache = pmdCache;
+            return this;
+        }
+
+        /**
+         * Sets how many JVMs may run error-prone at the same time. The JVMs are kept running between submissions
+         * and are shared by all linters with the same settings.
+         *
+         * @param errorProneWorkers the maximum number of JVMs, at least one
+         * @return this builder
+         */
+        public Builder errorProneWorkers(int errorProneWorkers) {
+            this.errorProneWorkers = errorProneWorkers;
+            return this;
+        }
+
+        /**
+         * Sets after how many submissions a JVM running error-prone is replaced by a new one.
+         *
+         * @param errorProneJobsPerWorker the number of submissions, at least one
+         * @return this builder
+         */
+        public Builder errorProneJobsPerWorker(int errorProneJobsPerWorker) {
+            this.errorProneJobsPerWorker = errorProneJobsPerWorker;
+            return this;
+        }
+
+        /**
+         * Sets how long a single integrated check may run on a submission. A check that exceeds its budget is
+         * abandoned and its problems are not reported, see {@link LinterMetrics#getTimedOutChecks()}.
+         * <p>
+         * The budget is enforced cooperatively, see {@link CheckTimeout}.
+         *
+         * @param checkTimeout the budget of a check or null if it is unlimited, which is the default
+         * @return this builder
+         */
+        public Builder checkTimeout(Duration checkTimeout) {
+            this.checkTimeout = checkTimeout;
+            return this;
+        }
+
+        /**
+         * Sets how long all integrated checks of a submission may run together, starting when the checks of the
+         * submission are started. Checks that are still running at the deadline are abandoned and the
+         * remaining checks are skipped. The problems of the completed checks are still reported.
+         *
+         * @param submissionTimeout the budget of a submission or null if it is unlimited, which is the default
+         * @return this builder
+         */
+        public Builder submissionTimeout(Duration submissionTimeout) {
+            this.submissionTimeout = submissionTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the index that {@link Linter#checkSubmissions} adds every checked submission to. The code that a
+         * submission shares with the submissions that have been added before is reported as
+         * {@link ProblemType#SHARED_CODE}.
+         * <p>
+         * The index is not closed by the linter.
+         *
+         * @param plagiarismIndex the index or null to not compare submissions, which is the default
+         * @return this builder
+         */
+        public Builder plagiarismIndex(PlagiarismIndex plagiarismIndex) {
+            this.plagiarismIndex = plagiarismIndex;
+            return this;
+        }
+
         public Linter build() {
             TempLocation tempLocation = this.tempLocation;
 
@@ -128,7 +264,13 @@ public final class Linter {
                 this.threads,
                 this.disableDynamicAnalysis,
                 this.classLoader,
-                this.maxProblemsPerCheck
+                this.maxProblemsPerCheck,
+                this.resultCache,
+                this.pmdCache,
+                VMWorkerPool.forErrorProne(this.errorProneWorkers, this.errorProneJobsPerWorker),
+                this.checkTimeout,
+                this.submissionTimeout,
+                this.plagiarismIndex
             );
         }
     }
@@ -145,6 +287,95 @@ public final class Linter {
         return fluentBundle;
     }
 
+    /**
+     * Compiles and checks the source code of a submission.
+     * <p>
+     * If the linter has a {@link ResultCache} and the same code has been checked before, the problems are
+     * loaded from the cache without compiling the code.
+     *
+     * @param source the source code to check
+     * @param tests the tests for the dynamic analysis
+     * @param problemsToReport the problem types to check for
+     * @param statusConsumer receives the progress of the check
+     * @return the problems found in the source code
+     * @throws LinterException if the code could not be compiled or a check failed
+     * @throws IOException if the code could not be read
+     */
+    public List<Problem> checkSource(
+        SourceInfo source,
+        Path tests,
+        List<ProblemType> problemsToReport,
+        Consumer<LinterStatus> statusConsumer
+    ) throws LinterException, IOException {
+        return this.checkSource(source, tests, problemsToReport, statusConsumer, new LinterMetrics());
+    }
+
+    /**
+     * Like {@link #checkSource(SourceInfo, Path, List, Consumer)}, but records how many resources
+     * the stages and checks have used.
+     *
+     * @param source the source code to check
+     * @param tests the tests for the dynamic analysis
+     * @param problemsToReport the problem types to check for
+     * @param statusConsumer receives the progress of the check
+     * @param metrics receives the metrics of the stages and checks, nothing is recorded if the result is cached
+     * @return the problems found in the source code
+     * @throws LinterException if the code could not be compiled or a check failed
+     * @throws IOException if the code could not be read
+     */
+    public List<Problem> checkSource(
+        SourceInfo source,
+        Path tests,
+        List<ProblemType> problemsToReport,
+        Consumer<LinterStatus> statusConsumer,
+        LinterMetrics metrics
+    ) throws LinterException, IOException {
+        return this.checkSource(
+            source,
+            tests,
+            problemsToReport,
+            this.findChecksForProblemTypes(problemsToReport),
+            statusConsumer,
+            () -> new AnalysisScheduler(this.threads, this.classLoader),
+            metrics,
+            null
+        );
+    }
+
+    /**
+     * Like {@link #checkSource(SourceInfo, Path, List, Consumer, LinterMetrics)}, but delivers the problems to the
+     * sink while the checks are running. If the result is cached, all problems are delivered at once.
+     *
+     * @param source the source code to check
+     * @param tests the tests for the dynamic analysis
+     * @param problemsToReport the problem types to check for
+     * @param statusConsumer receives the progress of the check
+     * @param metrics receives the metrics of the stages and checks, nothing is recorded if the result is cached
+     * @param sink receives the problems as soon as they have been found
+     * @return the problems found in the source code, the same ones that have been delivered to the sink
+     * @throws LinterException if the code could not be compiled or a check failed
+     * @throws IOException if the code could not be read
+     */
+    public List<Problem> checkSource(
+        SourceInfo source,
+        Path tests,
+        List<ProblemType> problemsToReport,
+        Consumer<LinterStatus> statusConsumer,
+        LinterMetrics metrics,
+        ProblemSink sink
+    ) throws LinterException, IOException {
+        return this.checkSource(
+            source,
+            tests,
+            problemsToReport,
+            this.findChecksForProblemTypes(problemsToReport),
+            statusConsumer,
+            () -> new AnalysisScheduler(this.threads, this.classLoader),
+            metrics,
+            sink
+        );
+    }
+
     public List<Problem> checkFile(
         UploadedFile file, Path tests,
         List<ProblemType> problemsToReport,
@@ -165,6 +396,299 @@ public final class Linter {
         Collection<ProblemType> problemsToReport,
         Iterable<? extends Check> checks,
         Consumer<LinterStatus> statusConsumer
+    ) throws LinterException, IOException {
+        return this.checkFile(file, tests, problemsToReport, checks, statusConsumer, new LinterMetrics());
+    }
+
+    /**
+     * Checks the compiled code with the given checks and records how many resources the stages and checks have used.
+     *
+     * @param file the compiled code or null if there is no code
+     * @param tests the tests for the dynamic analysis
+     * @param problemsToReport the problem types to report, all are reported if it is empty
+     * @param checks the checks to run
+     * @param statusConsumer receives the progress of the check
+     * @param metrics receives the metrics of the stages and checks
+     * @return the problems found in the code
+     * @throws LinterException if a check failed
+     * @throws IOException if the code could not be read
+     */
+    public List<Problem> checkFile(
+        UploadedFile file,
+        Path tests,
+        Collection<ProblemType> problemsToReport,
+        Iterable<? extends Check> checks,
+        Consumer<LinterStatus> statusConsumer,
+        LinterMetrics metrics
+    ) throws LinterException, IOException {
+        return this.checkFile(file, tests, problemsToReport, checks, statusConsumer, metrics, null);
+    }
+
+    /**
+     * Checks the compiled code with the given checks and delivers the problems to the sink while the checks are
+     * still running, so they can be shown before the slowest check has been completed.
+     * <p>
+     * If a check fails, the problems that have already been delivered to the sink are not revoked.
+     *
+     * @param file the compiled code or null if there is no code
+     * @param tests the tests for the dynamic analysis
+     * @param problemsToReport the problem types to report, all are reported if it is empty
+     * @param checks the checks to run
+     * @param statusConsumer receives the progress of the check
+     * @param metrics receives the metrics of the stages and checks
+     * @param sink receives the problems as soon as they are found or null if they should only be returned
+     * @return all problems found in the code, in the same order as without a sink
+     * @throws LinterException if a check failed
+     * @throws IOException if the code could not be read
+     */
+    public List<Problem> checkFile(
+        UploadedFile file,
+        Path tests,
+        Collection<ProblemType> problemsToReport,
+        Iterable<? extends Check> checks,
+        Consumer<LinterStatus> statusConsumer,
+        LinterMetrics metrics,
+        ProblemSink sink
+    ) throws LinterException, IOException {
+        return this.checkFile(
+            file,
+            tests,
+            problemsToReport,
+            checks,
+            statusConsumer,
+            new AnalysisScheduler(this.threads, this.classLoader),
+            metrics,
+            sink
+        );
+    }
+
+    /**
+     * Checks many submissions, which is faster than calling {@link #checkFile} for each of them.
+     * <p>
+     * Up to {@code parallelism} submissions are compiled and checked at the same time. The checks of all
+     * submissions are executed on one shared pool with the number of threads configured in the builder.
+     * The checks that do not depend on a code model (PMD, CPD and SpotBugs) are only created once and are
+     * shared by all submissions.
+     * <p>
+     * The result of each submission is passed to the {@code resultConsumer} as soon as the submission has been
+     * checked, so the results will not be in the order of the submissions. The consumer is never called by
+     * two threads at the same time. A submission that could not be checked does not abort the batch, its
+     * result contains the exception instead. An error, e.g. a {@link NoClassDefFoundError} of a check, is wrapped
+     * in an {@link IllegalStateException}.
+     * <p>
+     * The linter must not have a {@link PlagiarismIndex}, because the submissions have no names under which they
+     * could be added to it, see {@link #checkSubmissions(Stream, Function, Path, List, int, Consumer)}.
+     *
+     * @param submissions the submissions to check, the stream is consumed lazily
+     * @param tests the tests for the dynamic analysis
+     * @param problemsToReport the problem types to check for
+     * @param parallelism the number of submissions that are checked at the same time
+     * @param resultConsumer receives the result of each submission
+     * @throws InterruptedException if the thread was interrupted while waiting for the submissions
+     */
+    public void checkSubmissions(
+        Stream<? extends SourceInfo> submissions,
+        Path tests,
+        List<ProblemType> problemsToReport,
+        int parallelism,
+        Consumer<? super SubmissionResult> resultConsumer
+    ) throws InterruptedException {
+        this.checkSubmissions(submissions, null, tests, problemsToReport, parallelism, resultConsumer);
+    }
+
+    /**
+     * Checks many submissions like {@link #checkSubmissions(Stream, Path, List, int, Consumer)}.
+     * <p>
+     * If the linter has a {@link PlagiarismIndex}, every submission that has been checked is added to it under its
+     * name and the code that it shares with the other submissions that have been added before is reported.
+     * The names must be stable, e.g. the id of the student, so that checking a submission again replaces its earlier
+     * copy in the index instead of reporting the code shared with it.
+     *
+     * @param submissions the submissions to check, the stream is consumed lazily
+     * @param submissionNames returns the stable name of a submission, may be null if there is no plagiarism index
+     * @param tests the tests for the dynamic analysis
+     * @param problemsToReport the problem types to check for
+     * @param parallelism the number of submissions that are checked at the same time
+     * @param resultConsumer receives the result of each submission
+     * @throws InterruptedException if the thread was interrupted while waiting for the submissions
+     */
+    public void checkSubmissions(
+        Stream<? extends SourceInfo> submissions,
+        Function<? super SourceInfo, String> submissionNames,
+        Path tests,
+        List<ProblemType> problemsToReport,
+        int parallelism,
+        Consumer<? super SubmissionResult> resultConsumer
+    ) throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, but was " + parallelism);
+        }
+
+        if (this.plagiarismIndex != null && submissionNames == null) {
+            throw new IllegalArgumentException("The submissions need stable names to be added to the plagiarism index");
+        }
+
+        List<CheckDescriptor> checkDescriptors = CheckRegistry.findChecksForProblemTypes(problemsToReport);
+        // checks that analyze the code model store their problems in fields, so they are created for each submission
+        Map<CheckDescriptor, Check> sharedChecks = new HashMap<>();
+        for (CheckDescriptor checkDescriptor : checkDescriptors) {
+            if (!IntegratedCheck.class.isAssignableFrom(checkDescriptor.type())) {
+                sharedChecks.put(checkDescriptor, checkDescriptor.instantiate());
+            }
+        }
+
+        ForkJoinPool pool = AnalysisScheduler.createPool(this.threads, this.classLoader);
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "Autograder-Submission-Thread-" + threadIndex.getAndIncrement());
+            if (this.classLoader != null) {
+                thread.setContextClassLoader(this.classLoader);
+            }
+            return thread;
+        });
+        // limits the number of submissions that are read from the stream, but have not been checked yet
+        Semaphore runningSubmissions = new Semaphore(parallelism);
+
+        try {
+            Iterator<? extends SourceInfo> iterator = submissions.iterator();
+            while (iterator.hasNext()) {
+                runningSubmissions.acquire();
+                SourceInfo source = iterator.next();
+                executor.execute(() -> {
+                    try {
+                        SubmissionResult result = this.checkSubmission(
+                            source,
+                            submissionNames,
+                            tests,
+                            problemsToReport,
+                            () -> checkDescriptors.stream()
+                                .map(checkDescriptor -> sharedChecks.containsKey(checkDescriptor)
+                                    ? sharedChecks.get(checkDescriptor)
+                                    : checkDescriptor.instantiate())
+                                .toList(),
+                            pool
+                        );
+                        synchronized (resultConsumer) {
+                            resultConsumer.accept(result);
+                        }
+                    } finally {
+                        runningSubmissions.release();
+                    }
+                });
+            }
+
+            // wait for the remaining submissions
+            runningSubmissions.acquire(parallelism);
+        } finally {
+            executor.shutdownNow();
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private SubmissionResult checkSubmission(
+        SourceInfo source,
+        Function<? super SourceInfo, String> submissionNames,
+        Path tests,
+        List<ProblemType> problemsToReport,
+        Supplier<List<Check>> checkSupplier,
+        ForkJoinPool pool
+    ) {
+        try {
+            // the checks are created here, so that a check that can not be created only fails this submission
+            List<Check> checks = checkSupplier.get();
+            LinterMetrics metrics = new LinterMetrics();
+            List<Problem> problems = this.checkSource(
+                source,
+                tests,
+                problemsToReport,
+                checks,
+                status -> {},
+                () -> new AnalysisScheduler(pool, this.classLoader),
+                metrics,
+                null
+            );
+
+            // the shared code depends on the other submissions, so it is not part of the cached problems
+            if (this.plagiarismIndex != null
+                && (problemsToReport.isEmpty() || problemsToReport.contains(ProblemType.SHARED_CODE))) {
+                problems = new ArrayList<>(problems);
+                problems.addAll(this.findSharedCode(submissionNames.apply(source), source));
+            }
+
+            return SubmissionResult.forSuccess(source, problems, metrics.getTimedOutChecks());
+        } catch (Exception exception) {
+            return SubmissionResult.forFailure(source, exception);
+        } catch (Throwable throwable) {
+            // an error would otherwise be swallowed by the executor and the consumer would never get a result
+            return SubmissionResult.forFailure(source, new IllegalStateException(throwable));
+        }
+    }
+
+    private List<Problem> findSharedCode(String name, SourceInfo source) throws IOException {
+        Check check = new SharedCodeCheck();
+        return this.plagiarismIndex.addSubmission(name, source)
+            .stream()
+            .<Problem>map(sharedCode -> new SharedCodeProblem(check, sharedCode, source))
+            .toList();
+    }
+
+    private List<Problem> checkSource(
+        SourceInfo source,
+        Path tests,
+        List<ProblemType> problemsToReport,
+        List<Check> checks,
+        Consumer<LinterStatus> statusConsumer,
+        Supplier<AnalysisScheduler> schedulerSupplier,
+        LinterMetrics metrics,
+        ProblemSink sink
+    ) throws LinterException, IOException {
+        // the results of the dynamic analysis depend on the tests, which are not part of the key
+        String cacheKey = null;
+        if (this.resultCache != null && (this.disableDynamicAnalysis || tests == null)) {
+            cacheKey = ResultCache.computeKey(source, problemsToReport, this.maxProblemsPerCheck, this.locale);
+            Optional<List<Problem>> cachedProblems = this.resultCache.load(cacheKey, source, checks);
+            if (cachedProblems.isPresent()) {
+                if (sink != null && !cachedProblems.get().isEmpty()) {
+                    sink.acceptProblems(cachedProblems.get());
+                }
+                return cachedProblems.get();
+            }
+        }
+
+        List<Problem> problems;
+        int timedOutChecks = metrics.getTimedOutChecks().size();
+        LinterMetrics.Sample sample = LinterMetrics.startSample();
+        try (TempLocation submissionLocation = this.tempLocation.createTempDirectory("submission");
+             UploadedFile file = UploadedFile.build(
+                 source,
+                 submissionLocation,
+                 statusConsumer,
+                 this.classLoader,
+                 AnalysisPlan.forChecks(checks)
+             )) {
+            metrics.recordStage(LinterMetrics.Stage.COMPILATION, sample);
+            problems = this.checkFile(file, tests, problemsToReport, checks, statusConsumer, schedulerSupplier.get(), metrics, sink);
+        }
+
+        // the checks that timed out might complete the next time
+        if (cacheKey != null && metrics.getTimedOutChecks().size() == timedOutChecks) {
+            this.resultCache.store(cacheKey, problems, this::translateMessage);
+        }
+
+        return problems;
+    }
+
+    private List<Problem> checkFile(
+        UploadedFile file,
+        Path tests,
+        Collection<ProblemType> problemsToReport,
+        Iterable<? extends Check> checks,
+        Consumer<LinterStatus> statusConsumer,
+        AnalysisScheduler scheduler,
+        LinterMetrics metrics,
+        ProblemSink sink
     ) throws LinterException, IOException {
         // the file is null if the student did not upload source code
         if (file == null) {
@@ -194,26 +718,43 @@ public final class Linter {
             }
         }
 
-        AnalysisScheduler scheduler = new AnalysisScheduler(this.threads, classLoader);
+        AnalysisPlan plan = AnalysisPlan.forChecks(integratedChecks);
+        CheckTimeout timeout = CheckTimeout.start(this.checkTimeout, this.submissionTimeout);
+        SinkReporter sinkReporter = new SinkReporter(sink, problemsToReport);
+        if (sink != null) {
+            scheduler.setProblemListener(sinkReporter);
+        }
 
         if (!pmdChecks.isEmpty()) {
             scheduler.submitTask((s, reporter) -> {
                 statusConsumer.accept(LinterStatus.RUNNING_PMD);
-                reporter.reportProblems(new PMDLinter().lint(file, pmdChecks, this.classLoader));
+                LinterMetrics.Sample sample = LinterMetrics.startSample();
+                List<Problem> problems = this.pmdLinter.lint(file, pmdChecks);
+                metrics.recordStage(LinterMetrics.Stage.PMD, sample, problems.size());
+                reporter.reportProblems(problems);
+                sinkReporter.stageCompleted(LinterMetrics.Stage.PMD);
             });
         }
 
         if (!cpdChecks.isEmpty()) {
             scheduler.submitTask((s, reporter) -> {
                 statusConsumer.accept(LinterStatus.RUNNING_CPD);
-                reporter.reportProblems(new CPDLinter().lint(file, cpdChecks));
+                LinterMetrics.Sample sample = LinterMetrics.startSample();
+                List<Problem> problems = new CPDLinter().lint(file, cpdChecks);
+                metrics.recordStage(LinterMetrics.Stage.CPD, sample, problems.size());
+                reporter.reportProblems(problems);
+                sinkReporter.stageCompleted(LinterMetrics.Stage.CPD);
             });
         }
 
         if (!spotbugsChecks.isEmpty()) {
             scheduler.submitTask((s, reporter) -> {
                 statusConsumer.accept(LinterStatus.RUNNING_SPOTBUGS);
-                reporter.reportProblems(new SpotbugsLinter().lint(file, file.getCompilationResult().jar(), spotbugsChecks));
+                LinterMetrics.Sample sample = LinterMetrics.startSample();
+                List<Problem> problems = this.getSpotbugsLinter().lint(file, file.getCompilationResult().jar(), spotbugsChecks);
+                metrics.recordStage(LinterMetrics.Stage.SPOTBUGS, sample, problems.size());
+                reporter.reportProblems(problems);
+                sinkReporter.stageCompleted(LinterMetrics.Stage.SPOTBUGS);
             });
         }
 
@@ -223,18 +764,25 @@ public final class Linter {
 
             if (!integratedChecks.isEmpty()) {
                 scheduler.submitTask((s, reporter) -> {
-                    IntegratedAnalysis analysis = new IntegratedAnalysis(file, tmpLocation);
-                    if (!this.disableDynamicAnalysis) {
+                    IntegratedAnalysis analysis = new IntegratedAnalysis(file, tmpLocation, this.maxProblemsPerCheck);
+                    if (!this.disableDynamicAnalysis && plan.requires(AnalysisRequirement.DYNAMIC_ANALYSIS)) {
+                        LinterMetrics.Sample sample = LinterMetrics.startSample();
                         analysis.runDynamicAnalysis(tests, statusConsumer);
+                        metrics.recordStage(LinterMetrics.Stage.DYNAMIC_ANALYSIS, sample);
+                        sinkReporter.stageCompleted(LinterMetrics.Stage.DYNAMIC_ANALYSIS);
                     }
-                    analysis.lint(integratedChecks, statusConsumer, s);
+                    analysis.lint(integratedChecks, statusConsumer, s, metrics, timeout);
                 });
             }
 
             if (!errorProneChecks.isEmpty()) {
                 scheduler.submitTask((s, reporter) -> {
                     statusConsumer.accept(LinterStatus.RUNNING_ERROR_PRONE);
-                    reporter.reportProblems(new ErrorProneLinter().lint(file, tempLinterLocation, errorProneChecks));
+                    LinterMetrics.Sample sample = LinterMetrics.startSample();
+                    List<Problem> problems = new ErrorProneLinter(this.errorProneWorkers).lint(file, tempLinterLocation, errorProneChecks);
+                    metrics.recordStage(LinterMetrics.Stage.ERROR_PRONE, sample, problems.size());
+                    reporter.reportProblems(problems);
+                    sinkReporter.stageCompleted(LinterMetrics.Stage.ERROR_PRONE);
                 });
             }
 
@@ -244,16 +792,73 @@ public final class Linter {
             }
         }
 
-        List<Problem> unreducedProblems = result.problems();
-        if (!problemsToReport.isEmpty()) {
-            unreducedProblems = result
-                .problems()
-                .stream()
-                .filter(p -> problemsToReport.contains(p.getProblemType()))
-                .toList();
+        return this.mergeProblems(filterProblems(result.problems(), problemsToReport));
+    }
+
+    private static Collection<? extends Problem> filterProblems(
+        Collection<? extends Problem> problems,
+        Collection<ProblemType> problemsToReport
+    ) {
+        if (problemsToReport.isEmpty()) {
+            return problems;
+        }
+
+        return problems.stream()
+            .filter(p -> problemsToReport.contains(p.getProblemType()))
+            .toList();
+    }
+
+    /**
+     * Forwards the problems reported by the analysis tasks to a {@link ProblemSink}, one call at a time.
+     */
+    private final class SinkReporter implements ProblemReporter {
+        private final ProblemSink sink;
+        private final Collection<ProblemType> problemsToReport;
+
+        private SinkReporter(ProblemSink sink, Collection<ProblemType> problemsToReport) {
+            this.sink = sink;
+            this.problemsToReport = problemsToReport;
+        }
+
+        @Override
+        public void reportProblem(Problem problem) {
+            this.reportProblems(List.of(problem));
+        }
+
+        @Override
+        public void reportProblems(Collection<Problem> problems) {
+            if (this.sink == null) {
+                return;
+            }
+
+            // every task reports all problems of its checks at once, so they can already be merged
+            List<Problem> mergedProblems = mergeProblems(filterProblems(problems, this.problemsToReport));
+            if (mergedProblems.isEmpty()) {
+                return;
+            }
+
+            synchronized (this) {
+                this.sink.acceptProblems(mergedProblems);
+            }
+        }
+
+        private void stageCompleted(LinterMetrics.Stage stage) {
+            if (this.sink == null) {
+                return;
+            }
+
+            synchronized (this) {
+                this.sink.stageCompleted(stage);
+            }
+        }
+    }
+
+    private synchronized SpotbugsLinter getSpotbugsLinter() {
+        if (this.spotbugsLinter == null) {
+            this.spotbugsLinter = new SpotbugsLinter();
         }
 
-        return this.mergeProblems(unreducedProblems);
+        return this.spotbugsLinter;
     }
 
     private List<Problem> mergeProblems(Collection<? extends Problem> unreducedProblems) {
@@ -300,28 +905,10 @@ public final class Linter {
         }
     }
 
-    private static final Collection<Class<?>> CHECKS = new LinkedHashSet<>(
-        new Reflections("de.firemage.autograder.core.check", Scanners.TypesAnnotated)
-            .getTypesAnnotatedWith(ExecutableCheck.class)
-    );
-
     public List<Check> findChecksForProblemTypes(Collection<ProblemType> problems) {
-        return CHECKS
+        return CheckRegistry.findChecksForProblemTypes(problems)
             .stream()
-            .filter(c -> isRequiredCheck(c.getAnnotation(ExecutableCheck.class), problems))
-            .map(c -> {
-                try {
-                    return (Check) c.getConstructor().newInstance();
-                } catch (ReflectiveOperationException e) {
-                    throw new IllegalStateException("Failed to instantiate check " + c.getName(), e);
-                } catch (ClassCastException e) {
-                    throw new IllegalStateException(c.getName() + " does not inherit from Check");
-                }
-            })
+            .map(CheckDescriptor::instantiate)
             .toList();
     }
-
-    private boolean isRequiredCheck(ExecutableCheck check, Collection<ProblemType> problems) {
-        return check.enabled() && problems.stream().anyMatch(p -> List.of(check.reportedProblems()).contains(p));
-    }
 }
@@ -0,0 +1,213 @@
+package de.firemage.autograder.core;
+
+import de.firemage.autograder.core.check.Check;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects how many resources the stages of the linter and the individual checks have used.
+ * <p>
+ * A stage or check is measured on the thread that executes it, from a {@link Sample} taken before it starts
+ * until it is recorded. The CPU time and the allocated bytes are -1 if the JVM cannot measure them or if the work
+ * is done in another JVM, see {@link Stage#isWallClockOnly()}.
+ * The metrics can be recorded by multiple threads at the same time.
+ */
+public final class LinterMetrics {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final List<Measurement> stages;
+    private final List<Measurement> checks;
+    private volatile int modelSize;
+
+    public LinterMetrics() {
+        this.stages = Collections.synchronizedList(new ArrayList<>());
+        this.checks = Collections.synchronizedList(new ArrayList<>());
+        this.modelSize = -1;
+    }
+
+    public enum Stage {
+        COMPILATION,
+        MODEL_BUILD,
+        DYNAMIC_ANALYSIS,
+        PMD,
+        CPD,
+        SPOTBUGS,
+        // runs in the JVMs of the error-prone workers, the calling thread only waits for the diagnostics
+        ERROR_PRONE(true);
+
+        private final boolean isWallClockOnly;
+
+        Stage() {
+            this(false);
+        }
+
+        Stage(boolean isWallClockOnly) {
+            this.isWallClockOnly = isWallClockOnly;
+        }
+
+        /**
+         * Returns whether the stage does its work in another JVM, so only its wall time can be measured.
+         * The CPU time and the allocated bytes of the calling thread would only show the time spent waiting.
+         *
+         * @return true if the CPU time and the allocated bytes of the stage are always -1
+         */
+        public boolean isWallClockOnly() {
+            return this.isWallClockOnly;
+        }
+    }
+
+    /**
+     * The resources used by a stage or a check.
+     *
+     * @param name the name of the stage or the simple class name of the check
+     * @param wallTimeNanos the elapsed time
+     * @param cpuTimeNanos the CPU time of the thread or -1 if it could not be measured
+     * @param allocatedBytes the number of bytes allocated by the thread or -1 if they could not be measured
+     * @param problems the number of problems that have been reported, -1 if the stage does not report problems
+     * @param timedOut whether the check has been abandoned or skipped, because it exceeded its time budget
+     */
+    public record Measurement(
+        String name,
+        long wallTimeNanos,
+        long cpuTimeNanos,
+        long allocatedBytes,
+        int problems,
+        boolean timedOut
+    ) {
+    }
+
+    /**
+     * The state of the current thread before a stage or check has been started.
+     */
+    public static final class Sample {
+        private final Thread thread;
+        private final long wallTime;
+        private final long cpuTime;
+        private final long allocatedBytes;
+
+        private Sample(Thread thread, long wallTime, long cpuTime, long allocatedBytes) {
+            this.thread = thread;
+            this.wallTime = wallTime;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        private Measurement finish(String name, int problems, boolean timedOut, boolean isWallClockOnly) {
+            if (Thread.currentThread() != this.thread) {
+                throw new IllegalStateException("A sample must be finished on the thread that has taken it");
+            }
+
+            long cpuTime = isWallClockOnly ? -1 : currentCpuTime();
+            long allocatedBytes = isWallClockOnly ? -1 : currentAllocatedBytes();
+            return new Measurement(
+                name,
+                System.nanoTime() - this.wallTime,
+                cpuTime == -1 || this.cpuTime == -1 ? -1 : cpuTime - this.cpuTime,
+                allocatedBytes == -1 || this.allocatedBytes == -1 ? -1 : allocatedBytes - this.allocatedBytes,
+                problems,
+                timedOut
+            );
+        }
+    }
+
+    private static long currentCpuTime() {
+        if (!THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+            return -1;
+        }
+
+        return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+
+    private static long currentAllocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean threadMXBean
+            && threadMXBean.isThreadAllocatedMemorySupported()
+            && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return threadMXBean.getCurrentThreadAllocatedBytes();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Takes a sample of the current thread, which has to be passed to one of the record methods
+     * on the same thread when the measured work has been completed.
+     *
+     * @return the sample
+     */
+    public static Sample startSample() {
+        return new Sample(Thread.currentThread(), System.nanoTime(), currentCpuTime(), currentAllocatedBytes());
+    }
+
+    public Measurement recordStage(Stage stage, Sample sample) {
+        return this.recordStage(stage, sample, -1);
+    }
+
+    public Measurement recordStage(Stage stage, Sample sample, int problems) {
+        Measurement measurement = sample.finish(stage.name(), problems, false, stage.isWallClockOnly());
+        this.stages.add(measurement);
+        return measurement;
+    }
+
+    public Measurement recordCheck(Check check, Sample sample, int problems) {
+        Measurement measurement = sample.finish(check.getClass().getSimpleName(), problems, false, false);
+        this.checks.add(measurement);
+        return measurement;
+    }
+
+    /**
+     * Records a check that has been abandoned or not started, because it exceeded its time budget.
+     * The problems of the check are not reported.
+     *
+     * @param check the check
+     * @param sample the sample taken before the check has been started
+     * @return the measurement
+     */
+    public Measurement recordTimedOutCheck(Check check, Sample sample) {
+        Measurement measurement = sample.finish(check.getClass().getSimpleName(), 0, true, false);
+        this.checks.add(measurement);
+        return measurement;
+    }
+
+    /**
+     * Sets the size of the code model.
+     *
+     * @param modelSize the number of elements in the model
+     */
+    public void setModelSize(int modelSize) {
+        this.modelSize = modelSize;
+    }
+
+    /**
+     * Returns the size of the code model.
+     *
+     * @return the number of elements in the model or -1 if no model has been built
+     */
+    public int getModelSize() {
+        return this.modelSize;
+    }
+
+    public List<Measurement> getStages() {
+        synchronized (this.stages) {
+            return List.copyOf(this.stages);
+        }
+    }
+
+    public List<Measurement> getChecks() {
+        synchronized (this.checks) {
+            return List.copyOf(this.checks);
+        }
+    }
+
+    /**
+     * Returns the checks that did not report their problems, because they exceeded their time budget.
+     *
+     * @return the simple class names of the checks
+     */
+    public List<String> getTimedOutChecks() {
+        return this.getChecks().stream().filter(Measurement::timedOut).map(Measurement::name).toList();
+    }
+}
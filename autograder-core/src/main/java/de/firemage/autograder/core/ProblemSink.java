@@ -0,0 +1,32 @@
+package de.firemage.autograder.core;
+
+import java.util.List;
+
+/**
+ * Receives the problems of a submission while it is being checked, see
+ * {@link Linter#checkFile(de.firemage.autograder.core.file.UploadedFile, java.nio.file.Path, java.util.Collection, Iterable, java.util.function.Consumer, LinterMetrics, ProblemSink)}
+ * and {@link Linter#checkSource(de.firemage.autograder.core.file.SourceInfo, java.nio.file.Path, List, java.util.function.Consumer, LinterMetrics, ProblemSink)}.
+ * <p>
+ * The problems are delivered as soon as a stage or an integrated check has reported them. They have already been
+ * filtered by the requested problem types and merged per check like the problems returned by the linter.
+ * The methods are never called at the same time, but they might be called by different threads.
+ */
+public interface ProblemSink {
+    /**
+     * Receives the problems of one or more checks that have been completed.
+     * The problems of a check are delivered at once.
+     *
+     * @param problems the problems, never empty
+     */
+    void acceptProblems(List<Problem> problems);
+
+    /**
+     * Called when one of the linters (PMD, CPD, SpotBugs or error-prone) or the dynamic analysis has been completed.
+     * The problems of the stage have been delivered before. The integrated checks do not have a notification,
+     * their problems are delivered per check.
+     *
+     * @param stage the stage that has been completed
+     */
+    default void stageCompleted(LinterMetrics.Stage stage) {
+    }
+}
@@ -63,6 +63,7 @@ public enum ProblemType {
     STATIC_METHOD_IN_INTERFACE,
     DO_NOT_USE_RAW_TYPES,
     DUPLICATE_CODE,
+    SHARED_CODE,
     TOO_FEW_PACKAGES,
     TRY_CATCH_COMPLEXITY,
     AVOID_STATIC_BLOCKS,
@@ -0,0 +1,40 @@
+package de.firemage.autograder.core;
+
+import de.firemage.autograder.core.file.SourceInfo;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The result of checking one submission of a batch, see {@link Linter#checkSubmissions}.
+ *
+ * @param source the submission that has been checked
+ * @param problems the problems found in the submission, null if the check failed
+ * @param thrownException the exception that aborted the check, null if it succeeded
+ * @param timedOutChecks the simple class names of the checks whose problems are missing,
+ *                       because they exceeded their time budget, see {@link LinterMetrics#getTimedOutChecks()}
+ */
+public record SubmissionResult(
+    SourceInfo source,
+    List<Problem> problems,
+    Exception thrownException,
+    List<String> timedOutChecks
+) {
+    public static SubmissionResult forSuccess(SourceInfo source, List<Problem> problems) {
+        return SubmissionResult.forSuccess(source, problems, List.of());
+    }
+
+    public static SubmissionResult forSuccess(SourceInfo source, List<Problem> problems, List<String> timedOutChecks) {
+        Objects.requireNonNull(problems);
+        return new SubmissionResult(source, problems, null, List.copyOf(timedOutChecks));
+    }
+
+    public static SubmissionResult forFailure(SourceInfo source, Exception thrownException) {
+        Objects.requireNonNull(thrownException);
+        return new SubmissionResult(source, null, thrownException, List.of());
+    }
+
+    public boolean failed() {
+        return this.thrownException != null;
+    }
+}
@@ -0,0 +1,213 @@
+package de.firemage.autograder.core.cache;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A directory of cache entries whose total size is bounded by evicting the least recently used entries.
+ * <p>
+ * Multiple threads and processes can share a directory. Entries are written to a temporary file and then moved
+ * into place, so a reader never sees a partially written entry. Reading an entry updates its modification time,
+ * which is used to find the least recently used entries.
+ * <p>
+ * Listing the directory is expensive for large caches, so it is not done on every write. The size of the entries is
+ * counted when the directory is opened and then updated by the writes of this process. The directory is only swept
+ * when the counted size exceeds the maximum or when the last sweep is {@link #SWEEP_INTERVAL} ago, which accounts for
+ * the entries of other processes. A sweep evicts entries until the size is below {@link #LOW_WATERMARK} of the
+ * maximum, so that a full cache is not swept on every write.
+ * <p>
+ * A writer that crashes before it has moved its temporary file into place leaves the file behind. A sweep deletes
+ * the temporary files that are older than {@link #STALE_TEMPORARY_FILE_AGE}, which no writer is still using.
+ */
+public final class CacheDirectory {
+    static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+    static final double LOW_WATERMARK = 0.9;
+    static final Duration STALE_TEMPORARY_FILE_AGE = Duration.ofHours(1);
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String LOCK_FILE = "cache.lock";
+
+    private final Path directory;
+    private final String entrySuffix;
+    private final long maximumSize;
+    // the size of all entries as far as this process knows
+    private final AtomicLong size;
+    // a file lock is held by the whole process, so threads of the same process have to synchronize themselves
+    private final Object sweepLock;
+    private volatile long lastSweep;
+
+    private CacheDirectory(Path directory, String entrySuffix, long maximumSize) {
+        this.directory = directory;
+        this.entrySuffix = entrySuffix;
+        this.maximumSize = maximumSize;
+        this.size = new AtomicLong();
+        this.sweepLock = new Object();
+    }
+
+    /**
+     * Opens the directory, which is created if it does not exist.
+     *
+     * @param directory the directory, which may be shared with other processes
+     * @param entrySuffix the suffix of the files of the entries, e.g. {@code .json}
+     * @param maximumSize the maximum size of all entries in bytes
+     * @return the directory
+     * @throws IOException if the directory could not be created or read
+     */
+    public static CacheDirectory open(Path directory, String entrySuffix, long maximumSize) throws IOException {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative, but was " + maximumSize);
+        }
+
+        Files.createDirectories(directory);
+        CacheDirectory result = new CacheDirectory(directory, entrySuffix, maximumSize);
+        result.sweep();
+        return result;
+    }
+
+    /**
+     * Reads an entry and marks it as recently used.
+     *
+     * @param key the key of the entry
+     * @return the content or an empty optional if there is no entry
+     * @throws IOException if the entry could not be read
+     */
+    public Optional<byte[]> read(String key) throws IOException {
+        Path entryPath = this.entryPath(key);
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(entryPath);
+        } catch (NoSuchFileException exception) {
+            return Optional.empty();
+        }
+
+        try {
+            Files.setLastModifiedTime(entryPath, FileTime.from(Instant.now()));
+        } catch (IOException exception) {
+            // the entry has been evicted by another process in the meantime
+        }
+
+        return Optional.of(content);
+    }
+
+    /**
+     * Writes an entry, replacing an existing one with the same key, and evicts other entries if the cache is full.
+     *
+     * @param key the key of the entry
+     * @param content the content of the entry
+     * @throws IOException if the entry could not be written
+     */
+    public void write(String key, byte[] content) throws IOException {
+        Path entryPath = this.entryPath(key);
+
+        Path temporaryFile = Files.createTempFile(this.directory, key, TEMPORARY_FILE_SUFFIX);
+        try {
+            Files.write(temporaryFile, content);
+
+            long replacedSize;
+            try {
+                replacedSize = Files.size(entryPath);
+            } catch (NoSuchFileException exception) {
+                replacedSize = 0;
+            }
+
+            Files.move(temporaryFile, entryPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            this.size.addAndGet(content.length - replacedSize);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+
+        if (this.isSweepNeeded()) {
+            synchronized (this.sweepLock) {
+                // another thread might have swept the directory in the meantime
+                if (this.isSweepNeeded()) {
+                    this.sweep();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the size of all entries as far as this process knows, which is exact after a sweep.
+     *
+     * @return the size in bytes
+     */
+    long size() {
+        return this.size.get();
+    }
+
+    private boolean isSweepNeeded() {
+        return this.size.get() > this.maximumSize || System.nanoTime() - this.lastSweep > SWEEP_INTERVAL.toNanos();
+    }
+
+    private void sweep() throws IOException {
+        try (FileChannel channel = FileChannel.open(
+            this.directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE
+        ); FileLock ignored = channel.lock()) {
+            this.size.set(this.evict());
+            this.lastSweep = System.nanoTime();
+        }
+    }
+
+    private long evict() throws IOException {
+        record Entry(Path path, long size, FileTime lastModified) {
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        Instant staleBefore = Instant.now().minus(STALE_TEMPORARY_FILE_AGE);
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                try {
+                    if (name.endsWith(this.entrySuffix)) {
+                        entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path)));
+                    } else if (name.endsWith(TEMPORARY_FILE_SUFFIX)
+                        && Files.getLastModifiedTime(path).toInstant().isBefore(staleBefore)) {
+                        // the writer has crashed before moving the file into place
+                        Files.deleteIfExists(path);
+                    }
+                } catch (NoSuchFileException exception) {
+                    // the entry has been replaced in the meantime
+                }
+            }
+        }
+
+        long totalSize = entries.stream().mapToLong(Entry::size).sum();
+        if (totalSize <= this.maximumSize) {
+            return totalSize;
+        }
+
+        long targetSize = (long) (this.maximumSize * LOW_WATERMARK);
+        entries.sort(Comparator.comparing(Entry::lastModified));
+        for (Entry entry : entries) {
+            if (totalSize <= targetSize) {
+                break;
+            }
+
+            Files.deleteIfExists(entry.path());
+            totalSize -= entry.size();
+        }
+
+        return totalSize;
+    }
+
+    private Path entryPath(String key) {
+        return this.directory.resolve(key + this.entrySuffix);
+    }
+}
@@ -0,0 +1,16 @@
+package de.firemage.autograder.core.cache;
+
+import de.firemage.autograder.core.CodePosition;
+import de.firemage.autograder.core.ProblemImpl;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.Translatable;
+import de.firemage.autograder.core.check.Check;
+
+/**
+ * A problem that has been loaded from the {@link ResultCache}.
+ */
+public class CachedProblem extends ProblemImpl {
+    CachedProblem(Check check, CodePosition position, Translatable explanation, ProblemType problemType) {
+        super(check, position, explanation, problemType);
+    }
+}
@@ -0,0 +1,262 @@
+package de.firemage.autograder.core.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.firemage.autograder.core.AutograderVersion;
+import de.firemage.autograder.core.CodePosition;
+import de.firemage.autograder.core.Linter;
+import de.firemage.autograder.core.LocalizedMessage;
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.Translatable;
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.file.CompilationUnit;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.SourcePath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * An on-disk cache for the problems of submissions, so that unchanged resubmissions do not have to be checked again.
+ * <p>
+ * The entries are addressed by a hash of the normalized source code and everything else that influences the result
+ * (see {@link #computeKey}). Line endings and trailing whitespace are ignored, because they change neither the code
+ * nor the positions of the problems.
+ * <p>
+ * Multiple processes can share a cache directory. The total size is bounded by evicting the least recently used
+ * entries, see {@link CacheDirectory}.
+ */
+public final class ResultCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ResultCache.class);
+
+    // must be incremented whenever the format of the entries changes
+    private static final int FORMAT_VERSION = 2;
+    private static final String ENTRY_SUFFIX = ".json";
+
+    private final CacheDirectory directory;
+    private final ObjectMapper mapper;
+
+    private record CacheEntry(int formatVersion, List<StoredProblem> problems) {
+    }
+
+    private record StoredProblem(
+        String check,
+        ProblemType problemType,
+        List<String> file,
+        int startLine,
+        int endLine,
+        int startColumn,
+        int endColumn,
+        String messageKey,
+        Map<String, Object> messageParameters,
+        String message
+    ) {
+    }
+
+    private ResultCache(CacheDirectory directory) {
+        this.directory = directory;
+        this.mapper = new ObjectMapper();
+    }
+
+    /**
+     * Opens the cache in the given directory, which is created if it does not exist.
+     *
+     * @param directory the directory of the cache, which may be shared with other processes
+     * @param maximumSize the maximum size of all entries in bytes
+     * @return the cache
+     * @throws IOException if the directory could not be created or read
+     */
+    public static ResultCache open(Path directory, long maximumSize) throws IOException {
+        return new ResultCache(CacheDirectory.open(directory, ENTRY_SUFFIX, maximumSize));
+    }
+
+    /**
+     * Computes the key of the result of a check.
+     *
+     * @param source the checked source code
+     * @param problemTypes the problem types that have been checked
+     * @param maxProblemsPerCheck the limit of the linter, because it changes which problems are reported
+     * @param locale the locale of the linter, because some explanations are stored translated
+     * @return the key
+     * @throws IOException if the source code could not be read
+     */
+    public static String computeKey(
+        SourceInfo source,
+        Collection<ProblemType> problemTypes,
+        int maxProblemsPerCheck,
+        Locale locale
+    ) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+
+        List<String> header = new ArrayList<>();
+        header.add(String.valueOf(FORMAT_VERSION));
+        header.add(AutograderVersion.get());
+        header.add(source.getVersion().toString());
+        header.add(String.valueOf(maxProblemsPerCheck));
+        header.add(locale.toLanguageTag());
+        problemTypes.stream().map(ProblemType::name).distinct().sorted().forEach(header::add);
+        updateDigest(digest, String.join(",", header));
+
+        List<CompilationUnit> compilationUnits = new ArrayList<>(source.compilationUnits());
+        compilationUnits.sort(Comparator.comparing(CompilationUnit::path));
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            updateDigest(digest, compilationUnit.path().toString());
+            updateDigest(digest, normalize(compilationUnit.readString()));
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void updateDigest(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // the length separates the values, so that no two different inputs result in the same bytes
+        digest.update(String.valueOf(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static String normalize(String code) {
+        return code.lines()
+            .map(String::stripTrailing)
+            .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Loads the problems of a previous check.
+     *
+     * @param key the key returned by {@link #computeKey}
+     * @param source the source code, which will be referenced by the positions of the problems
+     * @param checks the checks that would have been executed, the problems will reference them
+     * @return the problems or an empty optional if there is no usable entry
+     */
+    public Optional<List<Problem>> load(String key, SourceInfo source, Collection<? extends Check> checks) {
+        CacheEntry entry;
+        try {
+            Optional<byte[]> content = this.directory.read(key);
+            if (content.isEmpty()) {
+                return Optional.empty();
+            }
+
+            entry = this.mapper.readValue(content.get(), CacheEntry.class);
+        } catch (IOException exception) {
+            LOG.warn("Ignoring unreadable cache entry {}", key, exception);
+            return Optional.empty();
+        }
+
+        if (entry.formatVersion() != FORMAT_VERSION) {
+            return Optional.empty();
+        }
+
+        List<Problem> problems = new ArrayList<>();
+        for (StoredProblem storedProblem : entry.problems()) {
+            Optional<? extends Check> check = checks.stream()
+                .filter(candidate -> candidate.getClass().getName().equals(storedProblem.check()))
+                .findFirst();
+
+            // the checks have changed, which should only happen during development
+            if (check.isEmpty()) {
+                return Optional.empty();
+            }
+
+            problems.add(new CachedProblem(
+                check.get(),
+                new CodePosition(
+                    source,
+                    SourcePath.of(storedProblem.file()),
+                    storedProblem.startLine(),
+                    storedProblem.endLine(),
+                    storedProblem.startColumn(),
+                    storedProblem.endColumn()
+                ),
+                toExplanation(storedProblem),
+                storedProblem.problemType()
+            ));
+        }
+
+        return Optional.of(problems);
+    }
+
+    private static Translatable toExplanation(StoredProblem storedProblem) {
+        if (storedProblem.messageKey() != null) {
+            return new LocalizedMessage(storedProblem.messageKey(), storedProblem.messageParameters());
+        }
+
+        String message = storedProblem.message();
+        return bundle -> message;
+    }
+
+    /**
+     * Stores the problems of a check. Failures are logged and otherwise ignored, because the cache is only
+     * an optimization.
+     *
+     * @param key the key returned by {@link #computeKey}
+     * @param problems the problems that have been reported
+     * @param translator translates explanations that can not be stored as a {@link LocalizedMessage},
+     *                   see {@link Linter#translateMessage(Translatable)}
+     */
+    public void store(String key, List<? extends Problem> problems, Function<? super Translatable, String> translator) {
+        List<StoredProblem> storedProblems = problems.stream()
+            .map(problem -> toStoredProblem(problem, translator))
+            .toList();
+
+        try {
+            this.directory.write(key, this.mapper.writeValueAsBytes(new CacheEntry(FORMAT_VERSION, storedProblems)));
+        } catch (IOException exception) {
+            LOG.warn("Could not store cache entry {}", key, exception);
+        }
+    }
+
+    private static StoredProblem toStoredProblem(Problem problem, Function<? super Translatable, String> translator) {
+        CodePosition position = problem.getPosition();
+
+        String messageKey = null;
+        Map<String, Object> messageParameters = null;
+        String message = null;
+        if (problem.getExplanation() instanceof LocalizedMessage localizedMessage && hasStorableParameters(localizedMessage)) {
+            messageKey = localizedMessage.key();
+            messageParameters = Map.copyOf(localizedMessage.parameters());
+        } else {
+            message = translator.apply(problem.getExplanation());
+        }
+
+        return new StoredProblem(
+            problem.getCheck().getClass().getName(),
+            problem.getProblemType(),
+            position.file().segments(),
+            position.startLine(),
+            position.endLine(),
+            position.startColumn(),
+            position.endColumn(),
+            messageKey,
+            messageParameters,
+            message
+        );
+    }
+
+    private static boolean hasStorableParameters(LocalizedMessage message) {
+        // other values might not be restored with the same type, which could change how they are formatted
+        return message.parameters().values().stream().allMatch(
+            value -> value instanceof String || value instanceof Integer || value instanceof Boolean
+        );
+    }
+}
@@ -0,0 +1,22 @@
+package de.firemage.autograder.core.check;
+
+/**
+ * Parts of the analysis that are only done if a selected check needs them.
+ *
+ * @see ExecutableCheck#requires()
+ */
+public enum AnalysisRequirement {
+    /**
+     * The code model contains the comments and javadoc of the code.
+     */
+    COMMENTS,
+    /**
+     * The compilation result contains all warnings of the compiler, including those
+     * that would be suppressed by {@code @SuppressWarnings}.
+     */
+    COMPILER_DIAGNOSTICS,
+    /**
+     * The tests are executed to record the events for the dynamic analysis, if it is enabled.
+     */
+    DYNAMIC_ANALYSIS
+}
@@ -0,0 +1,36 @@
+package de.firemage.autograder.core.check;
+
+import de.firemage.autograder.core.ProblemType;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Describes a class that is annotated with {@link ExecutableCheck}.
+ *
+ * @param type the class of the check
+ * @param factory creates a new instance of the check
+ * @param reportedProblems the problem types that the check reports, see {@link ExecutableCheck#reportedProblems()}
+ * @param isEnabled whether the check is enabled, see {@link ExecutableCheck#enabled()}
+ */
+public record CheckDescriptor(
+    Class<? extends Check> type,
+    Supplier<? extends Check> factory,
+    Set<ProblemType> reportedProblems,
+    boolean isEnabled
+) {
+    public Check instantiate() {
+        return this.factory.get();
+    }
+
+    /**
+     * Checks if the check is enabled and reports at least one of the given problem types.
+     *
+     * @param problems the problem types
+     * @return true if the check is needed for the problem types
+     */
+    public boolean isRequiredFor(Collection<ProblemType> problems) {
+        return this.isEnabled && problems.stream().anyMatch(this.reportedProblems::contains);
+    }
+}
@@ -0,0 +1,34 @@
+package de.firemage.autograder.core.check;
+
+import de.firemage.autograder.core.ProblemType;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * All checks that are annotated with {@link ExecutableCheck}.
+ * <p>
+ * The checks are found by an annotation processor at build time, so the classpath does not have to be scanned.
+ */
+public final class CheckRegistry {
+    private static final List<CheckDescriptor> CHECKS = GeneratedCheckIndex.checks();
+
+    private CheckRegistry() {
+    }
+
+    public static List<CheckDescriptor> getChecks() {
+        return CHECKS;
+    }
+
+    /**
+     * Finds the enabled checks that report at least one of the given problem types.
+     *
+     * @param problems the problem types
+     * @return the checks, ordered by their qualified name
+     */
+    public static List<CheckDescriptor> findChecksForProblemTypes(Collection<ProblemType> problems) {
+        return CHECKS.stream()
+            .filter(check -> check.isRequiredFor(problems))
+            .toList();
+    }
+}
@@ -12,4 +12,11 @@ import java.lang.annotation.Target;
 public @interface ExecutableCheck {
     ProblemType[] reportedProblems();
     boolean enabled() default true;
+
+    /**
+     * The parts of the analysis that this check needs in addition to the code itself.
+     *
+     * @return the requirements of the check
+     */
+    AnalysisRequirement[] requires() default {};
 }
@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.comment;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
@@ -11,7 +12,7 @@ import spoon.reflect.code.CtComment;
 
 import java.util.List;
 
-@ExecutableCheck(reportedProblems = {ProblemType.COMMENTED_OUT_CODE})
+@ExecutableCheck(reportedProblems = {ProblemType.COMMENTED_OUT_CODE}, requires = {AnalysisRequirement.COMMENTS})
 public class CommentedOutCodeCheck extends IntegratedCheck {
     private static final List<String> INLINE_CODE_INDICATORS = List.of(";", "{", "}");
     private static final List<String> BLOCK_CODE_INDICATORS = List.of(";", "{", "}", "=");
@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.comment;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
@@ -16,7 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-@ExecutableCheck(reportedProblems = {ProblemType.JAVADOC_UNEXPECTED_TAG})
+@ExecutableCheck(reportedProblems = {ProblemType.JAVADOC_UNEXPECTED_TAG}, requires = {AnalysisRequirement.COMMENTS})
 public class FieldJavadocCheck extends IntegratedCheck {
     private static final List<CtJavaDocTag.TagType> VALID_TAGS = List.of(
         CtJavaDocTag.TagType.SEE,
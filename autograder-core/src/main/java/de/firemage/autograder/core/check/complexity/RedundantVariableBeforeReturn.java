@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.complexity;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
@@ -16,7 +17,7 @@ import spoon.reflect.code.CtVariableRead;
 
 import java.util.Map;
 
-@ExecutableCheck(reportedProblems = {ProblemType.REDUNDANT_VARIABLE_BEFORE_RETURN})
+@ExecutableCheck(reportedProblems = {ProblemType.REDUNDANT_VARIABLE_BEFORE_RETURN}, requires = {AnalysisRequirement.COMMENTS})
 public class RedundantVariableBeforeReturn extends IntegratedCheck {
     /**
      * Checks if the given statement does not influence the variable returned by the return statement.
@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.complexity;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
@@ -33,10 +34,11 @@ import spoon.reflect.declaration.CtVariable;
 import spoon.reflect.reference.CtExecutableReference;
 import spoon.reflect.visitor.filter.VariableAccessFilter;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-@ExecutableCheck(reportedProblems = {ProblemType.COMPLEX_REGEX})
+@ExecutableCheck(reportedProblems = {ProblemType.COMPLEX_REGEX}, requires = {AnalysisRequirement.COMMENTS})
 public class RegexCheck extends IntegratedCheck {
     private static final double MAX_ALLOWED_SCORE = 10.0;
     private static final List<String> REGEX_HINTS = List.of("?", "<", ">", "+", "*", "[", "]", "$", "^", "|", "\\");
@@ -74,11 +76,17 @@ public class RegexCheck extends IntegratedCheck {
         );
     }
 
-    private static boolean isInAllowedContext(CtLiteral<?> ctLiteral) {
+    private static boolean isInAllowedContext(CtLiteral<?> ctLiteral, StaticAnalysis staticAnalysis) {
         CtElement parent = ctLiteral.getParent();
         if (parent instanceof CtVariable<?> ctVariable
             && SpoonUtil.isEffectivelyFinal(ctVariable)) {
-            List<CtVariableAccess<?>> invocations = parent.getFactory().getModel().getElements(new VariableAccessFilter<>(ctVariable.getReference()));
+            VariableAccessFilter<CtVariableAccess<?>> filter = new VariableAccessFilter<>(ctVariable.getReference());
+            List<CtVariableAccess<?>> invocations = new ArrayList<>();
+            for (CtVariableAccess<?> ctVariableAccess : staticAnalysis.getElements(CtVariableAccess.class)) {
+                if (filter.matches(ctVariableAccess)) {
+                    invocations.add(ctVariableAccess);
+                }
+            }
 
             return !invocations.isEmpty() &&
                 invocations
@@ -94,7 +102,7 @@ public class RegexCheck extends IntegratedCheck {
         staticAnalysis.processWith(new AbstractProcessor<CtLiteral<String>>() {
             @Override
             public void process(CtLiteral<String> literal) {
-                if (!SpoonUtil.isString(literal.getType()) || !isInAllowedContext(literal)) {
+                if (!SpoonUtil.isString(literal.getType()) || !isInAllowedContext(literal, staticAnalysis)) {
                     return;
                 }
 
@@ -79,7 +79,8 @@ public class ConstantNamingAndQualifierCheck extends IntegratedCheck {
                     // final int myLocalConstant = 0; instead of having a private static final...
                     addLocalProblem(
                         ctLocalVariable,
-                        new LocalizedMessage("variable-should-be", Map.of(
+                        // pretty printing the suggestion is only worth it if the problem is shown on its own
+                        () -> new LocalizedMessage("variable-should-be", Map.of(
                             "variable", ctLocalVariable.getSimpleName(),
                             "suggestion", makeSuggestion(ctLocalVariable)
                         )),
@@ -93,7 +94,8 @@ public class ConstantNamingAndQualifierCheck extends IntegratedCheck {
                     && (!ctField.isStatic() || !IdentifierNameUtils.isUpperSnakeCase(ctField.getSimpleName()))) {
                     addLocalProblem(
                         ctField,
-                        new LocalizedMessage("variable-should-be", Map.of(
+                        // pretty printing the suggestion is only worth it if the problem is shown on its own
+                        () -> new LocalizedMessage("variable-should-be", Map.of(
                             "variable", ctField.getSimpleName(),
                             "suggestion", makeSuggestion(ctField)
                         )),
@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.general;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
@@ -15,7 +16,7 @@ import spoon.reflect.declaration.CtMethod;
 
 import java.util.Map;
 
-@ExecutableCheck(reportedProblems = {ProblemType.INSTANCE_FIELD_CAN_BE_LOCAL})
+@ExecutableCheck(reportedProblems = {ProblemType.INSTANCE_FIELD_CAN_BE_LOCAL}, requires = {AnalysisRequirement.DYNAMIC_ANALYSIS})
 public class FieldShouldBeLocalCheck extends IntegratedCheck {
     private static LocalizedMessage formatExplanation(CtField<?> field) {
         return new LocalizedMessage("field-local-exp", Map.of(
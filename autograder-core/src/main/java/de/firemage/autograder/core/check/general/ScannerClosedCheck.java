@@ -29,13 +29,12 @@ public class ScannerClosedCheck extends IntegratedCheck {
                     return;
                 }
 
-                boolean isClosed =
-                    staticAnalysis.getModel().filterChildren(ctElement -> ctElement instanceof CtInvocation<?> ctInvocation
-                    && ctInvocation.getExecutable() != null
+                boolean isClosed = staticAnalysis.getElements(CtInvocation.class).stream().anyMatch(ctInvocation ->
+                    ctInvocation.getExecutable() != null
                     && ctInvocation.getExecutable().getSimpleName().equals("close")
                     && ctInvocation.getTarget() != null
                     && scannerType.equals(ctInvocation.getTarget().getType())
-                ).first() != null;
+                );
 
                 if (!isClosed && ctConstructorCall.getParent(CtTryWithResource.class) == null) {
                     addLocalProblem(
@@ -0,0 +1,15 @@
+package de.firemage.autograder.core.check.general;
+
+import de.firemage.autograder.core.LocalizedMessage;
+import de.firemage.autograder.core.check.Check;
+
+/**
+ * Reports the code that a submission shares with other submissions, see
+ * {@link de.firemage.autograder.core.plagiarism.PlagiarismIndex}.
+ */
+public class SharedCodeCheck implements Check {
+    @Override
+    public LocalizedMessage getLinter() {
+        return new LocalizedMessage("linter-plagiarism");
+    }
+}
@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.general;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.compiler.CompilationDiagnostic;
 import de.firemage.autograder.core.compiler.CompilationResult;
@@ -11,7 +12,7 @@ import de.firemage.autograder.core.integrated.StaticAnalysis;
 
 import java.util.List;
 
-@ExecutableCheck(reportedProblems = { ProblemType.UNCHECKED_TYPE_CAST })
+@ExecutableCheck(reportedProblems = { ProblemType.UNCHECKED_TYPE_CAST }, requires = {AnalysisRequirement.COMPILER_DIAGNOSTICS})
 public class UncheckedTypeCast extends IntegratedCheck {
     private static final List<String> WARNING_CODES = List.of(
         // the code for an unchecked cast
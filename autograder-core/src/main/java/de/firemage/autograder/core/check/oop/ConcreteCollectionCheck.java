@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.oop;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
@@ -43,7 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
-@ExecutableCheck(reportedProblems = { ProblemType.CONCRETE_COLLECTION_AS_FIELD_OR_RETURN_VALUE })
+@ExecutableCheck(reportedProblems = { ProblemType.CONCRETE_COLLECTION_AS_FIELD_OR_RETURN_VALUE }, requires = {AnalysisRequirement.COMMENTS})
 public class ConcreteCollectionCheck extends IntegratedCheck {
     private static final List<Class<?>> ALLOWED_TYPES = List.of(java.util.Properties.class);
 
@@ -2,6 +2,7 @@ package de.firemage.autograder.core.check.unnecessary;
 
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.check.ExecutableCheck;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.integrated.IntegratedCheck;
@@ -13,7 +14,7 @@ import spoon.reflect.code.CtComment;
 import spoon.reflect.code.CtSwitch;
 import spoon.reflect.visitor.CtScanner;
 
-@ExecutableCheck(reportedProblems = {ProblemType.EMPTY_BLOCK, ProblemType.EMPTY_CATCH})
+@ExecutableCheck(reportedProblems = {ProblemType.EMPTY_BLOCK, ProblemType.EMPTY_CATCH}, requires = {AnalysisRequirement.COMMENTS})
 public class EmptyBlockCheck extends IntegratedCheck {
     private static boolean isEmptyBlock(CtBlock<?> ctBlock) {
         return SpoonUtil.getEffectiveStatements(ctBlock).isEmpty()
@@ -1,8 +1,133 @@
 package de.firemage.autograder.core.compiler;
 
+import de.firemage.autograder.core.errorprone.TempLocation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * The output of a successful compilation, which is kept in memory.
+ * <p>
+ * The jar is only created when it is requested and only written to disk if a path to it is requested with {@link #jar()}.
+ * It will be deleted when the result is closed.
+ */
+public final class CompilationResult implements AutoCloseable {
+    private final Map<String, byte[]> classFiles;
+    private byte[] jarBytes;
+    private final List<CompilationDiagnostic> diagnostics;
+    private final TempLocation tempLocation;
+    private final String name;
+    private Path jar;
+
+    CompilationResult(
+        Map<String, byte[]> classFiles,
+        List<CompilationDiagnostic> diagnostics,
+        TempLocation tempLocation,
+        String name
+    ) {
+        this.classFiles = Map.copyOf(classFiles);
+        this.diagnostics = diagnostics;
+        this.tempLocation = tempLocation;
+        this.name = name;
+    }
+
+    public List<CompilationDiagnostic> diagnostics() {
+        return this.diagnostics;
+    }
+
+    /**
+     * Returns the compiled class files.
+     *
+     * @return the content of the class files by their path in the jar, e.g. {@code de/firemage/Main.class}
+     */
+    public Map<String, byte[]> classFiles() {
+        return this.classFiles;
+    }
+
+    /**
+     * Returns the content of the jar with all compiled classes.
+     *
+     * @return the bytes of the jar, which must not be modified
+     * @throws IOException if the jar could not be created
+     */
+    public synchronized byte[] jarBytes() throws IOException {
+        if (this.jarBytes == null) {
+            this.jarBytes = createJar(this.classFiles);
+        }
+
+        return this.jarBytes;
+    }
+
+    /**
+     * Creates a class loader that loads the compiled classes from memory.
+     *
+     * @param parent the parent of the class loader
+     * @return the new class loader
+     */
+    public ClassLoader createClassLoader(ClassLoader parent) {
+        return new InMemoryClassLoader(this.classFiles, parent);
+    }
+
+    /**
+     * Returns a path to the jar, which is written to disk on the first call.
+     * Prefer {@link #jarBytes()} if the consumer does not need a file.
+     *
+     * @return the path to the jar
+     * @throws IOException if the jar could not be written
+     */
+    public synchronized Path jar() throws IOException {
+        if (this.jar == null) {
+            Path file = this.tempLocation.createTempFile(this.name + ".jar");
+            Files.write(file, this.jarBytes());
+            this.jar = file;
+        }
+
+        return this.jar;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.jar != null) {
+            Files.deleteIfExists(this.jar);
+            this.jar = null;
+        }
+    }
+
+    private static byte[] createJar(Map<String, byte[]> classFiles) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (JarOutputStream jarOut = new JarOutputStream(jar, manifest)) {
+            Set<String> directories = new HashSet<>();
+            // the class files are sorted, so the directories are created before their contents
+            for (Map.Entry<String, byte[]> classFile : new TreeMap<>(classFiles).entrySet()) {
+                String path = classFile.getKey();
+                for (int i = path.indexOf('/'); i != -1; i = path.indexOf('/', i + 1)) {
+                    String directory = path.substring(0, i + 1);
+                    if (directories.add(directory)) {
+                        jarOut.putNextEntry(new JarEntry(directory));
+                        jarOut.closeEntry();
+                    }
+                }
 
-public record CompilationResult(Path jar, List<CompilationDiagnostic> diagnostics) {
+                jarOut.putNextEntry(new JarEntry(path));
+                jarOut.write(classFile.getValue());
+                jarOut.closeEntry();
+            }
+        }
 
+        return jar.toByteArray();
+    }
 }
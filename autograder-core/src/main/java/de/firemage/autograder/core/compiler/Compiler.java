@@ -3,191 +3,188 @@ package de.firemage.autograder.core.compiler;
 import de.firemage.autograder.core.file.CompilationUnit;
 import de.firemage.autograder.core.file.SourceInfo;
 import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.jfr.CompilationEvent;
 
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
-import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.ToolProvider;
-import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
-import java.io.Writer;
 import java.nio.charset.Charset;
-import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
-import java.util.jar.Manifest;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public record Compiler(TempLocation tempLocation, JavaVersion javaVersion) {
     static final Locale COMPILER_LOCALE = Locale.US;
+    private static final List<String> LINT_OPTIONS = List.of("-Xlint:all", "-Xlint:-processing", "-Xlint:-serial");
+    private static final Pattern SUPPRESS_WARNINGS_PATTERN = Pattern.compile("@SuppressWarnings\\((.+?)\\)", Pattern.DOTALL);
 
     public Optional<CompilationResult> compileToJar(SourceInfo input) throws IOException, CompilationFailureException {
-        return this.compileAndIgnoreSuppressWarnings(input);
+        return this.compileToJar(input, true);
+    }
+
+    /**
+     * Compiles the code.
+     *
+     * @param input the code to compile
+     * @param collectWarnings whether all warnings of the compiler should be collected, this is slower,
+     *                        because the code has to be patched and more lints are enabled
+     * @return the compilation result or an empty optional if there is no code
+     * @throws IOException if the code could not be read
+     * @throws CompilationFailureException if the code does not compile
+     */
+    public Optional<CompilationResult> compileToJar(
+        SourceInfo input,
+        boolean collectWarnings
+    ) throws IOException, CompilationFailureException {
+        CompilationEvent event = new CompilationEvent(input);
+        Optional<CompilationResult> result;
+        if (collectWarnings) {
+            result = this.compileAndIgnoreSuppressWarnings(input);
+        } else {
+            result = this.compileWithoutWarnings(input);
+        }
+
+        event.finish(collectWarnings);
+        return result;
+    }
+
+    private Optional<CompilationResult> compileWithoutWarnings(
+        SourceInfo input
+    ) throws IOException, CompilationFailureException {
+        List<CompilationUnit> compilationUnits = input.compilationUnits();
+        if (compilationUnits.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(this.compile(
+            input,
+            compilationUnits.get(0).charset(),
+            compilationUnits.stream().map(CompilationUnit::toJavaFileObject).toList(),
+            List.of()
+        ));
     }
 
     // @SuppressWarnings will result in warnings being ignored (obviously). This is suboptimal, when
     // one wants to lint things that the compiler emits like unchecked casts.
     //
     // This piece of code, tries to patch the @SuppressWarnings annotation to not ignore any warnings.
+    // The patched code is only served to the compiler and keeps all positions intact, so a single
+    // compilation yields both the diagnostics and the jar (the annotation is not retained in the class files).
     private Optional<CompilationResult> compileAndIgnoreSuppressWarnings(
         SourceInfo input
     ) throws IOException, CompilationFailureException {
-        Optional<CompilationResult> compilationResult;
-        try (TempLocation modifiedOutput = this.tempLocation.createTempDirectory(input.getName() + "_modified")) {
-            SourceInfo copiedVersion = input.copyTo(modifiedOutput.toPath());
-
-            List<CompilationUnit> compilationUnits = copiedVersion.compilationUnits();
-            // patch the files:
-            for (CompilationUnit file : compilationUnits) {
-                JavaFileObject javaFileObject = file.toJavaFileObject();
-                String content = file.readString();
-                Pattern pattern = Pattern.compile("@SuppressWarnings\\((.+?)\\)", Pattern.DOTALL);
-                String patched = pattern.matcher(content).replaceAll(matchResult -> {
-                    String group = matchResult.group(1);
-                    String result = "";
-                    int i = 0;
-                    int length = group.length();
-                    for (char c : group.toCharArray()) {
-                        if (i == 0) {
-                            result += '{';
-                        } else if (i == length - 1) {
-                            result += '}';
-                        } else if (c == '\r' || c == '\n') {
-                            result += c;
-                        } else {
-                            result += ' ';
-                        }
-
-                        i++;
-                    }
-
-                    return "@SuppressWarnings(%s)".formatted(result);
-                });
-
-                try (Writer writer = javaFileObject.openWriter()) {
-                    writer.write(patched);
-                }
-            }
-
-            compilationResult = this.compile(copiedVersion);
+        List<CompilationUnit> compilationUnits = input.compilationUnits();
+        if (compilationUnits.isEmpty()) {
+            return Optional.empty();
         }
 
-        List<CompilationDiagnostic> diagnostics = compilationResult.map(CompilationResult::diagnostics).orElse(List.of());
+        // TODO: charset should be for each file individually
+        Charset charset = compilationUnits.get(0).charset();
 
-        // now compile the code again, but this time without the patched version (to prevent problems if the patching
-        // is broken with the source position)
-        return this.compile(input).map(res -> new CompilationResult(res.jar(), diagnostics));
-    }
+        boolean isPatched = false;
+        List<JavaFileObject> patchedFiles = new ArrayList<>(compilationUnits.size());
+        for (CompilationUnit file : compilationUnits) {
+            String content = file.readString();
+            String patched = SUPPRESS_WARNINGS_PATTERN.matcher(content).replaceAll(
+                matchResult -> Matcher.quoteReplacement("@SuppressWarnings(%s)".formatted(blankOut(matchResult.group(1))))
+            );
 
-    private Optional<CompilationResult> compile(SourceInfo input) throws IOException, CompilationFailureException {
+            if (patched.equals(content)) {
+                patchedFiles.add(file.toJavaFileObject());
+            } else {
+                patchedFiles.add(new PatchedFileObject(file.toJavaFileObject(), patched, file.charset()));
+                isPatched = true;
+            }
+        }
 
-        List<CompilationUnit> compilationUnits = input.compilationUnits();
+        try {
+            return Optional.of(this.compile(input, charset, patchedFiles, LINT_OPTIONS));
+        } catch (CompilationFailureException exception) {
+            if (!isPatched) {
+                throw exception;
+            }
 
-        if (compilationUnits.isEmpty()) {
-            return Optional.empty();
+            // the patching might have broken the code (e.g. a ')' in a string of the annotation),
+            // so the original code is compiled to find out whether the code itself is broken
+            return Optional.of(this.compile(
+                input,
+                charset,
+                compilationUnits.stream().map(CompilationUnit::toJavaFileObject).toList(),
+                LINT_OPTIONS
+            ));
         }
+    }
 
-        // TODO: charset should be for each file individually, this requires changing SeparateBinaryFileManager
-        Charset charset = compilationUnits.get(0).charset();
+    // replaces the value of the annotation with an empty array of the same length
+    private static String blankOut(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (i == 0) {
+                result.append('{');
+            } else if (i == length - 1) {
+                result.append('}');
+            } else if (c == '\r' || c == '\n') {
+                result.append(c);
+            } else {
+                result.append(' ');
+            }
+        }
+
+        return result.toString();
+    }
 
+    private CompilationResult compile(
+        SourceInfo input,
+        Charset charset,
+        List<? extends JavaFileObject> files,
+        List<String> lintOptions
+    ) throws IOException, CompilationFailureException {
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
         DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
         StringWriter output = new StringWriter();
 
         List<CompilationDiagnostic> diagnostics = new ArrayList<>();
 
-        Path jar;
-        try (TempLocation compilerOutput = this.tempLocation.createTempDirectory(input.getName() + "_compiled")) {
-            JavaFileManager fileManager = new SeparateBinaryFileManager(
-                compiler.getStandardFileManager(diagnosticCollector, Locale.US, charset),
-                compilerOutput.toPath().toFile(),
-                charset
-            );
+        List<String> options = new ArrayList<>(lintOptions);
+        options.add("--release=" + javaVersion.getVersionString());
 
-            boolean isSuccessful = compiler.getTask(
+        boolean isSuccessful;
+        Map<String, byte[]> classFiles;
+        try (InMemoryFileManager fileManager = new InMemoryFileManager(
+            compiler.getStandardFileManager(diagnosticCollector, Locale.US, charset)
+        )) {
+            isSuccessful = compiler.getTask(
                 output,
                 fileManager,
                 diagnosticCollector,
-                Arrays.asList("-Xlint:all", "-Xlint:-processing", "-Xlint:-serial",
-                    "--release=" + javaVersion.getVersionString()
-                ),
+                options,
                 null,
-                compilationUnits.stream().map(CompilationUnit::toJavaFileObject).toList()
+                files
             ).call();
-
-            output.flush();
-            output.close();
-
-            diagnostics.addAll(diagnosticCollector.getDiagnostics().stream()
-                .filter(diagnostic -> diagnostic.getSource() != null)
-                .map(diagnostic -> new CompilationDiagnostic(diagnostic, input))
-                .toList());
-
-            if (!isSuccessful) {
-                throw new CompilationFailureException(diagnostics);
-            }
-
-            Manifest manifest = new Manifest();
-            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
-            jar = this.tempLocation.createTempFile(input.getName() + ".jar");
-            try (JarOutputStream jarOut = new JarOutputStream(new FileOutputStream(jar.toFile()), manifest)) {
-                addToJar(compilerOutput.toPath().normalize(), compilerOutput.toPath().toFile(), jarOut);
-            }
+            classFiles = fileManager.getClassFiles();
         }
 
-        return Optional.of(new CompilationResult(jar, diagnostics));
-    }
+        output.flush();
+        output.close();
 
+        diagnostics.addAll(diagnosticCollector.getDiagnostics().stream()
+            .filter(diagnostic -> diagnostic.getSource() != null)
+            .map(diagnostic -> new CompilationDiagnostic(diagnostic, input))
+            .toList());
 
-    // https://stackoverflow.com/questions/1281229/how-to-use-jaroutputstream-to-create-a-jar-file/1281295#1281295
-    private static void addToJar(Path root, File source, JarOutputStream target) throws IOException {
-        String relativePath = root.relativize(source.toPath().normalize()).toString().replace("\\", "/");
-        BufferedInputStream in = null;
-        try {
-            if (source.isDirectory()) {
-                if (!relativePath.isEmpty()) {
-                    if (!relativePath.endsWith("/")) {
-                        relativePath += "/";
-                    }
-                    JarEntry entry = new JarEntry(relativePath);
-                    entry.setTime(source.lastModified());
-                    target.putNextEntry(entry);
-                    target.closeEntry();
-                }
-                for (File nestedFile : source.listFiles()) {
-                    addToJar(root, nestedFile, target);
-                }
-            } else {
-                JarEntry entry = new JarEntry(relativePath);
-                entry.setTime(source.lastModified());
-                target.putNextEntry(entry);
-                in = new BufferedInputStream(new FileInputStream(source));
-
-                byte[] buffer = new byte[1024];
-                while (true) {
-                    int count = in.read(buffer);
-                    if (count == -1) {
-                        break;
-                    }
-                    target.write(buffer, 0, count);
-                }
-                target.closeEntry();
-            }
-        } finally {
-            if (in != null) {
-                in.close();
-            }
+        if (!isSuccessful) {
+            throw new CompilationFailureException(diagnostics);
         }
+
+        return new CompilationResult(classFiles, diagnostics, this.tempLocation, input.getName());
     }
 }
@@ -0,0 +1,29 @@
+package de.firemage.autograder.core.compiler;
+
+import java.util.Map;
+
+/**
+ * Loads the classes of a {@link CompilationResult} without writing them to disk.
+ */
+public class InMemoryClassLoader extends ClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Map<String, byte[]> classFiles;
+
+    InMemoryClassLoader(Map<String, byte[]> classFiles, ClassLoader parent) {
+        super(parent);
+        this.classFiles = classFiles;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = this.classFiles.get(name.replace('.', '/') + ".class");
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+
+        return this.defineClass(name, bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,62 @@
+package de.firemage.autograder.core.compiler;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A file manager that keeps the class files written by the compiler in memory.
+ */
+class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    // the class files by their path in a jar, e.g. "de/firemage/Main.class"
+    private final Map<String, byte[]> classFiles;
+
+    InMemoryFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+        this.classFiles = new TreeMap<>();
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+        return new ClassFileObject(className.replace('.', '/') + kind.extension, kind);
+    }
+
+    /**
+     * Returns the class files that have been written so far.
+     *
+     * @return the class files by their path in a jar
+     */
+    Map<String, byte[]> getClassFiles() {
+        synchronized (this.classFiles) {
+            return new TreeMap<>(this.classFiles);
+        }
+    }
+
+    private final class ClassFileObject extends SimpleJavaFileObject {
+        private final String path;
+
+        private ClassFileObject(String path, Kind kind) {
+            super(URI.create("memory:///" + path), kind);
+            this.path = path;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    synchronized (InMemoryFileManager.this.classFiles) {
+                        InMemoryFileManager.this.classFiles.put(ClassFileObject.this.path, this.toByteArray());
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package de.firemage.autograder.core.compiler;
+
+import javax.tools.ForwardingJavaFileObject;
+import javax.tools.JavaFileObject;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+/**
+ * Serves a patched version of the content of a source file to the compiler.
+ * <p>
+ * Everything else, in particular the URI, is forwarded to the original file,
+ * so that the diagnostics of the compiler can be mapped back to it.
+ */
+final class PatchedFileObject extends ForwardingJavaFileObject<JavaFileObject> {
+    private final String content;
+    private final Charset charset;
+
+    PatchedFileObject(JavaFileObject fileObject, String content, Charset charset) {
+        super(fileObject);
+        this.content = content;
+        this.charset = charset;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return this.content;
+    }
+
+    @Override
+    public Reader openReader(boolean ignoreEncodingErrors) {
+        return new StringReader(this.content);
+    }
+
+    @Override
+    public InputStream openInputStream() {
+        return new ByteArrayInputStream(this.content.getBytes(this.charset));
+    }
+}
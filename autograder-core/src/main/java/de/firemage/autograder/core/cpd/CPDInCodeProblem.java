@@ -44,8 +44,8 @@ class CPDInCodeProblem extends ProblemImpl {
     }
 
     private static CodePosition markToPosition(SourceInfo sourceInfo, Mark mark) {
-        // TODO mark.getFilename() is most likely not correct
-        return new CodePosition(sourceInfo, SourcePath.of(mark.getFilename()), mark.getBeginLine(), mark.getEndLine(),
+        SourcePath path = sourceInfo.getCompilationUnit(Path.of(mark.getFilename())).path();
+        return new CodePosition(sourceInfo, path, mark.getBeginLine(), mark.getEndLine(),
             mark.getBeginColumn(), mark.getEndColumn());
     }
 }
@@ -4,41 +4,70 @@ import de.firemage.autograder.core.Problem;
 import de.firemage.autograder.core.file.CompilationUnit;
 import de.firemage.autograder.core.file.UploadedFile;
 import de.firemage.autograder.core.check.general.CopyPasteCheck;
-import net.sourceforge.pmd.cpd.CPD;
-import net.sourceforge.pmd.cpd.CPDConfiguration;
+import de.firemage.autograder.core.jfr.LinterEvent;
 import net.sourceforge.pmd.cpd.JavaLanguage;
+import net.sourceforge.pmd.cpd.Match;
+import net.sourceforge.pmd.cpd.MatchAlgorithm;
 import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokenizer;
+import net.sourceforge.pmd.cpd.Tokens;
 
-import javax.tools.JavaFileObject;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class CPDLinter {
 
     public List<Problem> lint(UploadedFile file, List<CopyPasteCheck> checks) throws IOException {
+        LinterEvent event = new LinterEvent(file.getSource(), "CPD");
         List<Problem> problems = new ArrayList<>();
-        for (CopyPasteCheck check : checks) {
-            CPDConfiguration cpdConfig = new CPDConfiguration();
-            cpdConfig.setFailOnViolation(false);
-            cpdConfig.setLanguage(new JavaLanguage());
-            cpdConfig.setMinimumTileSize(check.getTokenCount());
-
-            // NOTE: CPD is marked for removal, but there is no replacement yet
-            // (CpdAnalysis should be added in the future)
-            CPD cpd = new CPD(cpdConfig);
+        if (checks.isEmpty()) {
+            event.finish(0, 0);
+            return problems;
+        }
 
+        // NOTE: CPD is marked for removal and its replacement (CpdAnalysis) is not part of this PMD version,
+        //       so the tokenizer and the match algorithm that CPD uses internally are used directly.
+        //
+        // The identifiers of the tokens are stored per thread, they must be cleared like CPD does,
+        // otherwise they would accumulate on the threads that are reused for the next submissions.
+        TokenEntry.clearImages();
+        try {
+            Tokenizer tokenizer = new JavaLanguage().getTokenizer();
+            Tokens tokens = new Tokens();
+            Map<String, SourceCode> sources = new TreeMap<>();
             for (CompilationUnit compilationUnit : file.getSource().compilationUnits()) {
-                JavaFileObject javaFileObject = compilationUnit.toJavaFileObject();
-                cpd.add(new SourceCode(new SourceCode.ReaderCodeLoader(
-                    javaFileObject.openReader(true),
-                    compilationUnit.path().toString()
-                )));
+                SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader(
+                    compilationUnit.readString(),
+                    file.getSource().path().resolve(compilationUnit.path().toPath()).toString()
+                ));
+                tokenizer.tokenize(sourceCode, tokens);
+                sources.put(sourceCode.getFileName(), sourceCode);
+            }
+
+            // the matches of the smallest tile size contain the matches of all larger tile sizes,
+            // so the code is only searched once for all checks
+            int minimumTileSize = checks.stream().mapToInt(CopyPasteCheck::getTokenCount).min().getAsInt();
+            MatchAlgorithm matchAlgorithm = new MatchAlgorithm(sources, tokens, minimumTileSize);
+            matchAlgorithm.findMatches();
+
+            List<Match> matches = new ArrayList<>();
+            matchAlgorithm.matches().forEachRemaining(matches::add);
+            for (CopyPasteCheck check : checks) {
+                for (Match match : matches) {
+                    if (match.getTokenCount() >= check.getTokenCount()) {
+                        problems.add(new CPDInCodeProblem(check, match, file.getSource()));
+                    }
+                }
             }
-            cpd.go();
-            cpd.getMatches().forEachRemaining(match -> problems.add(new CPDInCodeProblem(check, match, file.getSource())));
+        } finally {
+            TokenEntry.clearImages();
         }
 
+        event.finish(checks.size(), problems.size());
         return problems;
     }
 }
@@ -14,7 +14,10 @@ import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
 import de.firemage.autograder.core.LinterStatus;
+import de.firemage.autograder.core.file.SourceInfo;
 import de.firemage.autograder.core.integrated.StaticAnalysis;
+import de.firemage.autograder.core.jfr.DockerImageBuildEvent;
+import de.firemage.autograder.core.jfr.TestCaseEvent;
 import de.firemage.autograder.event.Event;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import spoon.reflect.declaration.CtClass;
@@ -55,7 +58,7 @@ public class DockerConsoleRunner implements TestRunner {
         this.tmpPath = tmpPath;
     }
 
-    public List<TestRunResult> runTests(StaticAnalysis analysis, Path jar, Consumer<LinterStatus> statusConsumer)
+    public List<TestRunResult> runTests(StaticAnalysis analysis, SourceInfo source, byte[] jar, Consumer<LinterStatus> statusConsumer)
         throws RunnerException, InterruptedException {
         String mainClass = analysis.getCodeModel().findMain().getParent(CtClass.class).getQualifiedName().replace(".", "/");
 
@@ -77,8 +80,9 @@ public class DockerConsoleRunner implements TestRunner {
                 buildDirectory.resolve("Dockerfile"));
             Files.copy(this.executor, buildDirectory.resolve("executor.jar"));
             Files.copy(this.agent, buildDirectory.resolve("agent.jar"));
-            Files.copy(jar, buildDirectory.resolve("src.jar"));
+            Files.write(buildDirectory.resolve("src.jar"), jar);
 
+            DockerImageBuildEvent buildEvent = new DockerImageBuildEvent(source);
             imageId = dockerClient.buildImageCmd()
                 .withBaseDirectory(buildDirectory.toFile())
                 .withDockerfile(buildDirectory.resolve("Dockerfile").toFile())
@@ -88,6 +92,7 @@ public class DockerConsoleRunner implements TestRunner {
                 .withBuildArg("agent", "agent.jar")
                 .exec(new BuildImageResultCallback())
                 .awaitImageId();
+            buildEvent.finish();
 
             // Clean up the build directory
             try (Stream<Path> walk = Files.walk(buildDirectory)) {
@@ -111,7 +116,7 @@ public class DockerConsoleRunner implements TestRunner {
             ExecutorService service = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
             List<Future<TestRunResult>> futures = new ArrayList<>();
             for (Path testPath : testCases) {
-                futures.add(service.submit(() -> executeTestCase(dockerClient, imageId, testPath, mainClass)));
+                futures.add(service.submit(() -> executeTestCase(dockerClient, imageId, source, testPath, mainClass)));
             }
             List<TestRunResult> results = new ArrayList<>();
             for (var future : futures) {
@@ -134,8 +139,9 @@ public class DockerConsoleRunner implements TestRunner {
         }
     }
 
-    private TestRunResult executeTestCase(DockerClient dockerClient, String imageId, Path testFile, String mainClass)
+    private TestRunResult executeTestCase(DockerClient dockerClient, String imageId, SourceInfo source, Path testFile, String mainClass)
         throws IOException, InterruptedException, DockerRunnerException {
+        TestCaseEvent event = new TestCaseEvent(source, testFile.getFileName().toString());
 
         List<String> interactionLines = Files.readAllLines(testFile);
         String containerId = dockerClient
@@ -194,6 +200,7 @@ public class DockerConsoleRunner implements TestRunner {
                 }
             }
 
+            event.finish(status.name());
             return new TestRunResult(events, status, logs);
         } finally {
             dockerClient.removeContainerCmd(containerId)
@@ -4,7 +4,7 @@ import de.firemage.autograder.core.file.CompilationUnit;
 import de.firemage.autograder.core.file.SourceInfo;
 import de.firemage.autograder.core.compiler.JavaVersion;
 
-import javax.tools.DiagnosticCollector;
+import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.ToolProvider;
@@ -15,6 +15,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,10 +31,11 @@ record ErrorProneCompiler(JavaVersion javaVersion, TempLocation tempLocation,
      * Compiles the given source files and returns the emitted lints.
      *
      * @param input the source code to compile
+     * @param workers the workers in which the compiler is executed
      * @return the emitted lints
      * @throws IOException if the compilation failed
      */
-    List<ErrorProneDiagnostic> compile(SourceInfo input) throws IOException {
+    List<ErrorProneDiagnostic> compile(SourceInfo input, VMWorkerPool workers) throws IOException {
         // error-prone is a java compiler plugin that emits lints while compiling code
         // It requires access to internal APIs that have to be exported through these
         // flags.
@@ -46,16 +48,15 @@ record ErrorProneCompiler(JavaVersion javaVersion, TempLocation tempLocation,
         // The problem is that the JavaCompiler does not support the -J flag and instead
         // inherits the exports from the JVM it is running in. Autograder will obviously
         // not have these flags set, so instead of requiring them (would be annoying for
-        // all contributors and IDE setup), a new JVM is launched with the flags set.
-        VMLauncher vmLauncher = VMLauncher.fromDefault(this.tempLocation);
+        // all contributors and IDE setup), the code is run in a separate JVM with the flags set.
+        //
+        // Starting a JVM and loading error-prone takes seconds, so the JVMs are kept running
+        // between submissions.
 
-        // use explicit type, so it is serializable
-        ArrayList<ErrorProneDiagnostic> diagnostics;
+        // the diagnostics are sent back while the compiler is still running
+        List<ErrorProneDiagnostic> diagnostics = new ArrayList<>();
         try {
-            diagnostics = vmLauncher
-                .runInNewJVM(() -> new ArrayList<>(this.internalCompile(input)))
-                // wait for the compiler to finish
-                .join();
+            workers.<ErrorProneDiagnostic>run(sink -> this.internalCompile(input, sink), diagnostics::add);
         } catch (InterruptedException exception) {
             // not sure how to handle InterruptedException, so just do something and hope it never happens
             Thread.currentThread().interrupt();
@@ -65,7 +66,7 @@ record ErrorProneCompiler(JavaVersion javaVersion, TempLocation tempLocation,
         return diagnostics;
     }
 
-    private List<ErrorProneDiagnostic> internalCompile(SourceInfo input) throws IOException {
+    private void internalCompile(SourceInfo input, Consumer<? super ErrorProneDiagnostic> sink) throws IOException {
         List<CompilationUnit> compilationUnits = input.compilationUnits();
         // TODO: charset should be for each file individually
         Charset charset = compilationUnits.get(0).charset();
@@ -75,15 +76,20 @@ record ErrorProneCompiler(JavaVersion javaVersion, TempLocation tempLocation,
         }
 
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+        DiagnosticListener<JavaFileObject> diagnosticListener = diagnostic -> {
+            // only keep error-prone diagnostics
+            if (diagnostic.getCode().equals("compiler.warn.error.prone")) {
+                sink.accept(ErrorProneDiagnostic.from(diagnostic, input));
+            }
+        };
         StringWriter output = new StringWriter();
 
         boolean isSuccessful;
         try (TempLocation tempLocation = this.tempLocation.createTempDirectory("classes")) {
             isSuccessful = compiler.getTask(
                 output,
-                compiler.getStandardFileManager(diagnosticCollector, Locale.US, charset),
-                diagnosticCollector,
+                compiler.getStandardFileManager(diagnosticListener, Locale.US, charset),
+                diagnosticListener,
                 List.of(
                     "-processorpath",
                     System.getProperty("java.class.path"),
@@ -110,12 +116,5 @@ record ErrorProneCompiler(JavaVersion javaVersion, TempLocation tempLocation,
         if (!isSuccessful) {
             throw new IllegalArgumentException("Failed to compile %s: %s".formatted(input.path(), output));
         }
-
-        return diagnosticCollector.getDiagnostics()
-            .stream()
-            // only keep error-prone diagnostics
-            .filter(diagnostic -> diagnostic.getCode().equals("compiler.warn.error.prone"))
-            .map(diagnostic -> ErrorProneDiagnostic.from(diagnostic, input))
-            .toList();
     }
 }
@@ -4,6 +4,7 @@ import de.firemage.autograder.core.Problem;
 import de.firemage.autograder.core.file.SourceInfo;
 import de.firemage.autograder.core.check.Check;
 import de.firemage.autograder.core.file.UploadedFile;
+import de.firemage.autograder.core.jfr.LinterEvent;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -13,11 +14,20 @@ import java.util.Map;
 import java.util.function.Function;
 
 public class ErrorProneLinter {
+    private final VMWorkerPool workers;
+
+    public ErrorProneLinter(VMWorkerPool workers) {
+        this.workers = workers;
+    }
+
     public List<Problem> lint(UploadedFile file, TempLocation tempLocation, Iterable<? extends ErrorProneCheck> checks) throws IOException {
+        LinterEvent event = new LinterEvent(file.getSource(), "error-prone");
         Map<ErrorProneLint, Function<ErrorProneDiagnostic, Message>> lintsForChecks = new HashMap<>();
         Map<ErrorProneLint, Check> checksForLints = new HashMap<>();
 
+        int checkCount = 0;
         for (ErrorProneCheck check : checks) {
+            checkCount += 1;
             for (var entry : check.subscribedLints().entrySet()) {
                 ErrorProneLint lint = entry.getKey();
 
@@ -40,7 +50,7 @@ public class ErrorProneLinter {
             lints
         );
 
-        List<ErrorProneDiagnostic> diagnostics = compiler.compile(code);
+        List<ErrorProneDiagnostic> diagnostics = compiler.compile(code, this.workers);
 
         Map<ErrorProneLint, List<ErrorProneDiagnostic>> diagnosticMapping = new HashMap<>();
 
@@ -68,6 +78,7 @@ public class ErrorProneLinter {
             }
         }
 
+        event.finish(checkCount, result.size());
         return result;
     }
 }
@@ -0,0 +1,16 @@
+package de.firemage.autograder.core.errorprone;
+
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+/**
+ * Code that is run in another JVM and produces any number of results.
+ * <p>
+ * The results are sent back while the code is still running, see {@link VMLauncher}.
+ *
+ * @param <T> the type of the results
+ */
+@FunctionalInterface
+public interface SerializableProducer<T extends Serializable> extends Serializable {
+    void produce(Consumer<? super T> sink) throws Exception;
+}
@@ -1,30 +1,66 @@
 package de.firemage.autograder.core.errorprone;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.lang.management.ManagementFactory;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * A class that can be used to run code in a new JVM.
+ * <p>
+ * The code is sent to the new JVM over its stdin and the results are sent back over its stdout.
+ * Both directions use length-prefixed frames that contain the java-serialized objects. The results
+ * are sent as soon as they are produced, so the caller can process them while the code is still running.
  *
- * @param jvmArgs      arguments to pass to the new JVM (those are that java -... flags)
- * @param tempLocation a location where the result of the code can be written to (used for inter-process communication)
+ * @param jvmArgs arguments to pass to the new JVM (those are that java -... flags)
  */
-public record VMLauncher(List<String> jvmArgs, TempLocation tempLocation, Optional<String> mainClassName) {
-    public static VMLauncher fromDefault(TempLocation tmpLocation) throws IOException {
+public record VMLauncher(List<String> jvmArgs, Optional<String> mainClassName) {
+    // error-prone requires access to the internals of javac
+    static final List<String> COMPILER_EXPORTS = List.of(
+        "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+        "--add-exports=jdk.compiler/com.sun.source.tree=ALL-UNNAMED"
+    );
+
+    // the messages sent by the new JVM, each one is followed by a frame
+    private static final byte MESSAGE_VALUE = 0;
+    private static final byte MESSAGE_DONE = 1;
+    private static final byte MESSAGE_FAILURE = 2;
+
+    public static VMLauncher fromDefault() {
         Optional<String> mainClassName = Optional.empty();
         {
             String potentialName = System.getProperty("sun.java.command");
@@ -37,26 +73,23 @@ public record VMLauncher(List<String> jvmArgs, TempLocation tempLocation, Option
             }
         }
 
-        return new VMLauncher(
-            Arrays.asList(
-                "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
-                "--add-exports=jdk.compiler/com.sun.source.tree=ALL-UNNAMED"
-            ),
-            tmpLocation.createTempDirectory("vm"),
-            mainClassName
-        );
-    }
-
-    private static String serialize(Serializable serializable) {
+        return new VMLauncher(COMPILER_EXPORTS, mainClassName);
+    }
+
+    private static List<String> javaCommand(List<String> jvmArgs) {
+        ProcessHandle.Info currentProcessInfo = ProcessHandle.current().info();
+        List<String> command = new ArrayList<>();
+        command.add(currentProcessInfo.command().orElseThrow());
+
+        command.add("-classpath");
+        command.add(ManagementFactory.getRuntimeMXBean().getClassPath());
+
+        // inject custom jvm arguments:
+        command.addAll(jvmArgs);
+        return command;
+    }
+
+    private static byte[] toBytes(Serializable serializable) {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         try (ObjectOutput objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
             objectOutputStream.writeObject(serializable);
@@ -64,12 +97,11 @@ public record VMLauncher(List<String> jvmArgs, TempLocation tempLocation, Option
             throw new IllegalArgumentException("Failed to serialize object", e);
         }
 
-        return Base64.getEncoder().encodeToString(byteArrayOutputStream.toByteArray());
+        return byteArrayOutputStream.toByteArray();
     }
 
     @SuppressWarnings("unchecked")
-    private static <T extends Serializable> T deserialize(String string) {
-        byte[] data = Base64.getDecoder().decode(string);
+    private static <T extends Serializable> T fromBytes(byte[] data) {
         try (ObjectInput objectInput = new ObjectInputStream(new ByteArrayInputStream(data))) {
             return (T) objectInput.readObject();
         } catch (ClassNotFoundException | IOException e) {
@@ -77,6 +109,21 @@ public record VMLauncher(List<String> jvmArgs, TempLocation tempLocation, Option
         }
     }
 
+    private static void writeFrame(DataOutputStream output, byte[] data) throws IOException {
+        output.writeInt(data.length);
+        output.write(data);
+    }
+
+    private static byte[] readFrame(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        byte[] data = input.readNBytes(length);
+        if (data.length != length) {
+            throw new EOFException("The frame ended after %d of %d bytes".formatted(data.length, length));
+        }
+
+        return data;
+    }
+
     /**
      * Runs the given lambda in a new JVM.
      * <p>
@@ -86,95 +133,387 @@ public record VMLauncher(List<String> jvmArgs, TempLocation tempLocation, Option
      * @param supplier the code to run in the new JVM
      * @param <T>      the type of the result returned by the lambda
      * @return a handle to the launched code
-     * @throws IOException if it failed to serialize the lambda
+     * @throws IOException if the JVM could not be started
      */
     // https://stackoverflow.com/a/65129876/7766117
     // NOTE: do not weaken the type to Serializable, it will not work!
     public <T extends Serializable> VMHandle<T> runInNewJVM(SerializableSupplier<T> supplier) throws IOException {
-        ProcessHandle.Info currentProcessInfo = ProcessHandle.current().info();
-        List<String> newProcessCommandLine = new ArrayList<>();
-        newProcessCommandLine.add(currentProcessInfo.command().orElseThrow());
-
-        newProcessCommandLine.add("-classpath");
-        newProcessCommandLine.add(ManagementFactory.getRuntimeMXBean().getClassPath());
-
-
-        // the result is written to a temporary file, because I could not find a way to do
-        // inter-process communication (e.g. a channel to send back the result before exiting)
-        Path resultFileLocation = this.tempLocation.createTempFile("result.txt");
+        return this.streamInNewJVM(toProducer(supplier));
+    }
 
-        // inject custom jvm arguments:
-        newProcessCommandLine.addAll(this.jvmArgs);
+    /**
+     * Runs the given lambda in a new JVM. The results of the lambda can be read with {@link VMHandle#next()}
+     * while it is still running.
+     *
+     * @param producer the code to run in the new JVM
+     * @param <T>      the type of the results produced by the lambda
+     * @return a handle to the launched code
+     * @throws IOException if the JVM could not be started
+     */
+    public <T extends Serializable> VMHandle<T> streamInNewJVM(SerializableProducer<T> producer) throws IOException {
+        List<String> newProcessCommandLine = javaCommand(this.jvmArgs);
         // signal that it should launch our target class:
         newProcessCommandLine.add(TargetMain.class.getName());
-        // provide the code that it should execute:
-        newProcessCommandLine.add(serialize(supplier));
-        // the result will be written to the file:
-        newProcessCommandLine.add(resultFileLocation.toString());
 
-        return new VMHandle<>(new ProcessBuilder(newProcessCommandLine), resultFileLocation);
+        return new VMHandle<>(new ProcessBuilder(newProcessCommandLine), producer);
+    }
+
+    static <T extends Serializable> SerializableProducer<T> toProducer(SerializableSupplier<T> supplier) {
+        return sink -> sink.accept(supplier.get());
     }
 
     /**
-     * Represents a reference to the launched VM.
+     * Starts a JVM that runs the lambdas passed to {@link VMWorker#run(SerializableProducer, Consumer)}
+     * one after another, so the JVM has to be started only once for many lambdas.
      *
-     * @param <T> the type of the result returned by the launched lambda.
+     * @param jvmArgs     arguments to pass to the new JVM
+     * @param idleTimeout the worker exits if it did not receive a lambda for this long
+     * @return the started worker
+     * @throws IOException if the process could not be started
      */
-    public static final class VMHandle<T extends Serializable> {
+    public static VMWorker startWorker(List<String> jvmArgs, Duration idleTimeout) throws IOException {
+        List<String> command = javaCommand(jvmArgs);
+        command.add(WorkerMain.class.getName());
+        command.add(String.valueOf(idleTimeout.toMillis()));
+
+        return new VMWorker(new ProcessBuilder(command));
+    }
+
+    /**
+     * The connection to a launched JVM.
+     */
+    private static final class Connection {
         private final Process process;
-        private final Path resultFileLocation;
-        private T value;
+        private final DataOutputStream input;
+        private final DataInputStream output;
+        // false while the results of a lambda might still be unread
+        private boolean isIdle;
 
-        private VMHandle(
-            ProcessBuilder processBuilder,
-            Path resultFileLocation
-        ) throws IOException {
+        private Connection(ProcessBuilder processBuilder) throws IOException {
             this.process = processBuilder
-                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
                 .redirectError(ProcessBuilder.Redirect.INHERIT)
                 .start();
 
-            this.value = null;
-            this.resultFileLocation = resultFileLocation;
+            this.input = new DataOutputStream(new BufferedOutputStream(this.process.getOutputStream()));
+            this.output = new DataInputStream(new BufferedInputStream(this.process.getInputStream()));
+            this.isIdle = true;
+        }
+
+        private void send(SerializableProducer<?> producer) throws IOException {
+            this.isIdle = false;
+            writeFrame(this.input, toBytes(producer));
+            this.input.flush();
+        }
+
+        /**
+         * Reads the next result of the running lambda.
+         *
+         * @return the result or an empty optional if the lambda has finished
+         * @throws IOException if the JVM has exited before the lambda finished
+         * @throws IllegalStateException if the lambda threw an exception
+         */
+        private <T extends Serializable> Optional<T> receive() throws IOException {
+            byte type = this.output.readByte();
+            byte[] frame = readFrame(this.output);
+            if (type == MESSAGE_DONE || type == MESSAGE_FAILURE) {
+                this.isIdle = true;
+            }
+
+            return switch (type) {
+                case MESSAGE_VALUE -> Optional.of(fromBytes(frame));
+                case MESSAGE_DONE -> Optional.empty();
+                case MESSAGE_FAILURE -> throw new IllegalStateException(
+                    "The lambda failed in the other JVM: " + new String(frame, StandardCharsets.UTF_8)
+                );
+                default -> throw new IOException("Unknown message type " + type);
+            };
+        }
+    }
+
+    /**
+     * Represents a reference to the launched VM.
+     *
+     * @param <T> the type of the result returned by the launched lambda.
+     */
+    public static final class VMHandle<T extends Serializable> {
+        private final Connection connection;
+        private boolean isDone;
+
+        private VMHandle(ProcessBuilder processBuilder, SerializableProducer<T> producer) throws IOException {
+            this.connection = new Connection(processBuilder);
+            this.connection.send(producer);
+            // the JVM runs exactly one lambda
+            this.connection.input.close();
+            this.isDone = false;
         }
 
-        private T getValue() throws IOException {
-            if (this.value == null) {
-                this.value = deserialize(Files.readString(this.resultFileLocation));
+        /**
+         * Waits for the next result of the lambda.
+         *
+         * @return the result or an empty optional if the lambda has finished
+         * @throws IOException if the JVM has exited before the lambda finished
+         * @throws IllegalStateException if the lambda threw an exception
+         */
+        public Optional<T> next() throws IOException {
+            if (this.isDone) {
+                return Optional.empty();
             }
 
-            return this.value;
+            Optional<T> result;
+            try {
+                result = this.connection.receive();
+            } catch (IllegalStateException exception) {
+                this.isDone = true;
+                throw exception;
+            }
+
+            this.isDone = result.isEmpty();
+            return result;
         }
 
+        /**
+         * Waits for the lambda to finish and returns the last result it produced,
+         * which is the result of lambdas launched with {@link #runInNewJVM(SerializableSupplier)}.
+         *
+         * @return the last result
+         * @throws InterruptedException if the thread was interrupted while waiting for the JVM to exit
+         * @throws IOException if the JVM has exited before the lambda finished
+         */
         public T join() throws InterruptedException, IOException {
-            int exitCode = this.process.waitFor();
+            T value = null;
+            for (Optional<T> result = this.next(); result.isPresent(); result = this.next()) {
+                value = result.get();
+            }
+
+            int exitCode = this.connection.process.waitFor();
             if (exitCode != 0) {
                 throw new IllegalStateException("Process exited with non-zero exit code: " + exitCode);
             }
 
-            return this.getValue();
+            if (value == null) {
+                throw new IllegalStateException("The lambda did not produce a result");
+            }
+
+            return value;
+        }
+    }
+
+    /**
+     * A JVM that has been started with {@link #startWorker(List, Duration)}.
+     * <p>
+     * The worker is not thread-safe, only one lambda can be run at a time.
+     */
+    public static final class VMWorker implements AutoCloseable {
+        private final Connection connection;
+        private int completedJobs;
+
+        private VMWorker(ProcessBuilder processBuilder) throws IOException {
+            this.connection = new Connection(processBuilder);
+            this.completedJobs = 0;
+        }
+
+        /**
+         * Runs the given lambda in the worker and passes its results to the consumer as they arrive.
+         *
+         * @param producer the code to run in the worker
+         * @param consumer receives the results of the lambda
+         * @param <T>      the type of the results produced by the lambda
+         * @throws IOException if the worker has crashed or exited
+         * @throws IllegalStateException if the lambda threw an exception, the worker can still be used
+         * @throws RuntimeException if the consumer threw an exception, see {@link #isIdle()}
+         */
+        public <T extends Serializable> void run(SerializableProducer<T> producer, Consumer<? super T> consumer) throws IOException {
+            this.connection.send(producer);
+
+            try {
+                Optional<T> result;
+                while ((result = this.connection.receive()).isPresent()) {
+                    consumer.accept(result.get());
+                }
+            } finally {
+                this.completedJobs += 1;
+            }
+        }
+
+        /**
+         * Runs the given lambda in the worker and waits for its result.
+         *
+         * @param supplier the code to run in the worker
+         * @param <T>      the type of the result returned by the lambda
+         * @return the result of the lambda
+         * @throws IOException if the worker has crashed or exited
+         * @throws IllegalStateException if the lambda threw an exception, the worker can still be used
+         */
+        public <T extends Serializable> T run(SerializableSupplier<T> supplier) throws IOException {
+            List<T> results = new ArrayList<>(1);
+            this.run(toProducer(supplier), results::add);
+            return results.get(0);
+        }
+
+        public int completedJobs() {
+            return this.completedJobs;
+        }
+
+        /**
+         * Checks if the worker has sent all results of the last lambda, so it can run the next one.
+         * <p>
+         * This is not the case if the consumer or the deserialization of a result failed. The remaining
+         * results are still in the pipe and the next lambda would read them as its own.
+         *
+         * @return true if the worker can run another lambda, false otherwise
+         */
+        public boolean isIdle() {
+            return this.connection.isIdle;
+        }
+
+        public boolean isAlive() {
+            return this.connection.process.isAlive();
+        }
+
+        @Override
+        public void close() {
+            Process process = this.connection.process;
+            try {
+                // the worker exits when it reaches the end of its input
+                this.connection.input.close();
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException exception) {
+                process.destroyForcibly();
+            } catch (InterruptedException exception) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The end of the connection in the launched JVM.
+     */
+    private static final class ChildConnection {
+        private final DataInputStream input;
+        private final DataOutputStream output;
+
+        private ChildConnection() {
+            // stdout is used to send back the results, anything printed by the lambdas would corrupt them
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+            System.setOut(System.err);
+            this.input = new DataInputStream(new BufferedInputStream(System.in));
+        }
+
+        /**
+         * Reads the next lambda.
+         *
+         * @return the lambda or an empty optional if the parent has closed the connection
+         * @throws IOException if the lambda could not be read
+         */
+        private Optional<SerializableProducer<? extends Serializable>> receive() throws IOException {
+            try {
+                return Optional.of(fromBytes(readFrame(this.input)));
+            } catch (EOFException exception) {
+                return Optional.empty();
+            }
+        }
+
+        private synchronized void send(byte type, byte[] frame) throws IOException {
+            this.output.writeByte(type);
+            writeFrame(this.output, frame);
+            // flushed immediately, so the parent can process the result while the lambda continues
+            this.output.flush();
+        }
+
+        /**
+         * Runs the lambda and sends its results.
+         *
+         * @param producer the lambda
+         * @return true if the lambda completed normally
+         * @throws IOException if the results could not be sent
+         */
+        private boolean run(SerializableProducer<? extends Serializable> producer) throws IOException {
+            try {
+                producer.produce(value -> {
+                    Objects.requireNonNull(value, "the lambda must not produce null");
+                    try {
+                        this.send(MESSAGE_VALUE, toBytes(value));
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            } catch (Throwable throwable) {
+                // errors like a StackOverflowError are reported as well, otherwise they would kill the JVM silently
+                StringWriter stackTrace = new StringWriter();
+                throwable.printStackTrace(new PrintWriter(stackTrace));
+                this.send(MESSAGE_FAILURE, stackTrace.toString().getBytes(StandardCharsets.UTF_8));
+                return false;
+            }
+
+            this.send(MESSAGE_DONE, new byte[0]);
+            return true;
         }
     }
 
     private static final class TargetMain {
-        private static void run(String[] args) {
-            SerializableSupplier<? extends Serializable> supplier = deserialize(args[0]);
+        private static boolean run() throws IOException {
+            ChildConnection connection = new ChildConnection();
+            SerializableProducer<? extends Serializable> producer = connection.receive()
+                .orElseThrow(() -> new EOFException("No lambda has been sent"));
+
+            return connection.run(producer);
+        }
 
+        public static void main(String[] args) {
             try {
-                Serializable value = supplier.get();
-                Files.writeString(Path.of(args[1]), serialize(value));
-            } catch (Exception e) {
-                throw new IllegalStateException("Failed to serialize supplier result", e);
+                System.exit(run() ? 0 : 1);
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+
+                System.exit(1);
+            }
+        }
+    }
+
+    private static final class WorkerMain {
+        private static void run(long idleTimeout) throws IOException {
+            ChildConnection connection = new ChildConnection();
+
+            AtomicLong lastActivity = new AtomicLong(System.nanoTime());
+            AtomicBoolean isBusy = new AtomicBoolean(false);
+            Thread watchdog = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(Math.max(idleTimeout / 10, 10));
+                        if (!isBusy.get() && System.nanoTime() - lastActivity.get() > idleTimeout * 1_000_000L) {
+                            // the parent detects the exit and starts a new worker if needed
+                            System.exit(0);
+                        }
+                    }
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Autograder-Worker-Watchdog");
+            watchdog.setDaemon(true);
+            watchdog.start();
+
+            Optional<SerializableProducer<? extends Serializable>> producer;
+            // the loop ends when the parent has closed the connection
+            while ((producer = connection.receive()).isPresent()) {
+                isBusy.set(true);
+                connection.run(producer.get());
+                lastActivity.set(System.nanoTime());
+                isBusy.set(false);
             }
         }
 
         public static void main(String[] args) {
             try {
-                run(args);
+                run(Long.parseLong(args[0]));
 
                 System.exit(0);
-            } catch (Exception exception) {
-                exception.printStackTrace();
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
 
                 System.exit(1);
             }
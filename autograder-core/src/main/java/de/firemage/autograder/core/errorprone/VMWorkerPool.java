@@ -0,0 +1,226 @@
+package de.firemage.autograder.core.errorprone;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A pool of long-lived JVMs that run lambdas, see {@link VMLauncher#startWorker(List, Duration)}.
+ * <p>
+ * Workers are started on demand and reused until they have completed a number of jobs, which limits
+ * the memory they can accumulate. A worker that has crashed is replaced by a new one.
+ * <p>
+ * Idle workers only exit on their own after {@link #IDLE_TIMEOUT}, so a pool should be closed when it is
+ * no longer needed. The shared pools of {@link #forErrorProne(int, int)} are closed by
+ * {@link #closeErrorPronePools()} or, at the latest, when the JVM shuts down.
+ */
+public final class VMWorkerPool implements AutoCloseable {
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+    // the workers are independent of the linter, so linters with the same settings share them
+    private static final Map<Settings, VMWorkerPool> ERROR_PRONE_POOLS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(VMWorkerPool::closeErrorPronePools, "Autograder-Worker-Shutdown"));
+    }
+
+    private final List<String> jvmArgs;
+    private final int maxJobsPerWorker;
+    private final Semaphore permits;
+    private final Deque<VMLauncher.VMWorker> idleWorkers;
+    // guarded by idleWorkers
+    private boolean isClosed;
+
+    private record Settings(int size, int maxJobsPerWorker) {
+    }
+
+    /**
+     * Creates a new pool, the workers are only started when they are needed.
+     *
+     * @param jvmArgs          arguments to pass to the JVMs of the workers
+     * @param size             the maximum number of workers that run at the same time
+     * @param maxJobsPerWorker the number of jobs after which a worker is replaced
+     */
+    public VMWorkerPool(List<String> jvmArgs, int size, int maxJobsPerWorker) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The pool must have at least one worker");
+        }
+
+        if (maxJobsPerWorker < 1) {
+            throw new IllegalArgumentException("A worker must be able to run at least one job");
+        }
+
+        this.jvmArgs = List.copyOf(jvmArgs);
+        this.maxJobsPerWorker = maxJobsPerWorker;
+        this.permits = new Semaphore(size, true);
+        this.idleWorkers = new ArrayDeque<>();
+        this.isClosed = false;
+    }
+
+    /**
+     * Returns the pool of workers that can run error-prone, which is shared by all linters with the same settings.
+     *
+     * @param size             the maximum number of workers that run at the same time
+     * @param maxJobsPerWorker the number of jobs after which a worker is replaced
+     * @return the pool
+     */
+    public static VMWorkerPool forErrorProne(int size, int maxJobsPerWorker) {
+        return ERROR_PRONE_POOLS.computeIfAbsent(
+            new Settings(size, maxJobsPerWorker),
+            settings -> new VMWorkerPool(VMLauncher.COMPILER_EXPORTS, settings.size(), settings.maxJobsPerWorker())
+        );
+    }
+
+    /**
+     * Closes the shared pools of {@link #forErrorProne(int, int)}, so that their idle workers exit.
+     * A later call of {@link #forErrorProne(int, int)} creates a new pool.
+     */
+    public static void closeErrorPronePools() {
+        for (Settings settings : List.copyOf(ERROR_PRONE_POOLS.keySet())) {
+            VMWorkerPool pool = ERROR_PRONE_POOLS.remove(settings);
+            if (pool != null) {
+                pool.close();
+            }
+        }
+    }
+
+    /**
+     * Runs the lambda in one of the workers. If all workers are busy, this waits for one of them.
+     *
+     * @param supplier the code to run in the worker
+     * @param <T>      the type of the result returned by the lambda
+     * @return the result of the lambda
+     * @throws IOException if the worker crashed while running the lambda
+     * @throws InterruptedException if the thread has been interrupted while waiting for a worker
+     * @throws IllegalStateException if the pool has been closed
+     */
+    public <T extends Serializable> T run(SerializableSupplier<T> supplier) throws IOException, InterruptedException {
+        List<T> results = new ArrayList<>(1);
+        this.run(VMLauncher.toProducer(supplier), results::add);
+        return results.get(0);
+    }
+
+    /**
+     * Runs the lambda in one of the workers and passes its results to the consumer as they arrive.
+     * If all workers are busy, this waits for one of them.
+     *
+     * @param producer the code to run in the worker
+     * @param consumer receives the results of the lambda
+     * @param <T>      the type of the results produced by the lambda
+     * @throws IOException if the worker crashed while running the lambda
+     * @throws InterruptedException if the thread has been interrupted while waiting for a worker
+     * @throws IllegalStateException if the pool has been closed
+     */
+    public <T extends Serializable> void run(
+        SerializableProducer<T> producer,
+        Consumer<? super T> consumer
+    ) throws IOException, InterruptedException {
+        this.permits.acquire();
+        try {
+            synchronized (this.idleWorkers) {
+                if (this.isClosed) {
+                    throw new IllegalStateException("The pool has been closed");
+                }
+            }
+
+            VMLauncher.VMWorker worker = this.pollIdleWorker();
+            if (worker != null) {
+                AtomicBoolean hasReceived = new AtomicBoolean(false);
+                try {
+                    this.runAndRelease(worker, producer, value -> {
+                        hasReceived.set(true);
+                        consumer.accept(value);
+                    });
+                    return;
+                } catch (IOException exception) {
+                    // the worker might have exited because it was idle for too long, so the lambda
+                    // is tried again with a fresh worker (unless the consumer has already seen results)
+                    if (hasReceived.get()) {
+                        throw exception;
+                    }
+                }
+            }
+
+            this.runAndRelease(VMLauncher.startWorker(this.jvmArgs, IDLE_TIMEOUT), producer, consumer);
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    private <T extends Serializable> void runAndRelease(
+        VMLauncher.VMWorker worker,
+        SerializableProducer<T> producer,
+        Consumer<? super T> consumer
+    ) throws IOException {
+        try {
+            worker.run(producer, consumer);
+        } catch (IOException exception) {
+            worker.close();
+            throw exception;
+        } catch (RuntimeException exception) {
+            // the lambda or the consumer failed, the worker is only reused if it has sent all of its results
+            this.release(worker);
+            throw exception;
+        }
+
+        this.release(worker);
+    }
+
+    private VMLauncher.VMWorker pollIdleWorker() {
+        synchronized (this.idleWorkers) {
+            VMLauncher.VMWorker worker;
+            while ((worker = this.idleWorkers.pollFirst()) != null) {
+                if (worker.isAlive()) {
+                    return worker;
+                }
+
+                worker.close();
+            }
+
+            return null;
+        }
+    }
+
+    private void release(VMLauncher.VMWorker worker) {
+        // the unread results of a worker that is not idle would be read by the next lambda
+        if (!worker.isIdle() || worker.completedJobs() >= this.maxJobsPerWorker) {
+            worker.close();
+            return;
+        }
+
+        synchronized (this.idleWorkers) {
+            if (!this.isClosed) {
+                // the most recently used worker is reused first, so the others can time out
+                this.idleWorkers.addFirst(worker);
+                return;
+            }
+        }
+
+        worker.close();
+    }
+
+    /**
+     * Stops the idle workers. The workers that are running a lambda are stopped as soon as it has completed.
+     */
+    @Override
+    public void close() {
+        List<VMLauncher.VMWorker> workers;
+        synchronized (this.idleWorkers) {
+            this.isClosed = true;
+            workers = List.copyOf(this.idleWorkers);
+            this.idleWorkers.clear();
+        }
+
+        for (VMLauncher.VMWorker worker : workers) {
+            worker.close();
+        }
+    }
+}
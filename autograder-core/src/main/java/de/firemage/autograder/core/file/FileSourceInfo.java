@@ -53,6 +53,18 @@ public class FileSourceInfo implements SourceInfo, Serializable {
         }
     }
 
+    /**
+     * Creates a source for all java files in the given directory and its subdirectories.
+     *
+     * @param path the root directory of the source code
+     * @param version the java version of the source code
+     * @return the source
+     * @throws IOException if the directory could not be read
+     */
+    public static SourceInfo fromPath(Path path, JavaVersion version) throws IOException {
+        return new FileSourceInfo(path, version);
+    }
+
     private SerializableCharset detectCharset(File file, SourcePath sourcePath) {
         try {
             return new SerializableCharset(Optional.ofNullable(UniversalDetector.detectCharset(file))
@@ -55,6 +55,15 @@ public final class SourcePath implements Comparable<SourcePath>, Serializable {
         return this.segments.get(this.segments.size() - 1);
     }
 
+    /**
+     * The names of the folders and the file of this path, from the root to the file.
+     *
+     * @return the segments, which can be passed to {@link #of(List)} to restore the path
+     */
+    public List<String> segments() {
+        return List.copyOf(this.segments);
+    }
+
     /**
      * Makes this path relative to the given root path. This path must start with the root path.
      * <p>
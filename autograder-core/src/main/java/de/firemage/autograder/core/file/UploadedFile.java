@@ -1,7 +1,9 @@
 package de.firemage.autograder.core.file;
 
+import de.firemage.autograder.core.AnalysisPlan;
 import de.firemage.autograder.core.CodeModel;
 import de.firemage.autograder.core.LinterStatus;
+import de.firemage.autograder.core.check.AnalysisRequirement;
 import de.firemage.autograder.core.compiler.CompilationFailureException;
 import de.firemage.autograder.core.compiler.CompilationResult;
 import de.firemage.autograder.core.compiler.Compiler;
@@ -44,15 +46,45 @@ public class UploadedFile implements AutoCloseable {
         TempLocation tmpLocation,
         Consumer<? super LinterStatus> statusConsumer,
         ClassLoader classLoader
+    ) throws IOException, CompilationFailureException {
+        return UploadedFile.build(source, tmpLocation, statusConsumer, classLoader, AnalysisPlan.full());
+    }
+
+    /**
+     * Compiles the code and prepares the model, skipping everything that is not needed by the plan.
+     *
+     * @param source the code
+     * @param tmpLocation where temporary files are created
+     * @param statusConsumer receives the progress
+     * @param classLoader the class loader for the compiled code or null to load it from the compilation result
+     * @param plan decides which parts of the analysis are needed
+     * @return the file or null if there is no code
+     * @throws IOException if the code could not be read
+     * @throws CompilationFailureException if the code does not compile
+     */
+    public static UploadedFile build(
+        SourceInfo source,
+        TempLocation tmpLocation,
+        Consumer<? super LinterStatus> statusConsumer,
+        ClassLoader classLoader,
+        AnalysisPlan plan
     ) throws IOException, CompilationFailureException {
         Compiler compiler = new Compiler(tmpLocation, source.getVersion());
         statusConsumer.accept(LinterStatus.COMPILING);
-        Optional<CompilationResult> compilationResult = compiler.compileToJar(source);
+        Optional<CompilationResult> compilationResult = compiler.compileToJar(
+            source,
+            plan.requires(AnalysisRequirement.COMPILER_DIAGNOSTICS)
+        );
         if (compilationResult.isEmpty()) {
             return null;
         }
 
-        var model = CodeModel.buildFor(source, compilationResult.get().jar(), classLoader);
+        var model = CodeModel.buildFor(
+            source,
+            compilationResult.get(),
+            classLoader,
+            plan.requires(AnalysisRequirement.COMMENTS)
+        );
 
         return new UploadedFile(model, source, compilationResult.get());
     }
@@ -72,6 +104,6 @@ public class UploadedFile implements AutoCloseable {
     @Override
     public void close() throws IOException {
         this.model.close();
-        this.compilationResult.jar().toFile().delete();
+        this.compilationResult.close();
     }
 }
@@ -0,0 +1,126 @@
+package de.firemage.autograder.core.integrated;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * The time budget of the integrated checks of a submission.
+ * <p>
+ * Checks can not be stopped from the outside, so the budget is enforced cooperatively: while a check is running,
+ * the deadline of the check is stored for the thread that runs it, and the model index and the traversal helpers
+ * call {@link #checkpoint()}, which abandons the check by throwing a {@link CheckTimeoutException}
+ * once the deadline has passed. A check that does not use any of them can not be abandoned.
+ * <p>
+ * The deadline of a check is the earlier of its own budget and the deadline of the submission.
+ */
+public final class CheckTimeout {
+    private static final CheckTimeout UNLIMITED = new CheckTimeout(null, null);
+    private static final ThreadLocal<Deadline> CURRENT_DEADLINE = new ThreadLocal<>();
+
+    private final Duration checkBudget;
+    private final Deadline submissionDeadline;
+
+    private static final class Deadline {
+        private final long nanoTime;
+        // set once the deadline has passed, so later checkpoints do not have to read the clock
+        private boolean isExpired;
+
+        private Deadline(long nanoTime) {
+            this.nanoTime = nanoTime;
+        }
+
+        private static Deadline after(Duration duration) {
+            return new Deadline(System.nanoTime() + duration.toNanos());
+        }
+
+        private boolean hasExpired() {
+            if (!this.isExpired && System.nanoTime() - this.nanoTime >= 0) {
+                this.isExpired = true;
+            }
+
+            return this.isExpired;
+        }
+
+        private static Deadline earlier(Deadline first, Deadline second) {
+            if (first == null) {
+                return second;
+            } else if (second == null || first.nanoTime - second.nanoTime <= 0) {
+                return first;
+            }
+
+            return second;
+        }
+    }
+
+    private CheckTimeout(Duration checkBudget, Deadline submissionDeadline) {
+        this.checkBudget = checkBudget;
+        this.submissionDeadline = submissionDeadline;
+    }
+
+    public static CheckTimeout unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Creates the budget for a submission, the time of the submission starts now.
+     *
+     * @param checkBudget the time a single check may take or null if it is unlimited
+     * @param submissionBudget the time all checks of the submission may take together or null if it is unlimited
+     * @return the budget
+     */
+    public static CheckTimeout start(Duration checkBudget, Duration submissionBudget) {
+        if (checkBudget == null && submissionBudget == null) {
+            return UNLIMITED;
+        }
+
+        return new CheckTimeout(checkBudget, submissionBudget == null ? null : Deadline.after(submissionBudget));
+    }
+
+    /**
+     * Returns whether the time of the submission is over, in which case no further checks should be started.
+     *
+     * @return true if the deadline of the submission has passed
+     */
+    public boolean isSubmissionExpired() {
+        return this.submissionDeadline != null && this.submissionDeadline.hasExpired();
+    }
+
+    /**
+     * Runs a check on the current thread with the deadline of the check.
+     *
+     * @param check runs the check
+     * @param <T> the result of the check
+     * @return the result of the check
+     * @throws CheckTimeoutException if the check has been abandoned, because it exceeded its budget
+     */
+    <T> T run(Supplier<T> check) throws CheckTimeoutException {
+        Deadline deadline = Deadline.earlier(
+            this.checkBudget == null ? null : Deadline.after(this.checkBudget),
+            this.submissionDeadline
+        );
+        if (deadline == null) {
+            return check.get();
+        }
+
+        // the submission deadline is shared by multiple threads, so the check gets its own copy
+        CURRENT_DEADLINE.set(new Deadline(deadline.nanoTime));
+        try {
+            return check.get();
+        } finally {
+            CURRENT_DEADLINE.remove();
+        }
+    }
+
+    /**
+     * Abandons the check that runs on the current thread, if it has exceeded its budget.
+     * This does nothing if there is no check running on the current thread.
+     *
+     * @throws CheckTimeoutException if the deadline of the running check has passed
+     */
+    public static void checkpoint() throws CheckTimeoutException {
+        Deadline deadline = CURRENT_DEADLINE.get();
+        if (deadline != null && deadline.hasExpired()) {
+            throw new CheckTimeoutException();
+        }
+    }
+}
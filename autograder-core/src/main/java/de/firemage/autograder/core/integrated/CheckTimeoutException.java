@@ -0,0 +1,13 @@
+package de.firemage.autograder.core.integrated;
+
+/**
+ * Thrown by {@link CheckTimeout#checkpoint()} to abandon a check that has exceeded its time budget.
+ * <p>
+ * Checks must not catch this exception.
+ */
+public final class CheckTimeoutException extends RuntimeException {
+    CheckTimeoutException() {
+        // the stack trace is not needed to abandon the check
+        super("The check has exceeded its time budget", null, false, false);
+    }
+}
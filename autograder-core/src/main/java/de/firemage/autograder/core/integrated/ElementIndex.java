@@ -0,0 +1,133 @@
+package de.firemage.autograder.core.integrated;
+
+import spoon.processing.ProcessInterruption;
+import spoon.processing.Processor;
+import spoon.processing.TraversalStrategy;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All elements of a model in the orders in which spoon would visit them, grouped by their type.
+ * <p>
+ * The model is traversed once when the index is created, after that, the elements of a type
+ * can be queried without traversing the model again. The model must not be changed after
+ * the index has been created.
+ */
+final class ElementIndex {
+    private final Factory factory;
+    private final Map<TraversalStrategy, List<CtElement>> elements;
+    private final Map<Key, List<? extends CtElement>> elementsByType;
+
+    private record Key(Class<?> type, TraversalStrategy strategy) {
+    }
+
+    private ElementIndex(Factory factory, List<CtElement> preOrder, List<CtElement> postOrder) {
+        this.factory = factory;
+        this.elements = new EnumMap<>(Map.of(
+            TraversalStrategy.PRE_ORDER, Collections.unmodifiableList(preOrder),
+            TraversalStrategy.POST_ORDER, Collections.unmodifiableList(postOrder)
+        ));
+        this.elementsByType = new ConcurrentHashMap<>();
+    }
+
+    static ElementIndex of(Factory factory, CtModel model) {
+        List<CtElement> preOrder = new ArrayList<>();
+        List<CtElement> postOrder = new ArrayList<>();
+        CtScanner scanner = new CtScanner() {
+            @Override
+            public void scan(CtElement element) {
+                if (element == null) {
+                    return;
+                }
+
+                preOrder.add(element);
+                super.scan(element);
+                postOrder.add(element);
+            }
+        };
+
+        // this is the same traversal as in model.processWith
+        for (CtElement module : model.getAllModules()) {
+            scanner.scan(module);
+        }
+
+        return new ElementIndex(factory, preOrder, postOrder);
+    }
+
+    /**
+     * Returns all elements that are instances of the given type in pre-order.
+     *
+     * @param type the type of the elements
+     * @param <E>  the type of the elements
+     * @return an unmodifiable list of the elements
+     */
+    <E extends CtElement> List<E> getElements(Class<E> type) {
+        return this.getElements(type, TraversalStrategy.PRE_ORDER);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends CtElement> List<E> getElements(Class<E> type, TraversalStrategy strategy) {
+        List<CtElement> allElements = this.elements.get(strategy);
+        if (type == CtElement.class) {
+            return (List<E>) allElements;
+        }
+
+        return (List<E>) this.elementsByType.computeIfAbsent(
+            new Key(type, strategy),
+            key -> allElements.stream().filter(type::isInstance).map(type::cast).toList()
+        );
+    }
+
+    /**
+     * Runs the processor on the indexed elements, like {@link CtModel#processWith(Processor)} would.
+     *
+     * @param processor the processor to run
+     * @param <E>       the type of the elements that the processor processes
+     * @return false if the processor can not be run on the index, in which case nothing has been done
+     */
+    @SuppressWarnings("unchecked")
+    <E extends CtElement> boolean processWith(Processor<E> processor) {
+        Set<Class<? extends CtElement>> types = processor.getProcessedElementTypes();
+        if (types == null || !this.elements.containsKey(processor.getTraversalStrategy())) {
+            return false;
+        }
+
+        processor.setFactory(this.factory);
+        try {
+            processor.init();
+            processor.process();
+
+            // spoon only processes elements that are instances of all processed types
+            List<Class<? extends CtElement>> otherTypes = new ArrayList<>(types);
+            Class<? extends CtElement> firstType = otherTypes.isEmpty() ? CtElement.class : otherTypes.remove(0);
+
+            for (CtElement element : this.getElements(firstType, processor.getTraversalStrategy())) {
+                if (this.factory.getEnvironment().isProcessingStopped()) {
+                    break;
+                }
+
+                CheckTimeout.checkpoint();
+
+                if (otherTypes.stream().allMatch(type -> type.isInstance(element))
+                    && processor.isToBeProcessed((E) element)) {
+                    processor.process((E) element);
+                }
+            }
+        } catch (ProcessInterruption ignored) {
+            // the processor has requested to stop
+        }
+        processor.processingDone();
+
+        return true;
+    }
+}
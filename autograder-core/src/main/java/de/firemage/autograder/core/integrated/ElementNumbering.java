@@ -0,0 +1,166 @@
+package de.firemage.autograder.core.integrated;
+
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtModule;
+import spoon.reflect.visitor.CtScanner;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Numbers the elements of a model in pre-order and remembers for each element the range of numbers
+ * of its subtree. With this, one can check in constant time if an element is inside another element.
+ * <p>
+ * Only elements whose parents are the same as the elements that contain them in the traversal are numbered,
+ * for those the subtree of the traversal and the chain of {@link CtElement#getParent()} agree.
+ * Elements that are not numbered (e.g. elements that are not part of the model) are not supported,
+ * the callers have to fall back to the slower methods for those.
+ * <p>
+ * The numbering is created once per model and stored in the metadata of the unnamed module.
+ * The model must not be changed after the numbering has been created.
+ */
+final class ElementNumbering {
+    private static final String METADATA_KEY = ElementNumbering.class.getName();
+
+    private final Map<CtElement, Interval> intervals;
+
+    /**
+     * The numbers of an element and its subtree.
+     *
+     * @param start the number of the element
+     * @param end the largest number in the subtree of the element
+     */
+    private record Interval(int start, int end) {
+        boolean contains(Interval other) {
+            return this.start <= other.start && other.start <= this.end;
+        }
+    }
+
+    private ElementNumbering(Map<CtElement, Interval> intervals) {
+        this.intervals = intervals;
+    }
+
+    static ElementNumbering of(CtModel model) {
+        CtModule root = model.getUnnamedModule();
+        synchronized (root) {
+            if (root.getMetadata(METADATA_KEY) instanceof ElementNumbering numbering) {
+                return numbering;
+            }
+
+            ElementNumbering numbering = new ElementNumbering(computeIntervals(model));
+            root.putMetadata(METADATA_KEY, numbering);
+            return numbering;
+        }
+    }
+
+    private static Map<CtElement, Interval> computeIntervals(CtModel model) {
+        Map<CtElement, Interval> intervals = new IdentityHashMap<>();
+        // elements that are visited more than once can not be assigned a single interval
+        Set<CtElement> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<CtElement> duplicates = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        CtScanner scanner = new CtScanner() {
+            // the element whose children are currently scanned, null for the modules
+            private CtElement scanParent = null;
+            private boolean isScanParentNumbered = true;
+            private int counter = 0;
+
+            @Override
+            public void scan(CtElement element) {
+                if (element == null) {
+                    return;
+                }
+
+                if (!visited.add(element)) {
+                    duplicates.add(element);
+                }
+
+                boolean isNumbered = this.scanParent == null || (this.isScanParentNumbered
+                    && element.isParentInitialized()
+                    && element.getParent() == this.scanParent);
+
+                CtElement previousParent = this.scanParent;
+                boolean wasPreviousParentNumbered = this.isScanParentNumbered;
+                int start = this.counter++;
+
+                this.scanParent = element;
+                this.isScanParentNumbered = isNumbered;
+                super.scan(element);
+                this.scanParent = previousParent;
+                this.isScanParentNumbered = wasPreviousParentNumbered;
+
+                if (isNumbered) {
+                    intervals.put(element, new Interval(start, this.counter - 1));
+                }
+            }
+        };
+
+        for (CtElement module : model.getAllModules()) {
+            scanner.scan(module);
+        }
+
+        duplicates.forEach(intervals::remove);
+        return intervals;
+    }
+
+    /**
+     * Checks if the element is numbered, only then it can be used in the queries.
+     *
+     * @param ctElement the element to check
+     * @return true if the element is numbered
+     */
+    boolean isNumbered(CtElement ctElement) {
+        return this.intervals.containsKey(ctElement);
+    }
+
+    /**
+     * Checks if {@code ctElement} is {@code parent} or a descendant of {@code parent}.
+     *
+     * @param ctElement a numbered element
+     * @param parent a numbered element
+     * @return true if the element is in the subtree of the parent
+     */
+    boolean isInside(CtElement ctElement, CtElement parent) {
+        return this.intervals.get(parent).contains(this.intervals.get(ctElement));
+    }
+
+    /**
+     * Finds the closest element in the chain of parents of {@code ctElement}, starting with the element itself,
+     * that contains all others and is none of them.
+     *
+     * @param ctElement a numbered element
+     * @param others numbered elements
+     * @return the closest common parent or null if no numbered parent of the element contains all others
+     */
+    CtElement findCommonParent(CtElement ctElement, Collection<? extends CtElement> others) {
+        // the subtrees are contiguous ranges of numbers, so the parent has to contain the range that spans all others
+        int minStart = Integer.MAX_VALUE;
+        int maxEnd = Integer.MIN_VALUE;
+        for (CtElement other : others) {
+            Interval interval = this.intervals.get(other);
+            minStart = Math.min(minStart, interval.start());
+            maxEnd = Math.max(maxEnd, interval.end());
+        }
+
+        CtElement candidate = ctElement;
+        while (this.isNumbered(candidate)) {
+            Interval interval = this.intervals.get(candidate);
+            // an element that starts at minStart would be one of the others
+            if (interval.start() < minStart && maxEnd <= interval.end()) {
+                return candidate;
+            }
+
+            if (!candidate.isParentInitialized()) {
+                break;
+            }
+
+            candidate = candidate.getParent();
+        }
+
+        return null;
+    }
+}
@@ -1,6 +1,8 @@
 package de.firemage.autograder.core.integrated;
 
+import de.firemage.autograder.core.LinterMetrics;
 import de.firemage.autograder.core.LinterStatus;
+import de.firemage.autograder.core.Problem;
 import de.firemage.autograder.core.check.Check;
 import de.firemage.autograder.core.dynamic.DockerConsoleRunner;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
@@ -8,15 +10,12 @@ import de.firemage.autograder.core.dynamic.RunnerException;
 import de.firemage.autograder.core.dynamic.TestRunResult;
 import de.firemage.autograder.core.file.UploadedFile;
 import de.firemage.autograder.core.integrated.graph.GraphAnalysis;
+import de.firemage.autograder.core.jfr.CheckEvent;
 import de.firemage.autograder.core.parallel.AnalysisScheduler;
+import de.firemage.autograder.core.parallel.ProblemReporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import spoon.reflect.CtModel;
-import spoon.reflect.code.CtLiteral;
 import spoon.reflect.declaration.CtElement;
-import spoon.reflect.reference.CtPackageReference;
-import spoon.reflect.reference.CtTypeReference;
-import spoon.reflect.visitor.filter.TypeFilter;
 
 import java.io.IOException;
 import java.net.URI;
@@ -26,10 +25,8 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.Consumer;
 
 public class IntegratedAnalysis {
@@ -40,19 +37,31 @@ public class IntegratedAnalysis {
     private final UploadedFile file;
     private final Path tmpPath;
     private final Map<String, FileSystem> openFileSystems = new HashMap<>();
-    private final CtModel originalModel;
     private final StaticAnalysis staticAnalysis;
+    private final ModelIntegrityGuard integrityGuard;
     private final GraphAnalysis graphAnalysis;
+    private final int problemLimit;
     private DynamicAnalysis dynamicAnalysis;
 
     public IntegratedAnalysis(UploadedFile file, Path tmpPath) {
+        this(file, tmpPath, -1);
+    }
+
+    /**
+     * Creates a new analysis.
+     *
+     * @param file the submission
+     * @param tmpPath the directory for temporary files
+     * @param problemLimit how many problems of each type a check reports on its own, the remaining ones are merged
+     *                     by the linter; -1 if there is no limit
+     */
+    public IntegratedAnalysis(UploadedFile file, Path tmpPath, int problemLimit) {
         this.file = file;
         this.tmpPath = tmpPath;
-
-        StaticAnalysis temporaryAnalysis = new StaticAnalysis(file.getModel(), file.getCompilationResult());
-        this.originalModel = temporaryAnalysis.getModel();
+        this.problemLimit = problemLimit;
 
         this.staticAnalysis = new StaticAnalysis(file.getModel(), file.getCompilationResult());
+        this.integrityGuard = new ModelIntegrityGuard(() -> this.staticAnalysis.getElements(CtElement.class));
         //this.graphAnalysis = new GraphAnalysis(this.staticAnalysis.getCodeModel());
         this.graphAnalysis = null; //TODO
         this.dynamicAnalysis = new DynamicAnalysis(List.of());
@@ -65,7 +74,7 @@ public class IntegratedAnalysis {
             DockerConsoleRunner runner = new DockerConsoleRunner(toPath(this.getClass().getResource("/executor.jar")),
                 toPath(this.getClass().getResource("/agent.jar")), tests, this.tmpPath);
             List<TestRunResult> results =
-                runner.runTests(this.staticAnalysis, this.file.getCompilationResult().jar(), statusConsumer);
+                runner.runTests(this.staticAnalysis, this.file.getSource(), this.file.getCompilationResult().jarBytes(), statusConsumer);
             this.dynamicAnalysis = new DynamicAnalysis(results);
         } catch (URISyntaxException | IOException e) {
             throw new RunnerException(e);
@@ -110,25 +119,70 @@ public class IntegratedAnalysis {
         openFileSystems.clear();
     }
 
-    public void lint(List<IntegratedCheck> checks, Consumer<LinterStatus> statusConsumer, AnalysisScheduler scheduler) {
+    public void lint(
+        List<IntegratedCheck> checks,
+        Consumer<LinterStatus> statusConsumer,
+        AnalysisScheduler scheduler,
+        LinterMetrics metrics,
+        CheckTimeout timeout
+    ) {
         statusConsumer.accept(LinterStatus.BUILDING_CODE_MODEL);
+        LinterMetrics.Sample sample = LinterMetrics.startSample();
         this.staticAnalysis.getCodeModel().ensureModelBuild();
+        // the index of the elements is used by most checks, so it is built as part of the model
+        metrics.setModelSize(this.staticAnalysis.getElements(CtElement.class).size());
+        // spoon changes the model to answer whether a method is overriding another one, so the answers
+        // are computed before the checks run concurrently (see OverridesIndex)
+        OverridesIndex.of(this.staticAnalysis.getModel());
+        metrics.recordStage(LinterMetrics.Stage.MODEL_BUILD, sample);
+        // spoon reports every change of the model to the guard, which is cheap as long as the checks do not change it
+        this.staticAnalysis.getFactory().getEnvironment().setModelChangeListener(this.integrityGuard);
 
         statusConsumer.accept(LinterStatus.RUNNING_INTEGRATED_CHECKS);
 
-        scheduler.submitTask((s, reporter) -> {
-            for (IntegratedCheck check : checks) {
-                long beforeTime = System.nanoTime();
-                reporter.reportProblems(check.run(
-                    this.staticAnalysis,
-                    this.dynamicAnalysis,
-                    this.file.getSource()
-                ));
-                long afterTime = System.nanoTime();
-                logger.info("Completed check " + check.getClass().getSimpleName() + " in " + ((afterTime - beforeTime) / 1_000_000 + "ms"));
-                this.assertModelIntegrity(check);
-            }
-        });
+        // The model is shared between all checks and is only read by them, so every check can run
+        // in its own task. The problems of a check are collected by the thread that runs it.
+        for (IntegratedCheck check : checks) {
+            scheduler.submitTask((s, reporter) -> this.runCheck(check, reporter, metrics, timeout));
+        }
+    }
+
+    private void runCheck(IntegratedCheck check, ProblemReporter reporter, LinterMetrics metrics, CheckTimeout timeout) {
+        LinterMetrics.Sample sample = LinterMetrics.startSample();
+        if (timeout.isSubmissionExpired()) {
+            metrics.recordTimedOutCheck(check, sample);
+            logger.warn("Skipped check " + check.getClass().getSimpleName() + ", because the time of the submission is over");
+            return;
+        }
+
+        CheckEvent event = new CheckEvent(this.file.getSource(), check);
+        List<Problem> problems;
+        this.integrityGuard.enterCheck(check);
+        try {
+            problems = timeout.run(() -> check.run(
+                this.staticAnalysis,
+                this.dynamicAnalysis,
+                this.file.getSource(),
+                this.problemLimit
+            ));
+        } catch (CheckTimeoutException exception) {
+            // the problems that the check has found so far are incomplete
+            problems = null;
+        } finally {
+            this.integrityGuard.leaveCheck();
+        }
+
+        if (problems == null) {
+            LinterMetrics.Measurement measurement = metrics.recordTimedOutCheck(check, sample);
+            logger.warn("Abandoned check " + check.getClass().getSimpleName() + " after " + (measurement.wallTimeNanos() / 1_000_000 + "ms") + ", because it exceeded its time budget");
+            this.assertModelIntegrity(check);
+            return;
+        }
+        event.finish(problems.size());
+        LinterMetrics.Measurement measurement = metrics.recordCheck(check, sample, problems.size());
+        reporter.reportProblems(problems);
+        logger.info("Completed check " + check.getClass().getSimpleName() + " in " + (measurement.wallTimeNanos() / 1_000_000 + "ms"));
+        this.assertModelIntegrity(check);
     }
 
     /**
@@ -137,72 +191,41 @@ public class IntegratedAnalysis {
      * @param currentCheck the check that was just executed
      */
     private void assertModelIntegrity(Check currentCheck) {
-        CtModel linterModel = this.staticAnalysis.getModel();
-
         String checkName = currentCheck.getClass().getSimpleName();
 
-        if ((ENSURE_NO_MODEL_CHANGES || SpoonUtil.isInJunitTest()) && !isModelEqualTo(originalModel, linterModel)) {
-            throw new IllegalStateException("The model was changed by the check: %s".formatted(checkName));
-        }
-
-        if (ENSURE_NO_ORPHANS || SpoonUtil.isInJunitTest()) {
-            List<CtElement> orphans = findOrphans(linterModel);
-            if (!orphans.isEmpty()) {
-                throw new IllegalStateException("The check %s introduced new elements into the model without parents (did you forget to clone before passing the element to a setter?): %s".formatted(
-                    checkName,
-                    orphans.stream().map(element -> "%s(\"%s\")".formatted(element.getClass().getSimpleName(), element)).toList()
-                ));
+        List<ModelIntegrityGuard.Change> changes = this.integrityGuard.getChanges(currentCheck);
+        if (!changes.isEmpty()) {
+            String message = "The model was changed by the check %s: %s".formatted(checkName, changes);
+            if (ENSURE_NO_MODEL_CHANGES || SpoonUtil.isInJunitTest()) {
+                throw new IllegalStateException(message);
             }
-        }
-    }
 
-    private Set<CtElement> cachedOriginalElements = null;
-    private boolean isModelEqualTo(CtModel original, CtModel toCheck) {
-        if (this.cachedOriginalElements == null) {
-            this.cachedOriginalElements = new HashSet<>(original.getElements(new TypeFilter<>(CtElement.class)));
+            logger.error(message);
         }
 
-        // TODO: this is very slow (~8s with a large model)
-
-        // long beforeTime = System.nanoTime();
-        Set<CtElement> originalElements = this.cachedOriginalElements;
-
-        List<CtElement> changedElements = toCheck.getElements(element -> !originalElements.contains(element));
-
-        /*System.out.println("Finished comparing models (%dms). Changed elements: %s".formatted(
-            ((System.nanoTime() - beforeTime) / 1_000_000), changedElements.size())
-        );*/
-
-        return changedElements.isEmpty();
-    }
-
-    private static boolean isOrphan(CtElement ctElement) {
-        // I think those are created by the shadow model? => ignored
-        if (ctElement instanceof CtPackageReference ctPackage && ctPackage.getQualifiedName().startsWith("java.")) {
-            return false;
-        }
+        // the other checks run at the same time, so they might have seen the model before it was restored
+        List<ModelIntegrityGuard.Change> revertedChanges = this.integrityGuard.getRevertedChanges(currentCheck);
+        if (!revertedChanges.isEmpty()) {
+            String message = "The model was changed temporarily by the check %s, while other checks were running: %s".formatted(checkName, revertedChanges);
+            if (ENSURE_NO_MODEL_CHANGES || SpoonUtil.isInJunitTest()) {
+                throw new IllegalStateException(message);
+            }
 
-        // TODO: these should not be ignored
-        if (ctElement instanceof CtTypeReference<?> || ctElement instanceof CtLiteral<?> || ctElement instanceof CtPackageReference) {
-            return false;
+            logger.error(message);
         }
 
-        // TODO: could be replaced with SpoonUtil.parents()
-        CtElement root = ctElement.getFactory().getModel().getUnnamedModule();
-        if (root == ctElement) {
-            return false;
-        }
+        List<CtElement> orphans = this.integrityGuard.getOrphans(currentCheck);
+        if (!orphans.isEmpty()) {
+            String message = "The check %s introduced new elements into the model without parents (did you forget to clone before passing the element to a setter?): %s".formatted(
+                checkName,
+                orphans.stream().map(element -> "%s(\"%s\")".formatted(element.getClass().getSimpleName(), element)).toList()
+            );
+            if (ENSURE_NO_ORPHANS || SpoonUtil.isInJunitTest()) {
+                throw new IllegalStateException(message);
+            }
 
-        CtElement parent = ctElement.getParent();
-        while (parent.isParentInitialized() && parent != root) {
-            parent = parent.getParent();
+            logger.error(message);
         }
-
-        return parent != root;
-    }
-
-    private static List<CtElement> findOrphans(CtModel ctModel) {
-        return ctModel.getElements(IntegratedAnalysis::isOrphan);
     }
 
     public StaticAnalysis getStaticAnalysis() {
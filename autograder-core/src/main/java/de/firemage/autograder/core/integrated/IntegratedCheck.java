@@ -9,30 +9,147 @@ import de.firemage.autograder.core.Translatable;
 import de.firemage.autograder.core.check.Check;
 import de.firemage.autograder.core.dynamic.DynamicAnalysis;
 import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.SourcePath;
+import spoon.reflect.cu.SourcePosition;
 import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public abstract class IntegratedCheck implements Check {
-    private final List<Problem> problems = new ArrayList<>();
+    // A new list is created for every run and the check instance is only ever run by a single task at a time,
+    // so the problems are confined to the thread that is currently running the check.
+    private List<Problem> problems = new ArrayList<>();
     private SourceInfo sourceInfo;
+    private int problemLimit = -1;
+    private Map<ProblemType, ReportedProblems> reportedProblems = new EnumMap<>(ProblemType.class);
+
+    /**
+     * The problems of one type that have been reported in the current run.
+     */
+    private static final class ReportedProblems {
+        private int count;
+        // the explanation of the first problem that will be merged, it is shared by all problems after it
+        private Translatable mergedExplanation;
+        private Map<File, SourcePath> paths;
+
+        private Translatable count(Translatable explanation, int limit) {
+            this.count += 1;
+            if (this.count == limit) {
+                this.mergedExplanation = explanation;
+            }
+
+            return explanation;
+        }
+    }
 
     protected IntegratedCheck() {}
 
+    /**
+     * Returns whether another problem of the given type would be reported on its own.
+     * <p>
+     * The linter reports only a limited number of problems of each type per check, the remaining ones are
+     * merged into a single problem that lists their positions (see {@link Check#merge(List, int)}).
+     * Once this returns false, the explanation of further problems is never shown, so a check can skip
+     * the work that is only needed for the explanation. The problems should still be added,
+     * so their positions are listed.
+     *
+     * @param problemType the type of the next problem
+     * @return true if the next problem of the type will be shown with its own explanation
+     */
+    protected boolean isDistinctProblemUseful(ProblemType problemType) {
+        ReportedProblems reported = this.reportedProblems.get(problemType);
+        return this.problemLimit < 1 || reported == null || reported.count < this.problemLimit;
+    }
+
     protected void addLocalProblem(CtElement element, Translatable explanation, ProblemType problemType) {
-        this.problems.add(new IntegratedInCodeProblem(this, element, explanation, problemType, this.sourceInfo));
+        this.addLocalProblem(element, () -> explanation, problemType);
+    }
+
+    /**
+     * Adds a problem, whose explanation is only created if it will be shown.
+     * <p>
+     * After the limit of problems has been reached, only the position of the element is recorded,
+     * see {@link #isDistinctProblemUseful(ProblemType)}.
+     *
+     * @param element the element that has the problem
+     * @param explanation creates the explanation of the problem
+     * @param problemType the type of the problem
+     */
+    protected void addLocalProblem(CtElement element, Supplier<? extends Translatable> explanation, ProblemType problemType) {
+        ReportedProblems reported = this.reportedProblems.computeIfAbsent(problemType, key -> new ReportedProblems());
+        if (this.problemLimit < 1 || reported.count < this.problemLimit) {
+            Translatable translatable = reported.count(explanation.get(), this.problemLimit);
+            this.problems.add(new IntegratedInCodeProblem(this, element, translatable, problemType, this.sourceInfo));
+            return;
+        }
+
+        reported.count += 1;
+        this.problems.add(new ProblemImpl(this, this.resolveMergedPosition(reported, element), reported.mergedExplanation, problemType) {});
     }
 
     protected void addLocalProblem(CodePosition position, Translatable explanation, ProblemType problemType) {
+        this.reportedProblems.computeIfAbsent(problemType, key -> new ReportedProblems()).count(explanation, this.problemLimit);
         this.problems.add(new ProblemImpl(this, position, explanation, problemType) {});
     }
 
+    // Resolving the file of a position is the expensive part of a position, and many problems
+    // that will be merged are in the same file, so the files are cached.
+    private CodePosition resolveMergedPosition(ReportedProblems reported, CtElement element) {
+        SourcePosition position = element.getPosition();
+        File file = position.getFile();
+        if (file == null || element instanceof CtType<?>) {
+            return IntegratedInCodeProblem.mapSourceToCode(element, this.sourceInfo);
+        }
+
+        if (reported.paths == null) {
+            reported.paths = new HashMap<>();
+        }
+
+        SourcePath path = reported.paths.computeIfAbsent(file, key -> this.sourceInfo.getCompilationUnit(key.toPath()).path());
+        return new CodePosition(
+            this.sourceInfo,
+            path,
+            position.getLine(),
+            position.getEndLine(),
+            position.getColumn(),
+            position.getEndColumn()
+        );
+    }
+
     public List<Problem> run(StaticAnalysis staticAnalysis, DynamicAnalysis dynamicAnalysis, SourceInfo sourceInfo) {
-        this.problems.clear();
+        return this.run(staticAnalysis, dynamicAnalysis, sourceInfo, -1);
+    }
+
+    /**
+     * Runs the check.
+     *
+     * @param staticAnalysis the static analysis of the code
+     * @param dynamicAnalysis the dynamic analysis of the code
+     * @param sourceInfo the code
+     * @param problemLimit how many problems of each type are reported on their own, the remaining ones are merged;
+     *                     -1 if all problems are reported
+     * @return the problems found by the check
+     */
+    public List<Problem> run(
+        StaticAnalysis staticAnalysis,
+        DynamicAnalysis dynamicAnalysis,
+        SourceInfo sourceInfo,
+        int problemLimit
+    ) {
+        List<Problem> result = new ArrayList<>();
+        this.problems = result;
         this.sourceInfo = sourceInfo;
+        this.problemLimit = problemLimit;
+        this.reportedProblems = new EnumMap<>(ProblemType.class);
         this.check(staticAnalysis, dynamicAnalysis);
-        return this.problems;
+        return result;
     }
 
     protected abstract void check(StaticAnalysis staticAnalysis, DynamicAnalysis dynamicAnalysis);
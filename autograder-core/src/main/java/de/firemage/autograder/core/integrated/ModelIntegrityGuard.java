@@ -0,0 +1,313 @@
+package de.firemage.autograder.core.integrated;
+
+import de.firemage.autograder.core.check.Check;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.path.CtRole;
+import spoon.reflect.reference.CtPackageReference;
+import spoon.reflect.reference.CtReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.support.modelobs.EmptyModelChangeListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Records the changes that checks make to the model, while they are running.
+ * <p>
+ * The guard is registered as the model change listener of the spoon environment, so spoon notifies it
+ * about every change. A change is attributed to the check that runs on the thread that made it.
+ * Changes made outside of checks (e.g. by spoon itself) and changes to elements that are not part of the
+ * original model (e.g. clones or newly created elements) are ignored.
+ * <p>
+ * Some methods of spoon change the model temporarily (e.g. {@link spoon.reflect.declaration.CtMethod#getTopDefinitions()}
+ * removes the body of a method and adds it back afterward). Therefore, the value of each changed property
+ * is remembered before its first change and a change is only reported if the property has a different value
+ * when the changes of the check are requested. The reverted changes are reported separately, because
+ * other checks that run at the same time might have seen them.
+ * <p>
+ * If nothing changes, the guard does not do anything. The elements of the original model are only
+ * collected when the first change happens.
+ */
+final class ModelIntegrityGuard extends EmptyModelChangeListener {
+    private final Supplier<? extends Collection<CtElement>> modelElements;
+    private final ThreadLocal<Check> currentCheck;
+    // the changes of a check are only recorded by the thread that runs the check
+    private final Map<Check, Map<CtElement, Map<CtRole, Object>>> originalValues;
+    private final Map<Check, List<CtElement>> orphans;
+    private volatile Set<CtElement> originalElements;
+
+    /**
+     * A change of an element of the original model.
+     *
+     * @param element the element that has been changed
+     * @param role the property of the element that has been changed
+     */
+    record Change(CtElement element, CtRole role) {
+        @Override
+        public String toString() {
+            return "%s of %s(\"%s\")".formatted(this.role, this.element.getClass().getSimpleName(), this.element);
+        }
+    }
+
+    /**
+     * Creates a new guard.
+     *
+     * @param modelElements supplies all elements of the model, this is only called once,
+     *                      before the first change is recorded
+     */
+    ModelIntegrityGuard(Supplier<? extends Collection<CtElement>> modelElements) {
+        this.modelElements = modelElements;
+        this.currentCheck = new ThreadLocal<>();
+        this.originalValues = new ConcurrentHashMap<>();
+        this.orphans = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Attributes all changes made by the current thread to the given check, until {@link #leaveCheck()} is called.
+     *
+     * @param check the check that is run on the current thread
+     */
+    void enterCheck(Check check) {
+        this.currentCheck.set(check);
+    }
+
+    void leaveCheck() {
+        this.currentCheck.remove();
+    }
+
+    /**
+     * Returns the changes that the check made to the original model and did not revert.
+     *
+     * @param check the check
+     * @return the changes, empty if there were none
+     */
+    List<Change> getChanges(Check check) {
+        return this.getChanges(check, false);
+    }
+
+    /**
+     * Returns the changes that the check made to the original model and reverted afterward.
+     *
+     * @param check the check
+     * @return the changes, empty if there were none
+     */
+    List<Change> getRevertedChanges(Check check) {
+        return this.getChanges(check, true);
+    }
+
+    private List<Change> getChanges(Check check, boolean isReverted) {
+        Map<CtElement, Map<CtRole, Object>> values = this.originalValues.get(check);
+        if (values == null) {
+            return List.of();
+        }
+
+        List<Change> result = new ArrayList<>();
+        for (Map.Entry<CtElement, Map<CtRole, Object>> entry : values.entrySet()) {
+            CtElement ctElement = entry.getKey();
+            for (Map.Entry<CtRole, Object> value : entry.getValue().entrySet()) {
+                if (isSameValue(value.getValue(), ctElement.getValueByRole(value.getKey())) == isReverted) {
+                    result.add(new Change(ctElement, value.getKey()));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the elements of the original model that the check has moved to a parent that is not part of the model.
+     * Those elements are still in the model, but their parents do no longer lead to the root of the model.
+     *
+     * @param check the check
+     * @return the orphans, empty if there were none
+     */
+    List<CtElement> getOrphans(Check check) {
+        return this.orphans.getOrDefault(check, List.of())
+            .stream()
+            .filter(ctElement -> ctElement.isParentInitialized() && !this.isOriginal(ctElement.getParent()))
+            .toList();
+    }
+
+    private boolean isOriginal(CtElement ctElement) {
+        Set<CtElement> elements = this.originalElements;
+        if (elements == null) {
+            synchronized (this) {
+                if (this.originalElements == null) {
+                    Set<CtElement> result = Collections.newSetFromMap(new IdentityHashMap<>());
+                    result.addAll(this.modelElements.get());
+                    this.originalElements = result;
+                }
+
+                elements = this.originalElements;
+            }
+        }
+
+        return elements.contains(ctElement);
+    }
+
+    private static boolean isIgnoredOrphan(CtElement ctElement) {
+        // spoon itself attaches references and literals of the model to new elements
+        // TODO: these should not be ignored
+        return ctElement instanceof CtTypeReference<?> || ctElement instanceof CtLiteral<?> || ctElement instanceof CtPackageReference;
+    }
+
+    // collections are copied, because spoon changes them in place
+    private static Object snapshot(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        } else if (value instanceof Map<?, ?> map) {
+            return new LinkedHashMap<>(map);
+        }
+
+        return value;
+    }
+
+    // elements are compared by identity, because the equals method of spoon compares their structure
+    private static boolean isSameValue(Object original, Object current) {
+        if (original instanceof List<?> list && current instanceof Collection<?> collection) {
+            if (list.size() != collection.size()) {
+                return false;
+            }
+
+            Iterator<?> iterator = collection.iterator();
+            for (Object element : list) {
+                if (!isSameValue(element, iterator.next())) {
+                    return false;
+                }
+            }
+
+            return true;
+        } else if (original instanceof Map<?, ?> originalMap && current instanceof Map<?, ?> map) {
+            return originalMap.size() == map.size() && originalMap.entrySet()
+                .stream()
+                .allMatch(entry -> map.containsKey(entry.getKey()) && isSameValue(entry.getValue(), map.get(entry.getKey())));
+        } else if (original instanceof CtElement) {
+            return original == current;
+        }
+
+        return Objects.equals(original, current);
+    }
+
+    private void onChange(CtElement currentElement, CtRole role, Object newValue) {
+        Check check = this.currentCheck.get();
+        if (check == null) {
+            return;
+        }
+
+        // the pretty printer (used by toString) changes the implicitness of references to decide
+        // which ones are printed qualified
+        if (role == CtRole.IS_IMPLICIT && currentElement instanceof CtReference) {
+            return;
+        }
+
+        if (this.isOriginal(currentElement)) {
+            Map<CtRole, Object> values = this.originalValues.computeIfAbsent(check, key -> new IdentityHashMap<>())
+                .computeIfAbsent(currentElement, key -> new EnumMap<>(CtRole.class));
+            // spoon notifies the listener before the property is changed, so this is the value before the first change
+            if (!values.containsKey(role)) {
+                values.put(role, snapshot(currentElement.getValueByRole(role)));
+            }
+        } else if (newValue instanceof CtElement ctElement && !isIgnoredOrphan(ctElement) && this.isOriginal(ctElement)) {
+            // the element becomes a child of an element that is not part of the model
+            this.orphans.computeIfAbsent(check, key -> new ArrayList<>()).add(ctElement);
+        }
+    }
+
+    @Override
+    public void onObjectUpdate(CtElement currentElement, CtRole role, CtElement newValue, CtElement oldValue) {
+        this.onChange(currentElement, role, newValue);
+    }
+
+    @Override
+    public void onObjectUpdate(CtElement currentElement, CtRole role, Object newValue, Object oldValue) {
+        this.onChange(currentElement, role, newValue);
+    }
+
+    @Override
+    public void onObjectDelete(CtElement currentElement, CtRole role, CtElement oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public void onListAdd(CtElement currentElement, CtRole role, List field, CtElement newValue) {
+        this.onChange(currentElement, role, newValue);
+    }
+
+    @Override
+    public void onListAdd(CtElement currentElement, CtRole role, List field, int index, CtElement newValue) {
+        this.onChange(currentElement, role, newValue);
+    }
+
+    @Override
+    public void onListDelete(CtElement currentElement, CtRole role, List field, Collection<? extends CtElement> oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public void onListDelete(CtElement currentElement, CtRole role, List field, int index, CtElement oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public void onListDeleteAll(CtElement currentElement, CtRole role, List field, List oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public <K, V> void onMapAdd(CtElement currentElement, CtRole role, Map<K, V> field, K key, CtElement newValue) {
+        this.onChange(currentElement, role, newValue);
+    }
+
+    @Override
+    public <K, V> void onMapDelete(CtElement currentElement, CtRole role, Map<K, V> field, K key, CtElement oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public <K, V> void onMapDeleteAll(CtElement currentElement, CtRole role, Map<K, V> field, Map<K, V> oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public void onSetAdd(CtElement currentElement, CtRole role, Set field, CtElement newValue) {
+        this.onChange(currentElement, role, newValue);
+    }
+
+    @Override
+    public <T extends Enum> void onSetAdd(CtElement currentElement, CtRole role, Set field, T newValue) {
+        this.onChange(currentElement, role, newValue);
+    }
+
+    @Override
+    public void onSetDelete(CtElement currentElement, CtRole role, Set field, CtElement oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public void onSetDelete(CtElement currentElement, CtRole role, Set field, Collection<ModifierKind> oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public void onSetDelete(CtElement currentElement, CtRole role, Set field, ModifierKind oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+
+    @Override
+    public void onSetDeleteAll(CtElement currentElement, CtRole role, Set field, Set oldValue) {
+        this.onChange(currentElement, role, null);
+    }
+}
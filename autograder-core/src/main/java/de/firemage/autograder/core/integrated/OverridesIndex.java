@@ -0,0 +1,110 @@
+package de.firemage.autograder.core.integrated;
+
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtModule;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The override relations between the methods of a model.
+ * <p>
+ * Spoon answers {@link CtMethod#isOverriding(CtMethod)} and {@link CtMethod#getTopDefinitions()} by changing
+ * the model: {@code TypeAdaptor#isOverriding} removes the body of the overridden method and adds it back afterward.
+ * A check that reads the body at the same time would see a method without a body. The index asks spoon once
+ * for every method of the model and answers the queries afterward without changing the model.
+ * <p>
+ * The index is created once per model and stored in the metadata of the unnamed module.
+ * It must be created before the checks run concurrently, because creating it changes the model.
+ * The model must not be changed after the index has been created.
+ */
+final class OverridesIndex {
+    private static final String METADATA_KEY = OverridesIndex.class.getName();
+
+    // the methods of the model, mapped to the methods of the model that they override
+    private final Map<CtMethod<?>, Set<CtMethod<?>>> overriddenMethods;
+    private final Set<CtMethod<?>> overridingMethods;
+
+    private OverridesIndex(Map<CtMethod<?>, Set<CtMethod<?>>> overriddenMethods, Set<CtMethod<?>> overridingMethods) {
+        this.overriddenMethods = overriddenMethods;
+        this.overridingMethods = overridingMethods;
+    }
+
+    static OverridesIndex of(CtModel model) {
+        CtModule root = model.getUnnamedModule();
+        synchronized (root) {
+            if (root.getMetadata(METADATA_KEY) instanceof OverridesIndex index) {
+                return index;
+            }
+
+            // a method can only override methods with the same name and number of parameters
+            Map<String, List<CtMethod<?>>> methodsBySignature = new HashMap<>();
+            Map<CtMethod<?>, Set<CtMethod<?>>> overriddenMethods = new IdentityHashMap<>();
+            Set<CtMethod<?>> overridingMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (CtMethod<?> ctMethod : model.getElements(new TypeFilter<CtMethod<?>>(CtMethod.class))) {
+                methodsBySignature.computeIfAbsent(
+                    ctMethod.getSimpleName() + "/" + ctMethod.getParameters().size(),
+                    key -> new ArrayList<>()
+                ).add(ctMethod);
+                overriddenMethods.put(ctMethod, Collections.newSetFromMap(new IdentityHashMap<>()));
+
+                // this considers the methods of the supertypes that are not part of the model as well
+                if (!ctMethod.getTopDefinitions().isEmpty()) {
+                    overridingMethods.add(ctMethod);
+                }
+            }
+
+            for (List<CtMethod<?>> candidates : methodsBySignature.values()) {
+                for (CtMethod<?> ctMethod : candidates) {
+                    for (CtMethod<?> superMethod : candidates) {
+                        if (ctMethod.isOverriding(superMethod)) {
+                            overriddenMethods.get(ctMethod).add(superMethod);
+                        }
+                    }
+                }
+            }
+
+            OverridesIndex index = new OverridesIndex(overriddenMethods, overridingMethods);
+            root.putMetadata(METADATA_KEY, index);
+            return index;
+        }
+    }
+
+    /**
+     * Checks if the method is part of the indexed model.
+     *
+     * @param ctMethod the method to check
+     * @return true if the index knows the method, false otherwise
+     */
+    boolean contains(CtMethod<?> ctMethod) {
+        return this.overriddenMethods.containsKey(ctMethod);
+    }
+
+    /**
+     * Checks if the method overrides a method of a supertype, like {@code !ctMethod.getTopDefinitions().isEmpty()}.
+     *
+     * @param ctMethod a method of the model
+     * @return true if the method is overriding another method, false otherwise
+     */
+    boolean isOverriding(CtMethod<?> ctMethod) {
+        return this.overridingMethods.contains(ctMethod);
+    }
+
+    /**
+     * Checks if the method overrides the super method, like {@code ctMethod.isOverriding(superMethod)}.
+     *
+     * @param ctMethod the method that might override the super method
+     * @param superMethod a method of the model
+     * @return true if the method overrides the super method, false otherwise
+     */
+    boolean isOverriding(CtMethod<?> ctMethod, CtMethod<?> superMethod) {
+        return this.overriddenMethods.getOrDefault(ctMethod, Set.of()).contains(superMethod);
+    }
+}
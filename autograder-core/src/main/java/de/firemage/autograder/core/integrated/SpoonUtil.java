@@ -56,7 +56,6 @@ import spoon.reflect.visitor.Filter;
 import spoon.reflect.visitor.filter.CompositeFilter;
 import spoon.reflect.visitor.filter.DirectReferenceFilter;
 import spoon.reflect.visitor.filter.FilteringOperator;
-import spoon.reflect.visitor.filter.OverridingMethodFilter;
 import spoon.reflect.visitor.filter.SameFilter;
 import spoon.reflect.visitor.filter.VariableAccessFilter;
 
@@ -914,6 +913,21 @@ public final class SpoonUtil {
      * @return the closest common parent of the given elements or the firstElement itself if others is empty
      */
     public static CtElement findCommonParent(CtElement firstElement, Iterable<? extends CtElement> others) {
+        ElementNumbering numbering = ElementNumbering.of(firstElement.getFactory().getModel());
+        List<CtElement> otherElements = new ArrayList<>();
+        others.forEach(otherElements::add);
+
+        if (numbering.isNumbered(firstElement) && otherElements.stream().allMatch(numbering::isNumbered)) {
+            CtElement commonParent = numbering.findCommonParent(firstElement, otherElements);
+            if (commonParent != null) {
+                return commonParent;
+            }
+        }
+
+        return findCommonParentByParents(firstElement, otherElements);
+    }
+
+    private static CtElement findCommonParentByParents(CtElement firstElement, Iterable<? extends CtElement> others) {
         // CtElement::hasParent will recursively call itself until it reaches the root
         // => inefficient and might cause a stack overflow
 
@@ -954,11 +968,36 @@ public final class SpoonUtil {
      * @return true if the given method is overriding another method, false otherwise
      */
     public static boolean isOverriddenMethod(CtMethod<?> ctMethod) {
+        OverridesIndex index = OverridesIndex.of(ctMethod.getFactory().getModel());
+        if (index.contains(ctMethod)) {
+            return index.isOverriding(ctMethod);
+        }
+
         Collection<CtMethod<?>> topDefinitions = ctMethod.getTopDefinitions();
         // if the method is defined for the first time, this should return an empty collection
         return !topDefinitions.isEmpty();
     }
 
+    /**
+     * Checks if the given method overrides the super method.
+     * <p>
+     * Unlike {@link CtMethod#isOverriding(CtMethod)}, this does not change the model, so it can be called
+     * by checks that run concurrently.
+     *
+     * @param ctMethod the method that might override the super method, must not be null
+     * @param superMethod the method that might be overridden, must not be null
+     * @return true if the given method overrides the super method, false otherwise
+     */
+    public static boolean isOverriding(CtMethod<?> ctMethod, CtMethod<?> superMethod) {
+        OverridesIndex index = OverridesIndex.of(superMethod.getFactory().getModel());
+        if (index.contains(superMethod)) {
+            return index.isOverriding(ctMethod, superMethod);
+        }
+
+        // spoon only changes the super method, which is not part of the model
+        return ctMethod.isOverriding(superMethod);
+    }
+
     public static boolean isInOverriddenMethod(CtElement ctElement) {
         CtMethod<?> ctMethod = ctElement.getParent(CtMethod.class);
         if (ctMethod == null) {
@@ -995,8 +1034,11 @@ public final class SpoonUtil {
      * @return all uses of {@code ctElement} in {@code in}
      */
     public static List<CtElement> findUsesIn(CtElement ctElement, CtElement in) {
+        ElementNumbering numbering = ElementNumbering.of(in.getFactory().getModel());
         return findUses(ctElement).stream()
-            .filter(element -> !in.getElements(new SameFilter(element)).isEmpty())
+            .filter(element -> numbering.isNumbered(element) && numbering.isNumbered(in)
+                ? numbering.isInside(element, in)
+                : !in.getElements(new SameFilter(element)).isEmpty())
             .collect(Collectors.toCollection(ArrayList::new));
     }
 
@@ -1036,7 +1078,16 @@ public final class SpoonUtil {
             return invocationExecutable.equals(this.executable.getReference())
                 || this.executable.equals(invocationExecutable.getExecutableDeclaration())
                 // TODO: consider removing this?
-                || invocationExecutable.isOverriding(this.executable.getReference());
+                || this.isOverriding(invocationExecutable);
+        }
+
+        private boolean isOverriding(CtExecutableReference<?> invocationExecutable) {
+            if (invocationExecutable.getExecutableDeclaration() instanceof CtMethod<?> ctMethod
+                && this.executable instanceof CtMethod<?> superMethod) {
+                return SpoonUtil.isOverriding(ctMethod, superMethod);
+            }
+
+            return invocationExecutable.isOverriding(this.executable.getReference());
         }
     }
 
@@ -1069,6 +1120,8 @@ public final class SpoonUtil {
 
         @Override
         public boolean matches(CtElement element) {
+            // the filter is applied to every element of the model, when searching without the index
+            CheckTimeout.checkpoint();
             return this.filter.matches(element);
         }
 
@@ -1086,8 +1139,8 @@ public final class SpoonUtil {
                     FilteringOperator.UNION,
                     filter,
                     new FilterAdapter<>(
-                        // this filter finds all methods that override the given method
-                        new OverridingMethodFilter(ctMethod),
+                        // this finds all methods that override the given method, like the OverridingMethodFilter
+                        candidate -> candidate != ctMethod && SpoonUtil.isOverriding(candidate, ctMethod),
                         (Class<CtMethod<?>>) (Object) CtMethod.class
                     )
                 );
@@ -1116,7 +1169,9 @@ public final class SpoonUtil {
 
 
     public static List<CtElement> findUses(CtElement ctElement) {
-        return new ArrayList<>(ctElement.getFactory().getModel().getElements(new UsesFilter(ctElement)));
+        UsesFilter usesFilter = new UsesFilter(ctElement);
+        // all supported elements are named and a use always has the same name as the element it uses
+        return UsesIndex.of(ctElement.getFactory().getModel()).findUses((CtNamedElement) ctElement, usesFilter);
     }
 
     /**
@@ -7,9 +7,12 @@ import spoon.reflect.CtModel;
 import spoon.reflect.declaration.CtElement;
 import spoon.reflect.factory.Factory;
 
+import java.util.List;
+
 public class StaticAnalysis {
     private final CodeModel model;
     private final CompilationResult compilationResult;
+    private volatile ElementIndex elementIndex;
 
     public StaticAnalysis(CodeModel model, CompilationResult compilationResult) {
         this.model = model;
@@ -32,7 +35,48 @@ public class StaticAnalysis {
         return this.compilationResult;
     }
 
+    /**
+     * Runs the processor on all elements of the model.
+     * <p>
+     * The elements are looked up in an index of the model that is shared by all checks,
+     * so the model is not traversed again for each processor.
+     *
+     * @param processor the processor to run
+     * @param <E>       the type of the elements that the processor processes
+     */
     public <E extends CtElement> void processWith(Processor<E> processor) {
-        this.model.processWith(processor);
+        CheckTimeout.checkpoint();
+        if (!this.getElementIndex().processWith(processor)) {
+            this.model.processWith(processor);
+        }
+    }
+
+    /**
+     * Returns all elements of the model that are instances of the given type, in the order
+     * in which they would be visited by a processor.
+     *
+     * @param type the type of the elements
+     * @param <E>  the type of the elements
+     * @return an unmodifiable list of the elements
+     */
+    public <E extends CtElement> List<E> getElements(Class<E> type) {
+        CheckTimeout.checkpoint();
+        return this.getElementIndex().getElements(type);
+    }
+
+    private ElementIndex getElementIndex() {
+        // First check without synchronization
+        ElementIndex index = this.elementIndex;
+        if (index != null) {
+            return index;
+        }
+
+        synchronized (this) {
+            if (this.elementIndex == null) {
+                this.elementIndex = ElementIndex.of(this.getFactory(), this.getModel());
+            }
+
+            return this.elementIndex;
+        }
     }
 }
@@ -0,0 +1,92 @@
+package de.firemage.autograder.core.integrated;
+
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.code.CtVariableAccess;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtModule;
+import spoon.reflect.declaration.CtNamedElement;
+import spoon.reflect.reference.CtReference;
+import spoon.reflect.visitor.Filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of all elements in a model that could be a use of a variable, executable or type member.
+ * <p>
+ * A use always has the same simple name as the element it uses (an access has the name of the variable,
+ * an invocation has the name of the executable, an overriding method has the name of the overridden method
+ * and a reference has the name of the referenced element). The index groups the candidates by that name,
+ * so that a query only has to look at the elements with the right name.
+ * <p>
+ * The index is created once per model and stored in the metadata of the unnamed module.
+ * The model must not be changed after the index has been created.
+ */
+final class UsesIndex {
+    private static final String METADATA_KEY = UsesIndex.class.getName();
+
+    private final Map<String, List<CtElement>> candidatesByName;
+
+    private UsesIndex(Map<String, List<CtElement>> candidatesByName) {
+        this.candidatesByName = candidatesByName;
+    }
+
+    static UsesIndex of(CtModel model) {
+        CtModule root = model.getUnnamedModule();
+        synchronized (root) {
+            if (root.getMetadata(METADATA_KEY) instanceof UsesIndex index) {
+                return index;
+            }
+
+            Map<String, List<CtElement>> candidatesByName = new HashMap<>();
+            // the elements are in the same order as they would be returned by model.getElements
+            for (CtElement element : model.getElements(ctElement -> !ctElement.isImplicit())) {
+                String name = candidateName(element);
+                if (name != null) {
+                    candidatesByName.computeIfAbsent(name, key -> new ArrayList<>()).add(element);
+                }
+            }
+
+            UsesIndex index = new UsesIndex(candidatesByName);
+            root.putMetadata(METADATA_KEY, index);
+            return index;
+        }
+    }
+
+    private static String candidateName(CtElement ctElement) {
+        if (ctElement instanceof CtVariableAccess<?> ctVariableAccess) {
+            return ctVariableAccess.getVariable().getSimpleName();
+        } else if (ctElement instanceof CtAbstractInvocation<?> ctAbstractInvocation) {
+            return ctAbstractInvocation.getExecutable().getSimpleName();
+        } else if (ctElement instanceof CtMethod<?> ctMethod) {
+            return ctMethod.getSimpleName();
+        } else if (ctElement instanceof CtReference ctReference) {
+            return ctReference.getSimpleName();
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds all elements that match the filter and have the same name as the given element.
+     *
+     * @param ctNamedElement the element to find the uses of
+     * @param filter the filter that decides if a candidate is a use
+     * @return the matching elements in the order of {@link CtModel#getElements(Filter)}
+     */
+    List<CtElement> findUses(CtNamedElement ctNamedElement, Filter<CtElement> filter) {
+        List<CtElement> result = new ArrayList<>();
+        for (CtElement candidate : this.candidatesByName.getOrDefault(ctNamedElement.getSimpleName(), List.of())) {
+            CheckTimeout.checkpoint();
+            if (filter.matches(candidate)) {
+                result.add(candidate);
+            }
+        }
+
+        return result;
+    }
+}
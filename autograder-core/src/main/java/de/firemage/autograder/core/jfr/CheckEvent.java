@@ -0,0 +1,31 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.file.SourceInfo;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("de.firemage.autograder.Check")
+@Label("Integrated Check")
+public final class CheckEvent extends SubmissionEvent {
+    @Label("Check")
+    private Class<?> check;
+
+    @Label("Problems")
+    private int problems;
+
+    private final transient Check checkInstance;
+
+    public CheckEvent(SourceInfo source, Check check) {
+        super(source);
+        this.checkInstance = check;
+    }
+
+    public void finish(int problems) {
+        if (this.endAndShouldCommit()) {
+            this.check = this.checkInstance.getClass();
+            this.problems = problems;
+            this.commit();
+        }
+    }
+}
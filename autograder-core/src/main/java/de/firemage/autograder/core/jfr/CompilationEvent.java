@@ -0,0 +1,26 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.file.SourceInfo;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("de.firemage.autograder.Compilation")
+@Label("Compilation")
+@Description("The compilation of a submission")
+public final class CompilationEvent extends SubmissionEvent {
+    @Label("Collect Warnings")
+    @Description("Whether all warnings of the compiler have been collected")
+    private boolean collectWarnings;
+
+    public CompilationEvent(SourceInfo source) {
+        super(source);
+    }
+
+    public void finish(boolean collectWarnings) {
+        if (this.endAndShouldCommit()) {
+            this.collectWarnings = collectWarnings;
+            this.commit();
+        }
+    }
+}
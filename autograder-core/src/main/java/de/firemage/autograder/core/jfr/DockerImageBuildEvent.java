@@ -0,0 +1,21 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.file.SourceInfo;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("de.firemage.autograder.DockerImageBuild")
+@Label("Docker Image Build")
+@Description("The build of the docker image that executes the tests of a submission")
+public final class DockerImageBuildEvent extends SubmissionEvent {
+    public DockerImageBuildEvent(SourceInfo source) {
+        super(source);
+    }
+
+    public void finish() {
+        if (this.endAndShouldCommit()) {
+            this.commit();
+        }
+    }
+}
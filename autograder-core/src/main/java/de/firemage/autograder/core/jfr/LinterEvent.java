@@ -0,0 +1,33 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.file.SourceInfo;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("de.firemage.autograder.Linter")
+@Label("Linter")
+@Description("A run of an external linter like PMD or SpotBugs, which executes multiple checks at once")
+public final class LinterEvent extends SubmissionEvent {
+    @Label("Linter")
+    private String linter;
+
+    @Label("Checks")
+    private int checks;
+
+    @Label("Problems")
+    private int problems;
+
+    public LinterEvent(SourceInfo source, String linter) {
+        super(source);
+        this.linter = linter;
+    }
+
+    public void finish(int checks, int problems) {
+        if (this.endAndShouldCommit()) {
+            this.checks = checks;
+            this.problems = problems;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.file.SourceInfo;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("de.firemage.autograder.ModelBuild")
+@Label("Model Build")
+@Description("The creation of the spoon model of a submission")
+public final class ModelBuildEvent extends SubmissionEvent {
+    @Label("Comments")
+    @Description("Whether the model contains comments")
+    private boolean commentEnabled;
+
+    public ModelBuildEvent(SourceInfo source) {
+        super(source);
+    }
+
+    public void finish(boolean commentEnabled) {
+        if (this.endAndShouldCommit()) {
+            this.commentEnabled = commentEnabled;
+            this.commit();
+        }
+    }
+}
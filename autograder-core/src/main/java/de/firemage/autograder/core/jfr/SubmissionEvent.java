@@ -0,0 +1,45 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.file.SourceInfo;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * The base of all flight recorder events of the autograder, which belong to the submission that is checked.
+ * <p>
+ * An event is started when it is created and ends with one of the finish methods of the subclasses.
+ * The fields are only computed if the event is recorded, so the events are cheap if the flight recorder
+ * is disabled. If the measured work fails, the event is not finished and therefore not recorded.
+ */
+@Category("Autograder")
+abstract class SubmissionEvent extends Event {
+    // the flight recorder ignores private fields of super classes
+    @Label("Submission")
+    @Description("The name of the checked submission")
+    protected String submission;
+
+    private final transient SourceInfo source;
+
+    SubmissionEvent(SourceInfo source) {
+        this.source = source;
+        this.begin();
+    }
+
+    /**
+     * Ends the event and records it, if it should be recorded.
+     *
+     * @return true if the event has to be committed, in that case the subclass has to set its fields
+     *         and call {@link #commit()}
+     */
+    boolean endAndShouldCommit() {
+        this.end();
+        if (!this.shouldCommit()) {
+            return false;
+        }
+
+        this.submission = this.source == null ? null : this.source.getName();
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.file.SourceInfo;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("de.firemage.autograder.TestCase")
+@Label("Test Case")
+public final class TestCaseEvent extends SubmissionEvent {
+    @Label("Test Case")
+    private String testCase;
+
+    @Label("Status")
+    private String status;
+
+    public TestCaseEvent(SourceInfo source, String testCase) {
+        super(source);
+        this.testCase = testCase;
+    }
+
+    public void finish(String status) {
+        if (this.endAndShouldCommit()) {
+            this.status = status;
+            this.commit();
+        }
+    }
+}
@@ -6,60 +6,114 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Runs {@link AnalysisTask}s either on the calling thread or on a work-stealing {@link ForkJoinPool}.
+ * <p>
+ * Tasks can submit further tasks while they are running. The problems are returned in the order in which the
+ * tasks were submitted, so the result does not depend on how the tasks have been scheduled.
+ * <p>
+ * Multiple schedulers can share a pool that has been created with {@link #createPool(int, ClassLoader)}, so that
+ * the analyses of different submissions do not start more threads than the pool has.
+ */
 public class AnalysisScheduler {
     private final ClassLoader classLoader;
-    private final List<AnalysisThread> analysisThreads;
+    private final ForkJoinPool pool;
+    private final boolean isPoolShared;
     private final Queue<AnalysisTask> waitingTasks;
-    private volatile boolean completionAllowed;
-    private final AtomicInteger waitingAndRunningTaskCount;
+    private final AtomicLong submittedTaskCount;
+    // the caller holds one registration until collectProblems is called, so that
+    // the scheduler does not complete while tasks are still being submitted
+    private final AtomicInteger pendingRegistrations;
+    private final CompletableFuture<Void> completion;
+    private final Map<Long, List<Problem>> reportedProblems;
+    private final AtomicReference<Exception> thrownException;
+    private volatile ProblemReporter problemListener;
 
     public AnalysisScheduler(int threads, ClassLoader classLoader) {
+        this(createPool(threads, classLoader), false, classLoader);
+    }
+
+    /**
+     * Creates a scheduler that runs its tasks on the given pool. The pool is not shut down by the scheduler.
+     *
+     * @param pool the pool returned by {@link #createPool(int, ClassLoader)}, null if the tasks should be
+     *             executed on the thread calling {@link #collectProblems()}
+     * @param classLoader the class loader used by the analysis
+     */
+    public AnalysisScheduler(ForkJoinPool pool, ClassLoader classLoader) {
+        this(pool, true, classLoader);
+    }
+
+    private AnalysisScheduler(ForkJoinPool pool, boolean isPoolShared, ClassLoader classLoader) {
         this.classLoader = classLoader;
+        this.pool = pool;
+        this.isPoolShared = isPoolShared;
         this.waitingTasks = new ArrayDeque<>();
-        this.completionAllowed = false;
-        this.waitingAndRunningTaskCount = new AtomicInteger(0);
+        this.submittedTaskCount = new AtomicLong(0);
+        this.pendingRegistrations = new AtomicInteger(1);
+        this.completion = new CompletableFuture<>();
+        this.reportedProblems = new ConcurrentSkipListMap<>();
+        this.thrownException = new AtomicReference<>();
+    }
 
-        this.analysisThreads = new ArrayList<>();
+    /**
+     * Creates the pool on which the analysis tasks are executed.
+     *
+     * @param threads the number of threads, 0 to choose one based on the available processors
+     * @param classLoader the context class loader of the threads
+     * @return the pool or null if only one thread should be used, in which case the tasks are executed on
+     * the calling thread
+     */
+    public static ForkJoinPool createPool(int threads, ClassLoader classLoader) {
         int actualThreads = threads > 0 ? threads : Math.max(Runtime.getRuntime().availableProcessors() - 2, 1);
 
         if (actualThreads == 1) {
-            return;
+            return null;
         }
 
-        for (int i = 0; i < actualThreads; i++) {
-            var thread = new AnalysisThread(this, i);
-            thread.start();
-            this.analysisThreads.add(thread);
-        }
+        return new ForkJoinPool(actualThreads, new AnalysisThreadFactory(classLoader), null, true);
     }
 
-    public void submitTask(AnalysisTask task) {
-        synchronized (this.waitingTasks) {
-            this.waitingTasks.add(task);
-            this.waitingAndRunningTaskCount.incrementAndGet();
-            this.waitingTasks.notifyAll();
-        }
+    /**
+     * Forwards the problems to the listener as soon as a task reports them, in addition to collecting them.
+     * The listener is called by the threads that run the tasks, possibly at the same time.
+     * It must be set before the first task is submitted.
+     *
+     * @param problemListener the listener or null to only collect the problems
+     */
+    public void setProblemListener(ProblemReporter problemListener) {
+        this.problemListener = problemListener;
     }
 
-    protected Optional<AnalysisTask> getTask() throws InterruptedException {
-        synchronized (this.waitingTasks) {
-            while (this.waitingTasks.isEmpty()) {
-                this.waitingTasks.wait(300);
-
-                if (this.completionAllowed && this.waitingAndRunningTaskCount.get() == 0) {
-                    return Optional.empty();
-                }
+    public void submitTask(AnalysisTask task) {
+        if (this.pool == null) {
+            synchronized (this.waitingTasks) {
+                this.waitingTasks.add(task);
             }
-            return Optional.of(this.waitingTasks.poll());
+            return;
         }
-    }
 
-    protected boolean completeTask() {
-        return this.waitingAndRunningTaskCount.decrementAndGet() == 0 && this.completionAllowed;
+        this.pendingRegistrations.incrementAndGet();
+        ForkJoinTask<?> forkJoinTask = ForkJoinTask.adapt(new ScheduledTask(this.submittedTaskCount.getAndIncrement(), task));
+
+        if (ForkJoinTask.getPool() == this.pool) {
+            // nested tasks are pushed to the local queue of the worker, other workers can steal them from there
+            forkJoinTask.fork();
+        } else {
+            this.pool.execute(forkJoinTask);
+        }
     }
 
     protected ClassLoader getClassLoader() {
@@ -71,46 +125,59 @@ public class AnalysisScheduler {
      * Never add more tasks *outside already submitted tasks* after calling this method, because they may never be executed.
      */
     public AnalysisResult collectProblems() {
-        if (this.analysisThreads.isEmpty()) {
+        if (this.pool == null) {
             return executeChecksSingleThreaded();
         } else {
-            return collectProblemsFromThreads();
+            return collectProblemsFromPool();
         }
     }
 
-    private AnalysisResult collectProblemsFromThreads() {
-        this.completionAllowed = true;
+    private AnalysisResult collectProblemsFromPool() {
+        this.completeRegistration();
 
-        List<Problem> allProblems = new ArrayList<>();
-        for (var thread : this.analysisThreads) {
-            try {
-                var result = thread.join();
-
-                if (result.failed()) {
-                    return result;
-                }
-
-                allProblems.addAll(result.problems());
-            } catch (InterruptedException e) {
-                throw new IllegalStateException(e);
+        try {
+            this.completion.join();
+        } finally {
+            if (!this.isPoolShared) {
+                this.pool.shutdown();
             }
         }
 
+        Exception exception = this.thrownException.get();
+        if (exception != null) {
+            return AnalysisResult.forFailure(exception);
+        }
+
+        List<Problem> allProblems = new ArrayList<>();
+        this.reportedProblems.values().forEach(allProblems::addAll);
         return AnalysisResult.forSuccess(allProblems);
     }
 
+    private void completeRegistration() {
+        if (this.pendingRegistrations.decrementAndGet() == 0) {
+            this.completion.complete(null);
+        }
+    }
+
     private AnalysisResult executeChecksSingleThreaded() {
         List<Problem> allProblems = new ArrayList<>();
+        ProblemReporter listener = this.problemListener;
 
         var reporter = new ProblemReporter() {
             @Override
             public void reportProblem(Problem problem) {
                 allProblems.add(problem);
+                if (listener != null) {
+                    listener.reportProblem(problem);
+                }
             }
 
             @Override
             public void reportProblems(Collection<Problem> problems) {
                 allProblems.addAll(problems);
+                if (listener != null) {
+                    listener.reportProblems(problems);
+                }
             }
         };
 
@@ -118,11 +185,87 @@ public class AnalysisScheduler {
             try {
                 var task = this.waitingTasks.poll();
                 task.run(this, reporter);
-            } catch (Exception e) {
-                return AnalysisResult.forFailure(e);
+            } catch (Throwable throwable) {
+                return AnalysisResult.forFailure(asException(throwable));
             }
         }
 
         return AnalysisResult.forSuccess(allProblems);
     }
+
+    // errors like a NoClassDefFoundError thrown by a check are reported as the failure of the analysis
+    private static Exception asException(Throwable throwable) {
+        if (throwable instanceof Exception exception) {
+            return exception;
+        }
+
+        return new IllegalStateException(throwable);
+    }
+
+    private final class ScheduledTask implements Runnable {
+        private final long index;
+        private final AnalysisTask task;
+
+        private ScheduledTask(long index, AnalysisTask task) {
+            this.index = index;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // once a task has failed, the result will be discarded anyway
+                if (thrownException.get() != null) {
+                    return;
+                }
+
+                Queue<Problem> problems = new ConcurrentLinkedQueue<>();
+                ProblemReporter listener = problemListener;
+                this.task.run(AnalysisScheduler.this, new ProblemReporter() {
+                    @Override
+                    public void reportProblem(Problem problem) {
+                        problems.add(problem);
+                        if (listener != null) {
+                            listener.reportProblem(problem);
+                        }
+                    }
+
+                    @Override
+                    public void reportProblems(Collection<Problem> problemsToReport) {
+                        problems.addAll(problemsToReport);
+                        if (listener != null) {
+                            listener.reportProblems(problemsToReport);
+                        }
+                    }
+                });
+
+                reportedProblems.put(this.index, new ArrayList<>(problems));
+            } catch (Throwable throwable) {
+                // the pool would swallow errors silently, so every failure of the task is reported
+                thrownException.compareAndSet(null, asException(throwable));
+            } finally {
+                completeRegistration();
+            }
+        }
+    }
+
+    private static final class AnalysisThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final ClassLoader classLoader;
+        private final AtomicInteger threadIndex;
+
+        private AnalysisThreadFactory(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+            this.threadIndex = new AtomicInteger(0);
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Autograder-Analysis-Thread-" + this.threadIndex.getAndIncrement());
+            if (this.classLoader != null) {
+                thread.setContextClassLoader(this.classLoader);
+            }
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,16 @@
+package de.firemage.autograder.core.plagiarism;
+
+import de.firemage.autograder.core.file.SourcePath;
+
+/**
+ * The hash of a sequence of normalized tokens and where the sequence is in a submission.
+ *
+ * @param hash the hash of the tokens
+ * @param file the file that contains the tokens
+ * @param startLine the line of the first token
+ * @param startColumn the column of the first token
+ * @param endLine the line of the last token
+ * @param endColumn the column after the last token
+ */
+record Fingerprint(long hash, SourcePath file, int startLine, int startColumn, int endLine, int endColumn) {
+}
@@ -0,0 +1,172 @@
+package de.firemage.autograder.core.plagiarism;
+
+import de.firemage.autograder.core.file.CompilationUnit;
+import de.firemage.autograder.core.file.SourceInfo;
+import net.sourceforge.pmd.cpd.JavaTokenizer;
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokens;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces a submission to the winnowed fingerprints of its tokens, see
+ * <a href="https://doi.org/10.1145/872757.872770">Winnowing: Local Algorithms for Document Fingerprinting</a>.
+ * <p>
+ * The code is tokenized like it is by CPD, but identifiers and literals are replaced by their kind, so renaming
+ * variables or changing constants does not change the fingerprints. A hash is computed for every sequence of
+ * {@code kgramLength} tokens and in every window of {@code windowSize} consecutive hashes the smallest one is
+ * selected. This guarantees that two submissions that share at least {@code windowSize + kgramLength - 1} tokens
+ * have at least one fingerprint in common.
+ */
+final class Fingerprinter {
+    // an odd multiplier for the polynomial hash of the token sequences
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+
+    private Fingerprinter() {
+    }
+
+    static List<Fingerprint> fingerprint(SourceInfo source, int kgramLength, int windowSize) throws IOException {
+        List<CompilationUnit> compilationUnits = new ArrayList<>(source.compilationUnits());
+        // the order of the files does not change the fingerprints, but it makes the result deterministic
+        compilationUnits.sort(Comparator.comparing(CompilationUnit::path));
+
+        JavaTokenizer tokenizer = new JavaTokenizer();
+        tokenizer.setIgnoreIdentifiers(true);
+        tokenizer.setIgnoreLiterals(true);
+
+        List<Fingerprint> result = new ArrayList<>();
+        // the images of the tokens are numbered per thread, in the order in which they are first seen,
+        // so the numbers can not be compared between submissions and are mapped back to the images
+        TokenEntry.clearImages();
+        try {
+            Map<Integer, Integer> imageHashes = new HashMap<>();
+            for (CompilationUnit compilationUnit : compilationUnits) {
+                Tokens tokens = new Tokens();
+                tokenizer.tokenize(
+                    new SourceCode(new SourceCode.StringCodeLoader(
+                        compilationUnit.readString(),
+                        compilationUnit.path().toString()
+                    )),
+                    tokens
+                );
+
+                List<TokenEntry> entries = tokens.getTokens()
+                    .stream()
+                    .filter(entry -> !entry.equals(TokenEntry.getEOF()))
+                    .toList();
+                long[] hashes = new long[entries.size()];
+                for (int i = 0; i < hashes.length; i++) {
+                    // TokenEntry#toString searches all images, but there are only few after the normalization
+                    TokenEntry entry = entries.get(i);
+                    hashes[i] = imageHashes.computeIfAbsent(entry.getIdentifier(), identifier -> entry.toString().hashCode());
+                }
+
+                long[] kgrams = hashKgrams(hashes, kgramLength);
+                for (int index : winnow(kgrams, windowSize)) {
+                    TokenEntry first = entries.get(index);
+                    TokenEntry last = entries.get(index + kgramLength - 1);
+                    result.add(new Fingerprint(
+                        kgrams[index],
+                        compilationUnit.path(),
+                        first.getBeginLine(),
+                        first.getBeginColumn(),
+                        last.getBeginLine(),
+                        last.getEndColumn()
+                    ));
+                }
+            }
+        } finally {
+            TokenEntry.clearImages();
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the hash of every sequence of {@code kgramLength} tokens with a rolling hash.
+     *
+     * @param tokens the hashes of the tokens
+     * @param kgramLength the number of tokens in a sequence
+     * @return the hash of the sequence starting at each index, empty if there are fewer tokens than the length
+     */
+    static long[] hashKgrams(long[] tokens, int kgramLength) {
+        if (tokens.length < kgramLength) {
+            return new long[0];
+        }
+
+        // BASE^(kgramLength - 1), the factor of the token that leaves the sequence
+        long highestPower = 1;
+        for (int i = 1; i < kgramLength; i++) {
+            highestPower *= BASE;
+        }
+
+        long[] result = new long[tokens.length - kgramLength + 1];
+        long hash = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (i >= kgramLength) {
+                hash -= tokens[i - kgramLength] * highestPower;
+            }
+            hash = hash * BASE + tokens[i];
+
+            if (i >= kgramLength - 1) {
+                result[i - kgramLength + 1] = mix(hash);
+            }
+        }
+
+        return result;
+    }
+
+    // the polynomial hash of similar sequences is similar, so it is mixed before the smallest hashes are selected
+    private static long mix(long value) {
+        long result = value;
+        result ^= result >>> 33;
+        result *= 0xFF51AFD7ED558CCDL;
+        result ^= result >>> 33;
+        result *= 0xC4CEB9FE1A85EC53L;
+        result ^= result >>> 33;
+        return result;
+    }
+
+    /**
+     * Selects the rightmost smallest hash in every window of {@code windowSize} consecutive hashes, every selected
+     * hash is only returned once.
+     *
+     * @param hashes the hashes of the token sequences
+     * @param windowSize the number of hashes in a window
+     * @return the indices of the selected hashes in ascending order
+     */
+    static List<Integer> winnow(long[] hashes, int windowSize) {
+        List<Integer> result = new ArrayList<>();
+        if (hashes.length == 0) {
+            return result;
+        }
+
+        // a submission with fewer hashes than a window still gets its smallest hash
+        int window = Math.min(windowSize, hashes.length);
+        int minimum = -1;
+        for (int end = window - 1; end < hashes.length; end++) {
+            int start = end - window + 1;
+            if (minimum < start) {
+                // the smallest hash has left the window, so the whole window has to be searched
+                minimum = start;
+                for (int i = start + 1; i <= end; i++) {
+                    if (hashes[i] <= hashes[minimum]) {
+                        minimum = i;
+                    }
+                }
+                result.add(minimum);
+            } else if (hashes[end] <= hashes[minimum]) {
+                minimum = end;
+                result.add(minimum);
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,695 @@
+package de.firemage.autograder.core.plagiarism;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.SourcePath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * An on-disk index of the code of many submissions, which finds the code that a new submission shares with the
+ * submissions that have been added before.
+ * <p>
+ * Comparing every pair of submissions with CPD is not feasible for a whole course, so each submission is reduced to
+ * winnowed fingerprints of its normalized tokens, see {@link Fingerprinter}. The index maps each fingerprint to the
+ * places where it has been found. A query looks up the fingerprints of the new submission, so its cost depends on the
+ * size of the new submission and only logarithmically on the size of the index.
+ * <p>
+ * Fingerprints that occur in more than {@code maxSubmissionsPerFingerprint} submissions are ignored, because they
+ * are most likely from code that was given to all students or that every solution needs.
+ * <p>
+ * The index consists of immutable segments, which store the fingerprints sorted by their hash and are memory-mapped
+ * for the lookups, and a manifest that lists the segments and the submissions. New submissions are buffered in memory
+ * and written as a new segment when the buffer is full, {@link #flush()} is called or the index is closed.
+ * When there are too many segments, they are merged into one. A directory can only be used by one index at a time.
+ * <p>
+ * Each submission is identified by a stable name, e.g. the id of the student. Adding a submission with a name that
+ * is already in the index replaces the old one, so regrading a submission neither matches it against its earlier
+ * copy nor lets its copies push the fingerprints over {@code maxSubmissionsPerFingerprint}. The postings of replaced
+ * submissions are ignored by the queries and removed when the segments are merged.
+ */
+public final class PlagiarismIndex implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(PlagiarismIndex.class);
+
+    public static final int DEFAULT_MAX_SUBMISSIONS_PER_FINGERPRINT = 10;
+
+    // must be incremented whenever the format of the manifest or the segments changes
+    private static final int FORMAT_VERSION = 2;
+    // any code that is shared with another submission and has at least WINDOW_SIZE + KGRAM_LENGTH - 1 tokens is found
+    static final int KGRAM_LENGTH = 20;
+    static final int WINDOW_SIZE = 20;
+    // shorter spans are mostly code that is similar by chance
+    static final int MIN_FINGERPRINTS_PER_SPAN = 4;
+    private static final int MAX_BUFFERED_POSTINGS = 1 << 16;
+    private static final int MAX_SEGMENTS = 8;
+
+    private static final String MANIFEST_FILE = "index.json";
+    private static final String LOCK_FILE = "index.lock";
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final int SEGMENT_MAGIC = 0x50494458;
+    private static final int SEGMENT_HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int POSTING_SIZE = Long.BYTES + 4 * Integer.BYTES;
+
+    private static final Comparator<Posting> POSTING_ORDER = Comparator.comparingLong(Posting::hash)
+        .thenComparingInt(Posting::submission)
+        .thenComparingInt(Posting::file)
+        .thenComparingInt(Posting::startLine);
+
+    private final Path directory;
+    private final int maxSubmissionsPerFingerprint;
+    private final ObjectMapper mapper;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final List<StoredSubmission> submissions;
+    // the index of the current submission with each name in the submissions
+    private final Map<String, Integer> submissionsByName;
+    private final List<Segment> segments;
+    private final Map<Long, List<Posting>> bufferedPostings;
+    private int bufferedPostingCount;
+    private int nextSegment;
+    private boolean hasChanges;
+    private boolean isClosed;
+
+    private record Manifest(
+        int formatVersion,
+        int kgramLength,
+        int windowSize,
+        int nextSegment,
+        List<StoredSubmission> submissions,
+        List<String> segments
+    ) {
+    }
+
+    /**
+     * A submission in the manifest, its index in the manifest is referenced by the postings.
+     *
+     * @param name the name of the submission
+     * @param files the files of the submission, which are referenced by the postings
+     * @param replaced whether a submission with the same name has been added later
+     */
+    private record StoredSubmission(String name, List<String> files, boolean replaced) {
+    }
+
+    /**
+     * A place where a fingerprint has been found.
+     *
+     * @param hash the hash of the fingerprint
+     * @param submission the index of the submission in the manifest
+     * @param file the index of the file in the files of the submission
+     * @param startLine the first line of the fingerprint
+     * @param endLine the last line of the fingerprint
+     */
+    private record Posting(long hash, int submission, int file, int startLine, int endLine) {
+    }
+
+    private record Hit(Fingerprint fingerprint, Posting posting) {
+    }
+
+    private PlagiarismIndex(
+        Path directory,
+        int maxSubmissionsPerFingerprint,
+        FileChannel lockChannel,
+        FileLock lock
+    ) {
+        this.directory = directory;
+        this.maxSubmissionsPerFingerprint = maxSubmissionsPerFingerprint;
+        this.mapper = new ObjectMapper();
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.submissions = new ArrayList<>();
+        this.submissionsByName = new HashMap<>();
+        this.segments = new ArrayList<>();
+        this.bufferedPostings = new HashMap<>();
+    }
+
+    /**
+     * Opens the index in the given directory with the default of {@value #DEFAULT_MAX_SUBMISSIONS_PER_FINGERPRINT}
+     * submissions per fingerprint.
+     *
+     * @param directory the directory of the index, which is created if it does not exist
+     * @return the index
+     * @throws IOException if the index could not be read or is used by another index
+     */
+    public static PlagiarismIndex open(Path directory) throws IOException {
+        return PlagiarismIndex.open(directory, DEFAULT_MAX_SUBMISSIONS_PER_FINGERPRINT);
+    }
+
+    /**
+     * Opens the index in the given directory.
+     *
+     * @param directory the directory of the index, which is created if it does not exist
+     * @param maxSubmissionsPerFingerprint fingerprints that have been found in more submissions are ignored
+     * @return the index
+     * @throws IOException if the index could not be read or is used by another index
+     */
+    public static PlagiarismIndex open(Path directory, int maxSubmissionsPerFingerprint) throws IOException {
+        if (maxSubmissionsPerFingerprint < 1) {
+            throw new IllegalArgumentException(
+                "maxSubmissionsPerFingerprint must be at least 1, but was " + maxSubmissionsPerFingerprint
+            );
+        }
+
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(
+            directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE
+        );
+
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException exception) {
+            lock = null;
+        }
+
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The plagiarism index in " + directory + " is used by another index");
+        }
+
+        PlagiarismIndex index = new PlagiarismIndex(directory, maxSubmissionsPerFingerprint, lockChannel, lock);
+        try {
+            index.readManifest();
+        } catch (IOException | RuntimeException exception) {
+            index.releaseLock();
+            throw exception;
+        }
+
+        return index;
+    }
+
+    private void readManifest() throws IOException {
+        Manifest manifest;
+        try {
+            manifest = this.mapper.readValue(Files.readAllBytes(this.directory.resolve(MANIFEST_FILE)), Manifest.class);
+        } catch (NoSuchFileException exception) {
+            return;
+        }
+
+        if (manifest.formatVersion() != FORMAT_VERSION
+            || manifest.kgramLength() != KGRAM_LENGTH
+            || manifest.windowSize() != WINDOW_SIZE) {
+            throw new IOException("The plagiarism index in " + this.directory + " has been created by another version");
+        }
+
+        this.submissions.addAll(manifest.submissions());
+        for (int i = 0; i < this.submissions.size(); i++) {
+            if (!this.submissions.get(i).replaced()) {
+                this.submissionsByName.put(this.submissions.get(i).name(), i);
+            }
+        }
+        for (String name : manifest.segments()) {
+            this.segments.add(Segment.open(this.directory, name));
+        }
+        this.nextSegment = manifest.nextSegment();
+    }
+
+    /**
+     * Finds the code that the submission shares with the other submissions in the index and then adds the
+     * submission, so each pair of submissions is only reported by the one that has been added later.
+     * A submission with the same name is replaced.
+     *
+     * @param name the stable name of the submission, which is reported when other submissions share code with it
+     * @param source the code of the submission
+     * @return the shared code, sorted by the other submission and the position in the submission
+     * @throws IOException if the code could not be read or the index could not be written
+     */
+    public List<SharedCode> addSubmission(String name, SourceInfo source) throws IOException {
+        Objects.requireNonNull(name, "name");
+        List<Fingerprint> fingerprints = Fingerprinter.fingerprint(source, KGRAM_LENGTH, WINDOW_SIZE);
+
+        synchronized (this) {
+            this.ensureOpen();
+            List<SharedCode> result = this.findSharedCode(fingerprints, name);
+            this.add(name, fingerprints);
+            if (this.bufferedPostingCount >= MAX_BUFFERED_POSTINGS) {
+                this.flush();
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Finds the code that the submission shares with the submissions in the index without adding it.
+     *
+     * @param source the code of the submission
+     * @return the shared code, sorted by the other submission and the position in the submission
+     * @throws IOException if the code could not be read
+     */
+    public List<SharedCode> findSharedCode(SourceInfo source) throws IOException {
+        return this.findSharedCode(null, source);
+    }
+
+    /**
+     * Finds the code that the submission shares with the other submissions in the index without adding it.
+     *
+     * @param name the stable name of the submission, its earlier copy in the index is not compared with it,
+     *             or null if it has no name
+     * @param source the code of the submission
+     * @return the shared code, sorted by the other submission and the position in the submission
+     * @throws IOException if the code could not be read
+     */
+    public List<SharedCode> findSharedCode(String name, SourceInfo source) throws IOException {
+        List<Fingerprint> fingerprints = Fingerprinter.fingerprint(source, KGRAM_LENGTH, WINDOW_SIZE);
+
+        synchronized (this) {
+            this.ensureOpen();
+            return this.findSharedCode(fingerprints, name);
+        }
+    }
+
+    /**
+     * Returns the number of submissions in the index, replaced submissions are not counted.
+     *
+     * @return the number of submissions
+     */
+    public synchronized int size() {
+        return this.submissionsByName.size();
+    }
+
+    /**
+     * Writes the buffered submissions to the disk.
+     *
+     * @throws IOException if the index could not be written
+     */
+    public synchronized void flush() throws IOException {
+        this.ensureOpen();
+        if (!this.hasChanges) {
+            return;
+        }
+
+        if (this.bufferedPostingCount > 0) {
+            List<Posting> postings = new ArrayList<>(this.bufferedPostingCount);
+            this.bufferedPostings.values().forEach(postings::addAll);
+            postings.removeIf(posting -> !this.isCurrent(posting));
+            postings.sort(POSTING_ORDER);
+
+            this.segments.add(this.writeSegment(postings.iterator(), postings.size()));
+            this.bufferedPostings.clear();
+            this.bufferedPostingCount = 0;
+        }
+
+        List<Segment> mergedSegments = List.of();
+        if (this.segments.size() > MAX_SEGMENTS) {
+            mergedSegments = new ArrayList<>(this.segments);
+            // the postings of the replaced submissions are dropped
+            int count = mergedSegments.stream().mapToInt(segment -> segment.countPostings(this::isCurrent)).sum();
+            Segment segment = this.writeSegment(new MergingIterator(mergedSegments, this::isCurrent), count);
+            this.segments.clear();
+            this.segments.add(segment);
+        }
+
+        this.writeManifest();
+        this.hasChanges = false;
+
+        // the segments can only be deleted once the manifest does not reference them anymore
+        for (Segment segment : mergedSegments) {
+            try {
+                Files.deleteIfExists(this.directory.resolve(segment.name()));
+            } catch (IOException exception) {
+                // a file that is still mapped can not be deleted on some systems
+                LOG.warn("Could not delete the merged segment {}", segment.name(), exception);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered submissions to the disk and releases the directory.
+     *
+     * @throws IOException if the index could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.isClosed) {
+            return;
+        }
+
+        try {
+            this.flush();
+        } finally {
+            this.isClosed = true;
+            this.releaseLock();
+        }
+    }
+
+    private void releaseLock() throws IOException {
+        try {
+            this.lock.release();
+        } finally {
+            this.lockChannel.close();
+        }
+    }
+
+    private void ensureOpen() {
+        if (this.isClosed) {
+            throw new IllegalStateException("The plagiarism index has been closed");
+        }
+    }
+
+    private boolean isCurrent(Posting posting) {
+        return !this.submissions.get(posting.submission()).replaced();
+    }
+
+    private void add(String name, List<Fingerprint> fingerprints) {
+        Integer replacedSubmission = this.submissionsByName.get(name);
+        if (replacedSubmission != null) {
+            // the files are only needed to report the postings, which are ignored from now on
+            this.submissions.set(replacedSubmission, new StoredSubmission(name, List.of(), true));
+        }
+
+        int submission = this.submissions.size();
+        Map<SourcePath, Integer> files = new LinkedHashMap<>();
+        for (Fingerprint fingerprint : fingerprints) {
+            int file = files.computeIfAbsent(fingerprint.file(), path -> files.size());
+            this.bufferedPostings.computeIfAbsent(fingerprint.hash(), hash -> new ArrayList<>())
+                .add(new Posting(fingerprint.hash(), submission, file, fingerprint.startLine(), fingerprint.endLine()));
+        }
+
+        this.bufferedPostingCount += fingerprints.size();
+        this.submissions.add(new StoredSubmission(name, files.keySet().stream().map(SourcePath::toString).toList(), false));
+        this.submissionsByName.put(name, submission);
+        this.hasChanges = true;
+    }
+
+    private List<SharedCode> findSharedCode(List<Fingerprint> fingerprints, String name) {
+        // the earlier copy of the submission is not compared with it
+        int excludedSubmission = name == null ? -1 : this.submissionsByName.getOrDefault(name, -1);
+
+        Map<Long, List<Posting>> postingsByHash = new HashMap<>();
+        for (Fingerprint fingerprint : fingerprints) {
+            postingsByHash.computeIfAbsent(fingerprint.hash(), hash -> this.findPostings(hash, excludedSubmission));
+        }
+
+        // the hits are grouped by the other submission, the tree map sorts the result by the other submission
+        Map<Integer, List<Hit>> hitsBySubmission = new TreeMap<>();
+        for (Fingerprint fingerprint : fingerprints) {
+            for (Posting posting : postingsByHash.get(fingerprint.hash())) {
+                hitsBySubmission.computeIfAbsent(posting.submission(), submission -> new ArrayList<>())
+                    .add(new Hit(fingerprint, posting));
+            }
+        }
+
+        List<SharedCode> result = new ArrayList<>();
+        for (Map.Entry<Integer, List<Hit>> entry : hitsBySubmission.entrySet()) {
+            result.addAll(toSpans(this.submissions.get(entry.getKey()), entry.getValue()));
+        }
+
+        return result;
+    }
+
+    private List<Posting> findPostings(long hash, int excludedSubmission) {
+        List<Posting> postings = new ArrayList<>();
+        for (Segment segment : this.segments) {
+            segment.findPostings(hash, postings::add);
+        }
+        postings.addAll(this.bufferedPostings.getOrDefault(hash, List.of()));
+        postings.removeIf(posting -> posting.submission() == excludedSubmission || !this.isCurrent(posting));
+
+        if (postings.stream().mapToInt(Posting::submission).distinct().count() > this.maxSubmissionsPerFingerprint) {
+            return List.of();
+        }
+
+        return postings;
+    }
+
+    /**
+     * Joins the fingerprints that a submission shares with another submission into spans of shared code.
+     * Fingerprints are part of the same span if they are in adjacent lines in both submissions.
+     */
+    private static List<SharedCode> toSpans(StoredSubmission other, List<Hit> hits) {
+        hits.sort(Comparator.comparing((Hit hit) -> hit.fingerprint().file())
+            .thenComparingInt(hit -> hit.posting().file())
+            .thenComparingInt(hit -> hit.fingerprint().startLine())
+            .thenComparingInt(hit -> hit.posting().startLine()));
+
+        List<SharedCode> result = new ArrayList<>();
+        Span span = null;
+        for (Hit hit : hits) {
+            if (span != null && span.extend(hit)) {
+                continue;
+            }
+
+            if (span != null && span.fingerprints.size() >= MIN_FINGERPRINTS_PER_SPAN) {
+                result.add(span.toSharedCode(other));
+            }
+            span = new Span(hit);
+        }
+
+        if (span != null && span.fingerprints.size() >= MIN_FINGERPRINTS_PER_SPAN) {
+            result.add(span.toSharedCode(other));
+        }
+
+        return result;
+    }
+
+    private static final class Span {
+        private final Fingerprint first;
+        private final int otherFile;
+        private final Set<Fingerprint> fingerprints;
+        private Fingerprint last;
+        private int otherStartLine;
+        private int otherEndLine;
+
+        private Span(Hit hit) {
+            this.first = hit.fingerprint();
+            this.last = hit.fingerprint();
+            this.otherFile = hit.posting().file();
+            this.otherStartLine = hit.posting().startLine();
+            this.otherEndLine = hit.posting().endLine();
+            this.fingerprints = new HashSet<>(List.of(hit.fingerprint()));
+        }
+
+        private boolean extend(Hit hit) {
+            Fingerprint fingerprint = hit.fingerprint();
+            Posting posting = hit.posting();
+            if (!fingerprint.file().equals(this.first.file())
+                || posting.file() != this.otherFile
+                || fingerprint.startLine() > this.last.endLine() + 1
+                || posting.startLine() > this.otherEndLine + 1
+                || posting.endLine() < this.otherStartLine - 1) {
+                return false;
+            }
+
+            if (fingerprint.endLine() > this.last.endLine()
+                || fingerprint.endLine() == this.last.endLine() && fingerprint.endColumn() > this.last.endColumn()) {
+                this.last = fingerprint;
+            }
+            this.otherStartLine = Math.min(this.otherStartLine, posting.startLine());
+            this.otherEndLine = Math.max(this.otherEndLine, posting.endLine());
+            this.fingerprints.add(fingerprint);
+            return true;
+        }
+
+        private SharedCode toSharedCode(StoredSubmission other) {
+            return new SharedCode(
+                this.first.file(),
+                this.first.startLine(),
+                this.first.startColumn(),
+                this.last.endLine(),
+                this.last.endColumn(),
+                other.name(),
+                other.files().get(this.otherFile),
+                this.otherStartLine,
+                this.otherEndLine,
+                this.fingerprints.size()
+            );
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        Manifest manifest = new Manifest(
+            FORMAT_VERSION,
+            KGRAM_LENGTH,
+            WINDOW_SIZE,
+            this.nextSegment,
+            List.copyOf(this.submissions),
+            this.segments.stream().map(Segment::name).toList()
+        );
+
+        Path temporaryFile = Files.createTempFile(this.directory, MANIFEST_FILE, ".tmp");
+        try {
+            Files.write(temporaryFile, this.mapper.writeValueAsBytes(manifest));
+            Files.move(
+                temporaryFile,
+                this.directory.resolve(MANIFEST_FILE),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private Segment writeSegment(Iterator<Posting> postings, int count) throws IOException {
+        String name = this.nextSegment + SEGMENT_SUFFIX;
+        this.nextSegment += 1;
+
+        Path temporaryFile = Files.createTempFile(this.directory, name, ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(SEGMENT_MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(count);
+                while (postings.hasNext()) {
+                    Posting posting = postings.next();
+                    output.writeLong(posting.hash());
+                    output.writeInt(posting.submission());
+                    output.writeInt(posting.file());
+                    output.writeInt(posting.startLine());
+                    output.writeInt(posting.endLine());
+                }
+            }
+
+            Files.move(temporaryFile, this.directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+
+        return Segment.open(this.directory, name);
+    }
+
+    /**
+     * An immutable file of postings, which are sorted by their hash.
+     */
+    private record Segment(String name, ByteBuffer buffer, int count) {
+        private static Segment open(Path directory, String name) throws IOException {
+            Path path = directory.resolve(name);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // the mapping stays valid after the channel has been closed
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (channel.size() < SEGMENT_HEADER_SIZE
+                    || buffer.getInt(0) != SEGMENT_MAGIC
+                    || buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+                    throw new IOException("The segment " + path + " is not valid");
+                }
+
+                int count = buffer.getInt(2 * Integer.BYTES);
+                if (channel.size() != SEGMENT_HEADER_SIZE + (long) count * POSTING_SIZE) {
+                    throw new IOException("The segment " + path + " is truncated");
+                }
+
+                return new Segment(name, buffer, count);
+            }
+        }
+
+        private long hashAt(int index) {
+            return this.buffer.getLong(SEGMENT_HEADER_SIZE + index * POSTING_SIZE);
+        }
+
+        private Posting postingAt(int index) {
+            int offset = SEGMENT_HEADER_SIZE + index * POSTING_SIZE;
+            return new Posting(
+                this.buffer.getLong(offset),
+                this.buffer.getInt(offset + Long.BYTES),
+                this.buffer.getInt(offset + Long.BYTES + Integer.BYTES),
+                this.buffer.getInt(offset + Long.BYTES + 2 * Integer.BYTES),
+                this.buffer.getInt(offset + Long.BYTES + 3 * Integer.BYTES)
+            );
+        }
+
+        private void findPostings(long hash, Consumer<Posting> consumer) {
+            // binary search for the first posting with the hash
+            int low = 0;
+            int high = this.count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.hashAt(middle) < hash) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            for (int i = low; i < this.count && this.hashAt(i) == hash; i++) {
+                consumer.accept(this.postingAt(i));
+            }
+        }
+
+        private int countPostings(Predicate<Posting> filter) {
+            int result = 0;
+            for (int i = 0; i < this.count; i++) {
+                if (filter.test(this.postingAt(i))) {
+                    result += 1;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Iterates over the postings of multiple segments that match the filter in the order of {@link #POSTING_ORDER}.
+     */
+    private static final class MergingIterator implements Iterator<Posting> {
+        private record Cursor(Segment segment, int index, Posting posting) {
+        }
+
+        private final PriorityQueue<Cursor> cursors;
+        private final Predicate<Posting> filter;
+
+        private MergingIterator(List<Segment> segments, Predicate<Posting> filter) {
+            this.cursors = new PriorityQueue<>(Comparator.comparing(Cursor::posting, POSTING_ORDER));
+            this.filter = filter;
+            for (Segment segment : segments) {
+                this.advance(segment, 0);
+            }
+        }
+
+        // adds a cursor at the first posting from the index on that matches the filter
+        private void advance(Segment segment, int index) {
+            for (int i = index; i < segment.count(); i++) {
+                Posting posting = segment.postingAt(i);
+                if (this.filter.test(posting)) {
+                    this.cursors.add(new Cursor(segment, i, posting));
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.cursors.isEmpty();
+        }
+
+        @Override
+        public Posting next() {
+            Cursor cursor = this.cursors.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+
+            this.advance(cursor.segment(), cursor.index() + 1);
+            return cursor.posting();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package de.firemage.autograder.core.plagiarism;
+
+import de.firemage.autograder.core.file.SourcePath;
+
+/**
+ * A span of code in a submission that has been found in another submission, see {@link PlagiarismIndex}.
+ *
+ * @param file the file in the submission
+ * @param startLine the first line of the span in the file
+ * @param startColumn the column of the first token of the span
+ * @param endLine the last line of the span in the file
+ * @param endColumn the column after the last token of the span
+ * @param otherSubmission the name of the other submission, under which it has been added to the index
+ * @param otherFile the file in the other submission
+ * @param otherStartLine the first line of the span in the other file
+ * @param otherEndLine the last line of the span in the other file
+ * @param fingerprints the number of fingerprints that both spans have in common, more fingerprints
+ *                     indicate more shared code
+ */
+public record SharedCode(
+    SourcePath file,
+    int startLine,
+    int startColumn,
+    int endLine,
+    int endColumn,
+    String otherSubmission,
+    String otherFile,
+    int otherStartLine,
+    int otherEndLine,
+    int fingerprints
+) {
+}
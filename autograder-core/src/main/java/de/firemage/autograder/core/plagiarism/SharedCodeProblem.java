@@ -0,0 +1,42 @@
+package de.firemage.autograder.core.plagiarism;
+
+import de.firemage.autograder.core.CodePosition;
+import de.firemage.autograder.core.LocalizedMessage;
+import de.firemage.autograder.core.ProblemImpl;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.file.SourceInfo;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * A span of code that has been found in another submission.
+ */
+public class SharedCodeProblem extends ProblemImpl {
+    @Getter
+    private final SharedCode sharedCode;
+
+    public SharedCodeProblem(Check check, SharedCode sharedCode, SourceInfo sourceInfo) {
+        super(
+            check,
+            new CodePosition(
+                sourceInfo,
+                sharedCode.file(),
+                sharedCode.startLine(),
+                sharedCode.endLine(),
+                sharedCode.startColumn(),
+                sharedCode.endColumn()
+            ),
+            new LocalizedMessage("shared-code", Map.of(
+                "lines", String.valueOf(sharedCode.endLine() - sharedCode.startLine() + 1),
+                "other-submission", sharedCode.otherSubmission(),
+                "other-path", sharedCode.otherFile(),
+                "other-start", String.valueOf(sharedCode.otherStartLine()),
+                "other-end", String.valueOf(sharedCode.otherEndLine())
+            )),
+            ProblemType.SHARED_CODE
+        );
+        this.sharedCode = sharedCode;
+    }
+}
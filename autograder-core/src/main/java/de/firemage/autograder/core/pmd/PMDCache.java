@@ -0,0 +1,300 @@
+package de.firemage.autograder.core.pmd;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.firemage.autograder.core.AutograderVersion;
+import de.firemage.autograder.core.cache.CacheDirectory;
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.FileLocation;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.document.TextRange2d;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An on-disk cache for the PMD violations of single files, so that the unchanged files of resubmissions
+ * are not analyzed again.
+ * <p>
+ * The entries are addressed by a hash of the content of a file, its language version and a fingerprint of the
+ * generated rule set and the autograder version, so the path of the file does not matter. The violations are mapped back to the rules
+ * by their generated names, which are unique within a rule set.
+ * <p>
+ * Multiple threads and processes can share a cache directory. The size of the cache is bounded like the one of
+ * the {@link de.firemage.autograder.core.cache.ResultCache} by evicting the least recently used entries, see {@link CacheDirectory}.
+ */
+public final class PMDCache {
+    private static final Logger LOG = LoggerFactory.getLogger(PMDCache.class);
+
+    // must be incremented whenever the format of the entries changes
+    private static final int FORMAT_VERSION = 2;
+    private static final String ENTRY_SUFFIX = ".json";
+
+    private final CacheDirectory directory;
+    private final ObjectMapper mapper;
+
+    private record CacheEntry(int formatVersion, List<StoredViolation> violations) {
+    }
+
+    private record StoredViolation(
+        String rule,
+        String description,
+        int startLine,
+        int startColumn,
+        int endLine,
+        int endColumn,
+        Map<String, String> additionalInfo
+    ) {
+    }
+
+    private record CachedViolation(
+        Rule rule,
+        String description,
+        FileLocation location,
+        Map<String, String> additionalInfo
+    ) implements RuleViolation {
+        @Override
+        public Rule getRule() {
+            return this.rule;
+        }
+
+        @Override
+        public String getDescription() {
+            return this.description;
+        }
+
+        @Override
+        public FileLocation getLocation() {
+            return this.location;
+        }
+
+        @Override
+        public Map<String, String> getAdditionalInfo() {
+            return this.additionalInfo;
+        }
+    }
+
+    private PMDCache(CacheDirectory directory) {
+        this.directory = directory;
+        this.mapper = new ObjectMapper();
+    }
+
+    /**
+     * Opens the cache in the given directory, which is created if it does not exist.
+     *
+     * @param directory the directory of the cache, which may be shared with other processes
+     * @param maximumSize the maximum size of all entries in bytes
+     * @return the cache
+     * @throws IOException if the directory could not be created or read
+     */
+    public static PMDCache open(Path directory, long maximumSize) throws IOException {
+        return new PMDCache(CacheDirectory.open(directory, ENTRY_SUFFIX, maximumSize));
+    }
+
+    /**
+     * Computes a fingerprint of the rules, which does not change between runs of the JVM
+     * (unlike {@link net.sourceforge.pmd.RuleSet#getChecksum()}, which depends on identity hash codes).
+     * The autograder version is part of it, because the rules of the checks can change with it.
+     *
+     * @param rules the rules in the order of the rule set
+     * @return the fingerprint
+     */
+    static String fingerprint(Collection<? extends Rule> rules) {
+        MessageDigest digest = newDigest();
+        updateDigest(digest, PMDVersion.VERSION);
+        updateDigest(digest, AutograderVersion.get());
+        for (Rule rule : rules) {
+            updateDigest(digest, rule.getClass().getName());
+            updateDigest(digest, rule.getName());
+            // the message is the template of the stored descriptions
+            updateDigest(digest, String.valueOf(rule.getMessage()));
+            updateDigest(digest, rule.getPriority().name());
+            updateDigest(digest, rule.getLanguage().getId());
+            rule.getPropertiesByPropertyDescriptor()
+                .entrySet()
+                .stream()
+                .map(entry -> entry.getKey().name() + "=" + entry.getValue())
+                .sorted()
+                .forEach(property -> updateDigest(digest, property));
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static void updateDigest(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // the length separates the values, so that no two different inputs result in the same bytes
+        digest.update(String.valueOf(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    /**
+     * Creates the cache for a single {@link net.sourceforge.pmd.PmdAnalysis}.
+     *
+     * @param ruleSetFingerprint the fingerprint of the analyzed rule set, see {@link #fingerprint(Collection)}
+     * @return the cache of the analysis
+     */
+    AnalysisCache newAnalysisCache(String ruleSetFingerprint) {
+        return new Analysis(ruleSetFingerprint);
+    }
+
+    private Optional<CacheEntry> load(String key) {
+        try {
+            Optional<byte[]> content = this.directory.read(key);
+            if (content.isEmpty()) {
+                return Optional.empty();
+            }
+
+            CacheEntry entry = this.mapper.readValue(content.get(), CacheEntry.class);
+            return entry.formatVersion() == FORMAT_VERSION ? Optional.of(entry) : Optional.empty();
+        } catch (IOException exception) {
+            LOG.warn("Ignoring unreadable PMD cache entry {}", key, exception);
+            return Optional.empty();
+        }
+    }
+
+    private void store(String key, CacheEntry entry) {
+        try {
+            this.directory.write(key, this.mapper.writeValueAsBytes(entry));
+        } catch (IOException exception) {
+            LOG.warn("Could not store PMD cache entry {}", key, exception);
+        }
+    }
+
+    /**
+     * The view of a single analysis on the cache. The entries are only written when the analysis is persisted,
+     * so the violations of files that could not be analyzed are never stored.
+     */
+    private final class Analysis implements AnalysisCache {
+        private final String ruleSetFingerprint;
+        private final Map<FileId, String> keys;
+        private final Map<FileId, CacheEntry> cachedEntries;
+        private final Map<FileId, List<StoredViolation>> updatedEntries;
+        private volatile Map<String, Rule> rules;
+
+        private Analysis(String ruleSetFingerprint) {
+            this.ruleSetFingerprint = ruleSetFingerprint;
+            this.keys = new ConcurrentHashMap<>();
+            this.cachedEntries = new ConcurrentHashMap<>();
+            this.updatedEntries = new ConcurrentHashMap<>();
+        }
+
+        private String key(TextDocument document) {
+            return this.keys.computeIfAbsent(document.getFileId(), fileId -> {
+                MessageDigest digest = newDigest();
+                updateDigest(digest, String.valueOf(FORMAT_VERSION));
+                updateDigest(digest, this.ruleSetFingerprint);
+                updateDigest(digest, document.getLanguageVersion().getTerseName());
+                updateDigest(digest, document.getText().toString());
+                return HexFormat.of().formatHex(digest.digest());
+            });
+        }
+
+        @Override
+        public void checkValidity(RuleSets ruleSets, ClassLoader auxClassPathClassLoader, Collection<? extends TextFile> files) {
+            Map<String, Rule> result = new ConcurrentHashMap<>();
+            for (Rule rule : ruleSets.getAllRules()) {
+                result.put(rule.getName(), rule);
+            }
+
+            this.rules = result;
+        }
+
+        @Override
+        public boolean isUpToDate(TextDocument document) {
+            Optional<CacheEntry> entry = load(this.key(document));
+            // a rule might have been removed from the analysis, because it could not be initialized
+            if (entry.isEmpty() || !entry.get().violations().stream().allMatch(violation -> this.rules.containsKey(violation.rule()))) {
+                return false;
+            }
+
+            this.cachedEntries.put(document.getFileId(), entry.get());
+            // PMD starts the file analysis before it asks the cache, and the entry does not have to be stored again
+            this.updatedEntries.remove(document.getFileId());
+            return true;
+        }
+
+        @Override
+        public List<RuleViolation> getCachedViolations(TextDocument document) {
+            CacheEntry entry = this.cachedEntries.get(document.getFileId());
+            if (entry == null) {
+                return List.of();
+            }
+
+            List<RuleViolation> result = new ArrayList<>();
+            for (StoredViolation violation : entry.violations()) {
+                result.add(new CachedViolation(
+                    this.rules.get(violation.rule()),
+                    violation.description(),
+                    FileLocation.range(document.getFileId(), TextRange2d.range2d(
+                        violation.startLine(),
+                        violation.startColumn(),
+                        violation.endLine(),
+                        violation.endColumn()
+                    )),
+                    violation.additionalInfo()
+                ));
+            }
+
+            return result;
+        }
+
+        @Override
+        public void analysisFailed(TextDocument document) {
+            this.updatedEntries.remove(document.getFileId());
+        }
+
+        @Override
+        public FileAnalysisListener startFileAnalysis(TextDocument document) {
+            // the key is computed now, because the content is not available anymore when the analysis is persisted
+            this.key(document);
+            List<StoredViolation> violations = Collections.synchronizedList(new ArrayList<>());
+            this.updatedEntries.put(document.getFileId(), violations);
+            return violation -> violations.add(new StoredViolation(
+                violation.getRule().getName(),
+                violation.getDescription(),
+                violation.getBeginLine(),
+                violation.getBeginColumn(),
+                violation.getEndLine(),
+                violation.getEndColumn(),
+                new HashMap<>(violation.getAdditionalInfo())
+            ));
+        }
+
+        @Override
+        public void persist() {
+            for (Map.Entry<FileId, List<StoredViolation>> entry : this.updatedEntries.entrySet()) {
+                store(this.keys.get(entry.getKey()), new CacheEntry(FORMAT_VERSION, new ArrayList<>(entry.getValue())));
+            }
+        }
+    }
+}
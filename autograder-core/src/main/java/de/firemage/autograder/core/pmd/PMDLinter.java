@@ -3,6 +3,7 @@ package de.firemage.autograder.core.pmd;
 import de.firemage.autograder.core.Problem;
 import de.firemage.autograder.core.file.CompilationUnit;
 import de.firemage.autograder.core.file.UploadedFile;
+import de.firemage.autograder.core.jfr.LinterEvent;
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.PmdAnalysis;
 import net.sourceforge.pmd.Rule;
@@ -13,41 +14,103 @@ import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.document.FileCollector;
 import net.sourceforge.pmd.lang.document.FileId;
 
-import javax.tools.JavaFileObject;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Runs the {@link PMDCheck}s on submissions.
+ * <p>
+ * The linter is meant to be created once and reused for all submissions. The rule set of a combination of checks
+ * is only built for the first submission that is linted with it. Multiple submissions can be linted at the same time.
+ * <p>
+ * If the linter has a {@link PMDCache}, the violations of files that have been analyzed before are loaded from it.
+ */
 public class PMDLinter {
     private static final Language JAVA_LANGUAGE = LanguageRegistry.PMD.getLanguageById("java");
 
-    public List<Problem> lint(UploadedFile file, List<PMDCheck> checks, ClassLoader classLoader) throws IOException {
+    private final ClassLoader classLoader;
+    private final PMDCache cache;
+    private final Map<List<Class<? extends PMDCheck>>, CompiledRuleSet> ruleSets;
+
+    /**
+     * The rules of some checks, which are renamed to the index of the rule.
+     *
+     * @param ruleSet the rules, they must not be modified
+     * @param checkIndices maps the name of each rule to the index of its check in the list of checks
+     * @param fingerprint identifies the rules in the {@link PMDCache}
+     */
+    private record CompiledRuleSet(RuleSet ruleSet, Map<String, Integer> checkIndices, String fingerprint) {
+        private static CompiledRuleSet compile(List<PMDCheck> checks) {
+            Map<String, Integer> checkIndices = new HashMap<>();
+            List<Rule> rules = new ArrayList<>();
+
+            int idCounter = 0;
+            for (int i = 0; i < checks.size(); i++) {
+                for (Rule rule : checks.get(i).getRules()) {
+                    String id = String.valueOf(idCounter++);
+                    // the rules belong to the check, so they are copied before they are renamed
+                    Rule renamedRule = rule.deepCopy();
+                    renamedRule.setName(id);
+                    checkIndices.put(id, i);
+                    rules.add(renamedRule);
+                }
+            }
+
+            return new CompiledRuleSet(
+                RuleSet.create("Autograder Configuration (Generated)", "", null, List.of(), List.of(), rules),
+                Map.copyOf(checkIndices),
+                PMDCache.fingerprint(rules)
+            );
+        }
+    }
+
+    public PMDLinter(ClassLoader classLoader) {
+        this(classLoader, null);
+    }
+
+    /**
+     * Creates a new linter.
+     *
+     * @param classLoader the class loader that PMD uses to resolve types
+     * @param cache the cache for the violations of unchanged files or null to analyze all files
+     */
+    public PMDLinter(ClassLoader classLoader, PMDCache cache) {
+        this.classLoader = classLoader;
+        this.cache = cache;
+        this.ruleSets = new ConcurrentHashMap<>();
+    }
+
+    public List<Problem> lint(UploadedFile file, List<PMDCheck> checks) throws IOException {
+        LinterEvent event = new LinterEvent(file.getSource(), "PMD");
         PMDConfiguration config = new PMDConfiguration();
 
+        // the rules of a check only depend on its class, so instances of the same checks can share a rule set
+        CompiledRuleSet compiledRuleSet = this.ruleSets.computeIfAbsent(
+            checks.stream().<Class<? extends PMDCheck>>map(PMDCheck::getClass).toList(),
+            key -> CompiledRuleSet.compile(checks)
+        );
+
         config.setMinimumPriority(RulePriority.LOW);
-        config.setIgnoreIncrementalAnalysis(true);
-        config.setClassLoader(classLoader);
+        if (this.cache == null) {
+            config.setIgnoreIncrementalAnalysis(true);
+        } else {
+            config.setAnalysisCache(this.cache.newAnalysisCache(compiledRuleSet.fingerprint()));
+        }
+        config.setClassLoader(this.classLoader);
         config.setDefaultLanguageVersion(JAVA_LANGUAGE.getVersion(file.getSource().getVersion().getVersionString()));
 
         Map<String, PMDCheck> idMap = new HashMap<>();
-        List<Rule> rules = new ArrayList<>();
-
-        int idCounter = 0;
-        for (PMDCheck check : checks) {
-            for (Rule rule : check.getRules()) {
-                String id = String.valueOf(idCounter++);
-                rule.setName(id);
-                idMap.put(id, check);
-                rules.add(rule);
-            }
-        }
-
+        compiledRuleSet.checkIndices().forEach((id, index) -> idMap.put(id, checks.get(index)));
         ProblemRenderer renderer = new ProblemRenderer(idMap, file.getSource());
 
+        // A PmdAnalysis can only analyze files once, and PMD initializes the rules of an analysis
+        // and removes the broken ones from the rule set, so every analysis gets its own copy.
         try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
-            pmd.addRuleSet(RuleSet.create("Autograder Configuration (Generated)", "", null, List.of(), List.of(), rules));
+            pmd.addRuleSet(new RuleSet(compiledRuleSet.ruleSet()));
             pmd.addRenderer(renderer);
             FileCollector collector = pmd.files();
             for (CompilationUnit compilationUnit : file.getSource().compilationUnits()) {
@@ -60,6 +123,8 @@ public class PMDLinter {
             pmd.performAnalysis();
         }
 
-        return renderer.getProblems();
+        List<Problem> problems = renderer.getProblems();
+        event.finish(checks.size(), problems.size());
+        return problems;
     }
 }
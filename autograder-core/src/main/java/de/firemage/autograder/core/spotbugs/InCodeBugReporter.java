@@ -61,7 +61,7 @@ public class InCodeBugReporter extends AbstractBugReporter {
         List<Problem> problems = new ArrayList<>();
         for (BugInstance bug : this.bugCollection.getCollection()) {
             for (SpotbugsCheck check : checks) {
-                if (check.getBug().equals(bug.getType())) {
+                if (check.getBugPatterns().contains(bug.getType())) {
                     problems.add(new SpotbugsInCodeProblem(check, bug, this.sourceInfo));
                 }
             }
@@ -3,18 +3,69 @@ package de.firemage.autograder.core.spotbugs;
 import de.firemage.autograder.core.LocalizedMessage;
 import de.firemage.autograder.core.ProblemType;
 import de.firemage.autograder.core.check.Check;
+import edu.umd.cs.findbugs.config.UserPreferences;
+
+import java.util.Collection;
+import java.util.Set;
 
 public abstract class SpotbugsCheck implements Check {
-    private final String bug;
+    private final Set<String> bugPatterns;
 
     private final ProblemType problemType;
 
     private final LocalizedMessage explanation;
 
+    private final Effort effort;
+
+    /**
+     * How thoroughly SpotBugs analyzes the code. A higher effort finds more bugs, but takes longer.
+     * The checks of a submission are analyzed together, with the highest effort of the checks.
+     */
+    public enum Effort {
+        MIN(UserPreferences.EFFORT_MIN),
+        DEFAULT(UserPreferences.EFFORT_DEFAULT),
+        MAX(UserPreferences.EFFORT_MAX);
+
+        private final String value;
+
+        Effort(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return this.value;
+        }
+    }
+
     protected SpotbugsCheck(LocalizedMessage explanation, String bug, ProblemType problemType) {
-        this.bug = bug;
+        this(explanation, Set.of(bug), problemType, Effort.DEFAULT);
+    }
+
+    /**
+     * Creates a check that reports the bugs of the given patterns.
+     *
+     * @param explanation the explanation of the reported problems
+     * @param bugPatterns the types of the bug patterns, e.g. {@code DM_STRING_CTOR}; only the detectors that can
+     *                    report them are run
+     * @param problemType the type of the reported problems
+     * @param effort the effort that the check needs
+     * @throws IllegalArgumentException if there are no bug patterns or no detector reports one of them
+     */
+    protected SpotbugsCheck(
+        LocalizedMessage explanation,
+        Collection<String> bugPatterns,
+        ProblemType problemType,
+        Effort effort
+    ) {
+        if (bugPatterns.isEmpty()) {
+            throw new IllegalArgumentException("A check must report at least one bug pattern");
+        }
+        SpotbugsLinter.requireKnownBugPatterns(bugPatterns);
+
+        this.bugPatterns = Set.copyOf(bugPatterns);
         this.problemType = problemType;
         this.explanation = explanation;
+        this.effort = effort;
     }
 
     @Override
@@ -22,8 +73,8 @@ public abstract class SpotbugsCheck implements Check {
         return new LocalizedMessage("linter-spotbugs");
     }
 
-    public String getBug() {
-        return bug;
+    public Set<String> getBugPatterns() {
+        return bugPatterns;
     }
 
     public ProblemType getProblemType() {
@@ -33,4 +84,8 @@ public abstract class SpotbugsCheck implements Check {
     public LocalizedMessage getExplanation() {
         return explanation;
     }
+
+    public Effort getEffort() {
+        return effort;
+    }
 }
@@ -3,6 +3,7 @@ package de.firemage.autograder.core.spotbugs;
 import de.firemage.autograder.core.CodePosition;
 import de.firemage.autograder.core.ProblemImpl;
 import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.SourcePath;
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.SourceLineAnnotation;
 
@@ -21,7 +22,9 @@ class SpotbugsInCodeProblem extends ProblemImpl {
     private static CodePosition mapLineAnnotation(SourceLineAnnotation annotation, SourceInfo sourceInfo) {
         return new CodePosition(
             sourceInfo,
-            sourceInfo.getCompilationUnit(Path.of(annotation.getRealSourcePath())).path(),
+            // the project has no source directories, so the path of the source file relative to its package root
+            // is the path in the submission
+            sourceInfo.getCompilationUnit(SourcePath.of(Path.of(annotation.getSourcePath()))).path(),
             annotation.getStartLine(),
             annotation.getEndLine(),
             -1,
@@ -2,17 +2,65 @@ package de.firemage.autograder.core.spotbugs;
 
 import de.firemage.autograder.core.Problem;
 import de.firemage.autograder.core.file.UploadedFile;
+import de.firemage.autograder.core.jfr.LinterEvent;
+import edu.umd.cs.findbugs.BugPattern;
+import edu.umd.cs.findbugs.DetectorFactory;
 import edu.umd.cs.findbugs.DetectorFactoryCollection;
 import edu.umd.cs.findbugs.FindBugs2;
+import edu.umd.cs.findbugs.Plugin;
 import edu.umd.cs.findbugs.Project;
 import edu.umd.cs.findbugs.config.UserPreferences;
+import edu.umd.cs.findbugs.plan.DetectorOrderingConstraint;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class SpotbugsLinter {
+    // debug detectors, these are spamming System.out
+    private static final Set<String> DEBUG_DETECTORS = Set.of("TestingGround", "CheckCalls", "Noise", "ViewCFG");
+
+    // the preferences only depend on the bug patterns and the effort of the checks, each analysis works on its own copy
+    private final Map<DetectorSelection, UserPreferences> userPreferences = new ConcurrentHashMap<>();
+
+    // loading the detectors is expensive, so the reported bug patterns are only collected when a check needs them
+    private static final class ReportedBugPatterns {
+        private static final Set<String> TYPES = collectReportedBugPatterns();
+
+        private static Set<String> collectReportedBugPatterns() {
+            Set<String> result = new HashSet<>();
+            DetectorFactoryCollection.instance().factoryIterator().forEachRemaining(factory -> factory.getReportedBugPatterns()
+                .stream()
+                .map(BugPattern::getType)
+                .forEach(result::add));
+            return Set.copyOf(result);
+        }
+    }
+
+    private record DetectorSelection(Set<String> bugPatterns, SpotbugsCheck.Effort effort) {
+        static DetectorSelection of(List<SpotbugsCheck> checks) {
+            return new DetectorSelection(
+                checks.stream().flatMap(check -> check.getBugPatterns().stream()).collect(Collectors.toUnmodifiableSet()),
+                // the effort applies to the whole analysis, so the check that needs the most decides
+                checks.stream()
+                    .map(SpotbugsCheck::getEffort)
+                    .max(Comparator.naturalOrder())
+                    .orElse(SpotbugsCheck.Effort.DEFAULT)
+            );
+        }
+    }
+
     public List<Problem> lint(UploadedFile file, Path jar, List<SpotbugsCheck> checks) throws IOException, InterruptedException {
+        LinterEvent event = new LinterEvent(file.getSource(), "SpotBugs");
         try (Project project = new Project()) {
             project.addFile(jar.toAbsolutePath().toString());
             InCodeBugReporter reporter = new InCodeBugReporter(project, file.getSource());
@@ -20,26 +68,104 @@ public class SpotbugsLinter {
             try (FindBugs2 findBugs = new FindBugs2()) {
                 findBugs.setBugReporter(reporter);
                 findBugs.setProject(project);
-
-                UserPreferences userPreferences = UserPreferences.createDefaultUserPreferences();
-                userPreferences.setEffort(UserPreferences.EFFORT_DEFAULT);
-                userPreferences.enableAllDetectors(true);
-                // Disable debug detectors (these are spamming System.out)
-                DetectorFactoryCollection collection = DetectorFactoryCollection.instance();
-                userPreferences.enableDetector(collection.getFactory("TestingGround"), false);
-                userPreferences.enableDetector(collection.getFactory("CheckCalls"), false);
-                userPreferences.enableDetector(collection.getFactory("Noise"), false);
-                userPreferences.enableDetector(collection.getFactory("ViewCFG"), false);
-                userPreferences.getFilterSettings().clearAllCategories();
-
-                findBugs.setDetectorFactoryCollection(collection);
-                findBugs.setUserPreferences(userPreferences);
+                findBugs.setDetectorFactoryCollection(DetectorFactoryCollection.instance());
+                findBugs.setUserPreferences(this.getUserPreferences(checks).clone());
                 findBugs.finishSettings();
                 findBugs.execute();
 
-                return reporter.getProblems(checks);
+                List<Problem> problems = reporter.getProblems(checks);
+                event.finish(checks.size(), problems.size());
+                return problems;
+            }
+        }
+
+    }
+
+    UserPreferences getUserPreferences(List<SpotbugsCheck> checks) {
+        return this.userPreferences.computeIfAbsent(DetectorSelection.of(checks), SpotbugsLinter::createUserPreferences);
+    }
+
+    private static UserPreferences createUserPreferences(DetectorSelection selection) {
+        Set<DetectorFactory> detectors = selectDetectors(selection.bugPatterns());
+
+        UserPreferences preferences = UserPreferences.createDefaultUserPreferences();
+        preferences.setEffort(selection.effort().getValue());
+        for (Iterator<DetectorFactory> iterator = DetectorFactoryCollection.instance().factoryIterator(); iterator.hasNext(); ) {
+            DetectorFactory factory = iterator.next();
+            preferences.enableDetector(factory, detectors.contains(factory));
+        }
+        preferences.getFilterSettings().clearAllCategories();
+        return preferences;
+    }
+
+    /**
+     * Ensures that every bug pattern is reported by one of the detectors, so that a typo in a check
+     * is found when the check is created and not during the first analysis.
+     *
+     * @param bugPatterns the types of the bug patterns
+     * @throws IllegalArgumentException if no detector reports one of the bug patterns
+     */
+    static void requireKnownBugPatterns(Collection<String> bugPatterns) {
+        Set<String> unknownPatterns = new HashSet<>(bugPatterns);
+        unknownPatterns.removeAll(ReportedBugPatterns.TYPES);
+        if (!unknownPatterns.isEmpty()) {
+            throw new IllegalArgumentException("No SpotBugs detector reports the bug patterns " + unknownPatterns);
+        }
+    }
+
+    /**
+     * Selects the detectors that can report one of the given bug patterns, the detectors that only collect facts
+     * for other detectors and the detectors that have to run before the selected ones.
+     *
+     * @param bugPatterns the types of the bug patterns
+     * @return the selected detectors without the debug detectors
+     * @throws IllegalArgumentException if no detector reports one of the bug patterns
+     */
+    static Set<DetectorFactory> selectDetectors(Set<String> bugPatterns) {
+        requireKnownBugPatterns(bugPatterns);
+        DetectorFactoryCollection collection = DetectorFactoryCollection.instance();
+
+        List<DetectorFactory> factories = new ArrayList<>();
+        collection.factoryIterator().forEachRemaining(factories::add);
+
+        Set<DetectorFactory> result = new HashSet<>();
+        for (DetectorFactory factory : factories) {
+            Set<String> reportedPatterns = factory.getReportedBugPatterns()
+                .stream()
+                .map(BugPattern::getType)
+                .collect(Collectors.toSet());
+
+            if (reportedPatterns.isEmpty() || reportedPatterns.stream().anyMatch(bugPatterns::contains)) {
+                result.add(factory);
+            }
+        }
+
+        // SpotBugs would enable a missing detector that has to run before a selected one on its own, but it does
+        // so on the shared factory, which suppresses the bugs of that detector in every later analysis
+        List<DetectorOrderingConstraint> constraints = new ArrayList<>();
+        for (Plugin plugin : collection.plugins()) {
+            plugin.interPassConstraintIterator().forEachRemaining(constraints::add);
+            plugin.intraPassConstraintIterator().forEachRemaining(constraints::add);
+        }
+        constraints.removeIf(constraint -> !constraint.isSingleSource());
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (DetectorOrderingConstraint constraint : constraints) {
+                if (result.stream().noneMatch(constraint.getLater()::selectFactory)) {
+                    continue;
+                }
+
+                for (DetectorFactory factory : factories) {
+                    if (constraint.getEarlier().selectFactory(factory) && result.add(factory)) {
+                        changed = true;
+                    }
+                }
             }
         }
 
+        result.removeIf(factory -> DEBUG_DETECTORS.contains(factory.getShortName()));
+        return result;
     }
 }
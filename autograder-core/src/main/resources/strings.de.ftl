@@ -15,12 +15,16 @@ linter-spotbugs = SpotBugs
 linter-pmd = PMD
 linter-integrated = Integrated Analysis
 linter-error-prone = error-prone
+linter-plagiarism = Plagiatserkennung
 
 merged-problems = {$message} Weitere Probleme in {$locations}.
 
 # CPD
 duplicate-code = Duplizierter Code ({$lines}): {$first-path}:{$first-start}-{$first-end} und {$second-path}:{$second-start}-{$second-end}
 
+# Plagiarism
+shared-code = Code stimmt mit der Abgabe {$other-submission} überein ({$lines} Zeilen), siehe {$other-path}:{$other-start}-{$other-end}
+
 # API
 
 suggest-replacement = Verwende '{$suggestion}' statt '{$original}'.
@@ -15,12 +15,16 @@ linter-spotbugs = SpotBugs
 linter-pmd = PMD
 linter-integrated = Integrated Analysis
 linter-error-prone = error-prone
+linter-plagiarism = Plagiarism Detection
 
 merged-problems = {$message} Other problems in {$locations}.
 
 # CPD
 duplicate-code = Duplicated code ({$lines}): {$first-path}:{$first-start}-{$first-end} and {$second-path}:{$second-start}-{$second-end}
 
+# Plagiarism
+shared-code = Code shared with the submission {$other-submission} ({$lines} lines), see {$other-path}:{$other-start}-{$other-end}
+
 # API
 
 suggest-replacement = Use '{$suggestion}' instead of '{$original}'.
@@ -0,0 +1,40 @@
+package de.firemage.autograder.core;
+
+import de.firemage.autograder.core.check.AnalysisRequirement;
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.check.comment.TodoComment;
+import de.firemage.autograder.core.check.general.UncheckedTypeCast;
+import de.firemage.autograder.core.check.naming.VariablesHaveDescriptiveNamesCheck;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TestAnalysisPlan {
+    @Test
+    void testChecksWithoutRequirements() {
+        AnalysisPlan plan = AnalysisPlan.forChecks(List.of(new VariablesHaveDescriptiveNamesCheck()));
+
+        assertEquals(Set.of(), plan.requirements());
+    }
+
+    @Test
+    void testRequirementsOfAllChecksAreCombined() {
+        AnalysisPlan plan = AnalysisPlan.forChecks(List.of(
+            new VariablesHaveDescriptiveNamesCheck(),
+            new TodoComment(),
+            new UncheckedTypeCast()
+        ));
+
+        assertEquals(Set.of(AnalysisRequirement.COMMENTS, AnalysisRequirement.COMPILER_DIAGNOSTICS), plan.requirements());
+    }
+
+    @Test
+    void testCheckWithoutAnnotationNeedsEverything() {
+        Check check = () -> new LocalizedMessage("test");
+
+        assertEquals(AnalysisPlan.full(), AnalysisPlan.forChecks(List.of(new TodoComment(), check)));
+    }
+}
@@ -0,0 +1,605 @@
+package de.firemage.autograder.core;
+
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.compiler.CompilationFailureException;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.dynamic.DynamicAnalysis;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.CompilationUnit;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import de.firemage.autograder.core.file.UploadedFile;
+import de.firemage.autograder.core.integrated.IntegratedCheck;
+import de.firemage.autograder.core.integrated.SpoonUtil;
+import de.firemage.autograder.core.integrated.StaticAnalysis;
+import de.firemage.autograder.core.plagiarism.PlagiarismIndex;
+import de.firemage.autograder.core.plagiarism.SharedCodeProblem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spoon.compiler.SpoonResource;
+import spoon.processing.AbstractProcessor;
+import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.declaration.CtMethod;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestLinter {
+    private static final List<ProblemType> PROBLEM_TYPES = List.of(
+        ProblemType.UNUSED_IMPORT,
+        ProblemType.UNUSED_CODE_ELEMENT,
+        ProblemType.SINGLE_LETTER_LOCAL_NAME,
+        ProblemType.FOR_CAN_BE_FOREACH
+    );
+
+    private static SourceInfo makeSubmission(int index) {
+        return StringSourceInfo.fromSourceString(
+            JavaVersion.JAVA_17,
+            "Test",
+            """
+            import java.util.List;
+
+            public class Test {
+                private static int unused%d;
+
+                public static void main(String[] args) {
+                    int[] values = {1, 2, %d};
+                    for (int i = 0; i < values.length; i++) {
+                        int x = values[i];
+                        System.out.println(x);
+                    }
+                }
+            }
+            """.formatted(index, index)
+        );
+    }
+
+    private static List<String> describe(List<Problem> problems) {
+        return problems.stream()
+            .map(problem -> problem.getProblemType() + " at " + problem.getDisplayLocation())
+            .toList();
+    }
+
+    @Test
+    void testBatchReportsSameProblemsAsSingleSubmissions() throws LinterException, IOException, InterruptedException {
+        List<SourceInfo> submissions = IntStream.range(0, 4).mapToObj(TestLinter::makeSubmission).toList();
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(2)
+                .build();
+
+            Map<SourceInfo, List<Problem>> expected = new IdentityHashMap<>();
+            for (SourceInfo submission : submissions) {
+                try (UploadedFile file = UploadedFile.build(submission, tempLocation, status -> {}, null)) {
+                    expected.put(submission, linter.checkFile(file, null, PROBLEM_TYPES, status -> {}));
+                }
+            }
+
+            List<SubmissionResult> results = new ArrayList<>();
+            linter.checkSubmissions(submissions.stream(), null, PROBLEM_TYPES, 2, results::add);
+
+            assertEquals(submissions.size(), results.size());
+            for (SubmissionResult result : results) {
+                assertFalse(result.failed(), () -> "Submission failed: " + result.thrownException());
+                assertFalse(result.problems().isEmpty());
+                assertEquals(describe(expected.get(result.source())), describe(result.problems()));
+            }
+        }
+    }
+
+    @Test
+    void testFailedSubmissionDoesNotAbortBatch() throws IOException, InterruptedException {
+        SourceInfo invalidSubmission = StringSourceInfo.fromSourceString(
+            JavaVersion.JAVA_17,
+            "Test",
+            "public class Test { void broken( }"
+        );
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .build();
+
+            List<SubmissionResult> results = new ArrayList<>();
+            linter.checkSubmissions(
+                List.of(invalidSubmission, makeSubmission(0)).stream(),
+                null,
+                PROBLEM_TYPES,
+                1,
+                results::add
+            );
+
+            assertEquals(2, results.size());
+            assertTrue(results.get(0).failed());
+            assertInstanceOf(CompilationFailureException.class, results.get(0).thrownException());
+            assertFalse(results.get(1).failed());
+        }
+    }
+
+    @Test
+    void testErrorOfSubmissionIsReported() throws IOException, InterruptedException {
+        SourceInfo submission = makeSubmission(0);
+        NoClassDefFoundError error = new NoClassDefFoundError("a class needed by the submission");
+        SourceInfo brokenSubmission = new SourceInfo() {
+            @Override
+            public List<CompilationUnit> compilationUnits() {
+                throw error;
+            }
+
+            @Override
+            public SourceInfo copyTo(Path target) {
+                throw error;
+            }
+
+            @Override
+            public SpoonResource getSpoonResource() {
+                return submission.getSpoonResource();
+            }
+
+            @Override
+            public Path path() {
+                return submission.path();
+            }
+
+            @Override
+            public JavaVersion getVersion() {
+                return submission.getVersion();
+            }
+        };
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .build();
+
+            List<SubmissionResult> results = new ArrayList<>();
+            linter.checkSubmissions(Stream.of(brokenSubmission, submission), null, PROBLEM_TYPES, 1, results::add);
+
+            assertEquals(2, results.size());
+            assertTrue(results.get(0).failed());
+            assertSame(error, results.get(0).thrownException().getCause());
+            assertFalse(results.get(1).failed());
+        }
+    }
+
+    private static SourceInfo makeCopiedSubmission(String field, String parameter) {
+        return StringSourceInfo.fromSourceString(
+            JavaVersion.JAVA_17,
+            "Inventory",
+            """
+            import java.util.ArrayList;
+            import java.util.List;
+
+            public class Inventory {
+                private final List<String> %1$s = new ArrayList<>();
+
+                public boolean add(String %2$s, int count) {
+                    if (%2$s == null || %2$s.isBlank() || count <= 0) {
+                        return false;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        this.%1$s.add(%2$s.trim());
+                    }
+                    return true;
+                }
+
+                public int remove(String %2$s) {
+                    int removed = 0;
+                    while (this.%1$s.remove(%2$s)) {
+                        removed++;
+                    }
+                    if (removed > 0) {
+                        System.out.println("Removed " + removed + " items");
+                    }
+                    return removed;
+                }
+            }
+            """.formatted(field, parameter)
+        );
+    }
+
+    @Test
+    void testResubmissionsAreNotReportedAsSharedCode(@TempDir Path directory)
+        throws IOException, InterruptedException {
+        try (TempLocation tempLocation = TempLocation.random();
+             PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .plagiarismIndex(index)
+                .build();
+
+            List<String> names = List.of("first", "second", "third");
+            List<SourceInfo> submissions = List.of(
+                makeCopiedSubmission("items", "item"),
+                makeSubmission(0),
+                makeCopiedSubmission("storage", "name")
+            );
+
+            // checking the same batch again replaces the submissions in the index, the threshold for template code
+            // is not reached and a submission is not compared with its earlier copy
+            for (int run = 0; run < 12; run++) {
+                List<SubmissionResult> results = new ArrayList<>();
+                linter.checkSubmissions(
+                    submissions.stream(),
+                    source -> names.get(submissions.indexOf(source)),
+                    null,
+                    List.of(ProblemType.SHARED_CODE),
+                    1,
+                    results::add
+                );
+
+                assertEquals(3, index.size());
+                List<List<String>> sharedWith = results.stream()
+                    .map(result -> result.problems()
+                        .stream()
+                        .map(problem -> ((SharedCodeProblem) problem).getSharedCode().otherSubmission())
+                        .toList())
+                    .toList();
+                assertEquals(List.of(run == 0 ? List.of() : List.of("third"), List.of(), List.of("first")), sharedWith);
+            }
+        }
+    }
+
+    @Test
+    void testBatchReportsCodeSharedWithOtherSubmissions(@TempDir Path directory)
+        throws IOException, InterruptedException {
+        try (TempLocation tempLocation = TempLocation.random();
+             PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .plagiarismIndex(index)
+                .build();
+
+            List<String> names = List.of("first", "second", "third");
+            List<SourceInfo> submissions = List.of(
+                makeCopiedSubmission("items", "item"),
+                makeSubmission(0),
+                makeCopiedSubmission("storage", "name")
+            );
+
+            List<SubmissionResult> results = new ArrayList<>();
+            linter.checkSubmissions(
+                submissions.stream(),
+                source -> names.get(submissions.indexOf(source)),
+                null,
+                List.of(ProblemType.SHARED_CODE),
+                1,
+                results::add
+            );
+
+            assertEquals(3, index.size());
+            assertEquals(3, results.size());
+            // only the later copy reports the code, the earlier one has been checked before the copy was added
+            assertEquals(List.of(), results.get(0).problems());
+            assertEquals(List.of(), results.get(1).problems());
+
+            List<Problem> problems = results.get(2).problems();
+            assertEquals(1, problems.size());
+            assertEquals(ProblemType.SHARED_CODE, problems.get(0).getProblemType());
+            String message = linter.translateMessage(problems.get(0).getExplanation());
+            assertTrue(message.contains("first") && message.contains("Inventory.java"), message);
+        }
+    }
+
+    @Test
+    void testBatchWithPlagiarismIndexNeedsNames(@TempDir Path directory) throws IOException {
+        try (TempLocation tempLocation = TempLocation.random();
+             PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .plagiarismIndex(index)
+                .build();
+
+            assertThrows(IllegalArgumentException.class, () -> linter.checkSubmissions(
+                Stream.of(makeSubmission(0)),
+                null,
+                List.of(ProblemType.SHARED_CODE),
+                1,
+                result -> {}
+            ));
+        }
+    }
+
+    @Test
+    void testMetricsAreRecorded() throws LinterException, IOException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .build();
+
+            LinterMetrics metrics = new LinterMetrics();
+            List<Problem> problems = linter.checkSource(makeSubmission(0), null, PROBLEM_TYPES, status -> {}, metrics);
+            assertFalse(problems.isEmpty());
+
+            List<String> stages = metrics.getStages().stream().map(LinterMetrics.Measurement::name).toList();
+            assertTrue(stages.contains(LinterMetrics.Stage.COMPILATION.name()), () -> "Stages: " + stages);
+            assertTrue(stages.contains(LinterMetrics.Stage.MODEL_BUILD.name()), () -> "Stages: " + stages);
+            assertTrue(metrics.getModelSize() > 0);
+
+            assertFalse(metrics.getChecks().isEmpty());
+            for (LinterMetrics.Measurement measurement : metrics.getChecks()) {
+                assertTrue(measurement.wallTimeNanos() >= 0);
+                assertTrue(measurement.problems() >= 0);
+            }
+
+            int reported = metrics.getChecks().stream().mapToInt(LinterMetrics.Measurement::problems).sum()
+                + metrics.getStages().stream().mapToInt(measurement -> Math.max(measurement.problems(), 0)).sum();
+            assertTrue(reported >= problems.size());
+        }
+    }
+
+    @Test
+    void testErrorProneStageIsOnlyMeasuredByWallTime() throws LinterException, IOException {
+        SourceInfo submission = StringSourceInfo.fromSourceString(JavaVersion.JAVA_17, "Test", """
+            import java.util.ArrayList;
+            import java.util.List;
+
+            public class Test {
+                public static void main(String[] args) {
+                    List<String> values = new ArrayList<>() {{
+                        add("a");
+                    }};
+                    System.out.println(values);
+                }
+            }
+            """);
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .build();
+
+            LinterMetrics metrics = new LinterMetrics();
+            List<Problem> problems = linter.checkSource(
+                submission,
+                null,
+                List.of(ProblemType.DOUBLE_BRACE_INITIALIZATION),
+                status -> {},
+                metrics
+            );
+            assertEquals(1, problems.size());
+
+            // the work is done by a worker JVM, the calling thread only waits for it
+            LinterMetrics.Measurement measurement = metrics.getStages()
+                .stream()
+                .filter(stage -> stage.name().equals(LinterMetrics.Stage.ERROR_PRONE.name()))
+                .findFirst()
+                .orElseThrow();
+            assertTrue(measurement.wallTimeNanos() > 0);
+            assertEquals(-1, measurement.cpuTimeNanos());
+            assertEquals(-1, measurement.allocatedBytes());
+            assertEquals(1, measurement.problems());
+        }
+    }
+
+    @Test
+    void testSinkReceivesAllProblems() throws LinterException, IOException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(2)
+                .maxProblemsPerCheck(1)
+                .build();
+
+            List<Problem> streamedProblems = new ArrayList<>();
+            List<LinterMetrics.Stage> completedStages = new ArrayList<>();
+            ProblemSink sink = new ProblemSink() {
+                @Override
+                public void acceptProblems(List<Problem> problems) {
+                    assertFalse(problems.isEmpty());
+                    streamedProblems.addAll(problems);
+                }
+
+                @Override
+                public void stageCompleted(LinterMetrics.Stage stage) {
+                    completedStages.add(stage);
+                }
+            };
+
+            List<Problem> problems;
+            try (UploadedFile file = UploadedFile.build(makeSubmission(0), tempLocation, status -> {}, null)) {
+                problems = linter.checkFile(
+                    file,
+                    null,
+                    PROBLEM_TYPES,
+                    linter.findChecksForProblemTypes(PROBLEM_TYPES),
+                    status -> {},
+                    new LinterMetrics(),
+                    sink
+                );
+            }
+
+            assertFalse(problems.isEmpty());
+            assertEquals(
+                describe(problems).stream().sorted().toList(),
+                describe(streamedProblems).stream().sorted().toList()
+            );
+            assertEquals(List.of(LinterMetrics.Stage.PMD), completedStages);
+        }
+    }
+
+    @Test
+    void testTimedOutChecksAreReported() throws IOException, InterruptedException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .checkTimeout(Duration.ZERO)
+                .build();
+
+            List<SubmissionResult> results = new ArrayList<>();
+            linter.checkSubmissions(Stream.of(makeSubmission(0)), null, PROBLEM_TYPES, 1, results::add);
+
+            assertEquals(1, results.size());
+            SubmissionResult result = results.get(0);
+            assertFalse(result.failed(), () -> "Submission failed: " + result.thrownException());
+            assertFalse(result.timedOutChecks().isEmpty());
+            // the problems of PMD are not affected by the timeout
+            assertTrue(result.problems().stream().anyMatch(problem -> problem.getProblemType() == ProblemType.UNUSED_IMPORT));
+            assertTrue(result.problems().stream().noneMatch(problem -> problem.getProblemType() == ProblemType.UNUSED_CODE_ELEMENT));
+        }
+    }
+
+    /**
+     * Reports every local variable, the explanation is created eagerly or lazily.
+     */
+    private static final class LocalVariableCheck extends IntegratedCheck {
+        private final boolean isLazy;
+        private final List<Boolean> usefulness = new ArrayList<>();
+        private int explanations;
+
+        private LocalVariableCheck(boolean isLazy) {
+            this.isLazy = isLazy;
+        }
+
+        private Translatable explain(CtLocalVariable<?> ctLocalVariable) {
+            this.explanations += 1;
+            return new LocalizedMessage("variable-should-be", Map.of(
+                "variable", ctLocalVariable.getSimpleName(),
+                "suggestion", ctLocalVariable.prettyprint()
+            ));
+        }
+
+        @Override
+        protected void check(StaticAnalysis staticAnalysis, DynamicAnalysis dynamicAnalysis) {
+            staticAnalysis.processWith(new AbstractProcessor<CtLocalVariable<?>>() {
+                @Override
+                public void process(CtLocalVariable<?> ctLocalVariable) {
+                    usefulness.add(isDistinctProblemUseful(ProblemType.SINGLE_LETTER_LOCAL_NAME));
+                    if (isLazy) {
+                        addLocalProblem(ctLocalVariable, () -> explain(ctLocalVariable), ProblemType.SINGLE_LETTER_LOCAL_NAME);
+                    } else {
+                        addLocalProblem(ctLocalVariable, explain(ctLocalVariable), ProblemType.SINGLE_LETTER_LOCAL_NAME);
+                    }
+                }
+            });
+        }
+    }
+
+    @Test
+    void testProblemsBeyondTheLimitAreNotExplained() throws LinterException, IOException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .maxProblemsPerCheck(2)
+                .build();
+
+            Map<Boolean, List<String>> messages = new HashMap<>();
+            for (boolean isLazy : List.of(false, true)) {
+                LocalVariableCheck check = new LocalVariableCheck(isLazy);
+                List<Problem> problems;
+                try (UploadedFile file = UploadedFile.build(makeSubmission(0), tempLocation, status -> {}, null)) {
+                    problems = linter.checkFile(file, null, List.of(ProblemType.SINGLE_LETTER_LOCAL_NAME), List.of(check), status -> {});
+                }
+
+                // the submission has the local variables values, i and x
+                assertEquals(List.of(true, true, false), check.usefulness);
+                assertEquals(isLazy ? 2 : 3, check.explanations);
+                assertEquals(2, problems.size());
+                assertInstanceOf(MultiInCodeProblem.class, problems.get(1));
+                messages.put(isLazy, problems.stream()
+                    .map(problem -> problem.getDisplayLocation() + ": " + linter.translateMessage(problem.getExplanation()))
+                    .toList());
+            }
+
+            assertEquals(messages.get(false), messages.get(true));
+        }
+    }
+
+    /**
+     * Asks whether the methods are overriding and for their uses, which would temporarily remove the bodies of the
+     * overridden methods if spoon was asked directly, and records whether a method without a body was seen.
+     */
+    private static final class OverridingCheck extends IntegratedCheck {
+        private final AtomicInteger missingBodies;
+
+        private OverridingCheck(AtomicInteger missingBodies) {
+            this.missingBodies = missingBodies;
+        }
+
+        @Override
+        protected void check(StaticAnalysis staticAnalysis, DynamicAnalysis dynamicAnalysis) {
+            for (int i = 0; i < 200; i++) {
+                for (CtMethod<?> ctMethod : staticAnalysis.getElements(CtMethod.class)) {
+                    SpoonUtil.isOverriddenMethod(ctMethod);
+                    SpoonUtil.findUses(ctMethod);
+                    if (ctMethod.getBody() == null) {
+                        this.missingBodies.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testChecksOfOneModelDoNotChangeIt() throws LinterException, IOException {
+        SourceInfo submission = StringSourceInfo.fromSourceString(
+            JavaVersion.JAVA_17,
+            "Test",
+            """
+            public class Test extends Base {
+                @Override
+                public int value() {
+                    return super.value() + 1;
+                }
+
+                @Override
+                public String toString() {
+                    return "Test";
+                }
+            }
+
+            class Base {
+                public int value() {
+                    return 1;
+                }
+            }
+            """
+        );
+
+        AtomicInteger missingBodies = new AtomicInteger();
+        List<Check> checks = IntStream.range(0, 8)
+            .<Check>mapToObj(i -> new OverridingCheck(missingBodies))
+            .toList();
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(4)
+                .build();
+
+            // the guard fails the check if it changed the model, even if the change was reverted
+            try (UploadedFile file = UploadedFile.build(submission, tempLocation, status -> {}, null)) {
+                linter.checkFile(file, null, List.of(), checks, status -> {});
+            }
+        }
+
+        assertEquals(0, missingBodies.get());
+    }
+}
@@ -75,6 +75,8 @@ class TestLocalizedStrings {
         "duplicate-code",
         "status-error-prone",
         "linter-error-prone",
+        "linter-plagiarism",
+        "shared-code",
         "merged-problems"
     );
 
@@ -0,0 +1,202 @@
+package de.firemage.autograder.core.benchmark;
+
+import de.firemage.autograder.core.Linter;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import de.firemage.autograder.core.file.UploadedFile;
+import de.firemage.autograder.core.pmd.PMDCheck;
+import de.firemage.autograder.core.pmd.PMDLinter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the latency and throughput of the linter. The benchmarks are not run with the other tests,
+ * run them with {@code mvn test -Dtest=Benchmarks -Dautograder.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "autograder.benchmark", matches = "true")
+class Benchmarks {
+    private static final int WARMUP_RUNS = 5;
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs the action a few times to warm up the JVM and then measures it.
+     *
+     * @param runs how often the action is measured
+     * @param action the action to measure
+     * @return the median time of a run in milliseconds
+     */
+    private static double measure(int runs, Action action) throws Exception {
+        long[] nanos = new long[runs];
+        // the linter verifies the model after every check if it runs on a junit thread, which would distort the result
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    action.run();
+                }
+
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    action.run();
+                    nanos[i] = System.nanoTime() - start;
+                }
+            } catch (Exception exception) {
+                failure.set(exception);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        Arrays.sort(nanos);
+        return nanos[runs / 2] / 1_000_000.0;
+    }
+
+    private static SourceInfo makeSubmission(int index) {
+        return StringSourceInfo.fromSourceString(
+            JavaVersion.JAVA_17,
+            "Test",
+            """
+            import java.util.List;
+
+            public class Test {
+                private static int unused%d;
+
+                public static void main(String[] args) {
+                    int[] values = {1, 2, %d};
+                    for (int i = 0; i < values.length; i++) {
+                        int x = values[i];
+                        System.out.println(x);
+                    }
+                }
+            }
+            """.formatted(index, index)
+        );
+    }
+
+    /**
+     * Compares the end-to-end latency of a small submission, where the overhead of the scheduler is most visible,
+     * on the single-threaded path with the latency on the pool.
+     */
+    @Test
+    void benchmarkSmallSubmissionLatency() throws Exception {
+        List<ProblemType> problemTypes = List.of(
+            ProblemType.UNUSED_CODE_ELEMENT,
+            ProblemType.SINGLE_LETTER_LOCAL_NAME,
+            ProblemType.FOR_CAN_BE_FOREACH
+        );
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            double singleThreadedMillis = measureSmallSubmission(tempLocation, 1, problemTypes);
+            double poolMillis = measureSmallSubmission(tempLocation, 4, problemTypes);
+
+            System.out.printf(
+                "Small submission: single-threaded %.1fms, pool (4 threads) %.1fms%n",
+                singleThreadedMillis,
+                poolMillis
+            );
+        }
+    }
+
+    private static double measureSmallSubmission(
+        TempLocation tempLocation,
+        int threads,
+        List<ProblemType> problemTypes
+    ) throws Exception {
+        Linter linter = Linter.builder(Locale.US)
+            .tempLocation(tempLocation)
+            .threads(threads)
+            .build();
+
+        return measure(20, () -> {
+            try (UploadedFile file = UploadedFile.build(makeSubmission(0), tempLocation, status -> {}, null)) {
+                linter.checkFile(file, null, problemTypes, status -> {});
+            }
+        });
+    }
+
+    /**
+     * Compares the throughput of checking the submissions one after another with the batch API.
+     */
+    @Test
+    void benchmarkBatchThroughput() throws Exception {
+        int submissionCount = 20;
+        int parallelism = Math.max(Runtime.getRuntime().availableProcessors() / 2, 1);
+        List<ProblemType> problemTypes = List.of(ProblemType.values());
+        List<SourceInfo> submissions = IntStream.range(0, submissionCount).mapToObj(Benchmarks::makeSubmission).toList();
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(0)
+                .build();
+
+            double sequentialMillis = measure(3, () -> {
+                for (SourceInfo submission : submissions) {
+                    try (UploadedFile file = UploadedFile.build(submission, tempLocation, status -> {}, null)) {
+                        linter.checkFile(file, null, problemTypes, status -> {});
+                    }
+                }
+            });
+            double batchMillis = measure(
+                3,
+                () -> linter.checkSubmissions(submissions.stream(), null, problemTypes, parallelism, result -> {})
+            );
+
+            System.out.printf(
+                "%d submissions: sequential %.1f/min, batch (parallelism %d) %.1f/min%n",
+                submissionCount,
+                submissionCount * 60_000.0 / sequentialMillis,
+                parallelism,
+                submissionCount * 60_000.0 / batchMillis
+            );
+        }
+    }
+
+    /**
+     * Compares the time of the PMD stage per submission, when a new linter is created for every submission
+     * and when one linter is shared by all submissions.
+     */
+    @Test
+    void benchmarkSharedPMDLinter() throws Exception {
+        List<PMDCheck> checks = new ArrayList<>();
+        for (Check check : Linter.builder(Locale.US).build().findChecksForProblemTypes(List.of(ProblemType.values()))) {
+            if (check instanceof PMDCheck pmdCheck) {
+                checks.add(pmdCheck);
+            }
+        }
+
+        try (TempLocation tempLocation = TempLocation.random();
+             UploadedFile file = UploadedFile.build(makeSubmission(0), tempLocation, status -> {}, null)) {
+            double newLinterMillis = measure(50, () -> new PMDLinter(null).lint(file, checks));
+
+            PMDLinter linter = new PMDLinter(null);
+            double sharedLinterMillis = measure(50, () -> linter.lint(file, checks));
+
+            System.out.printf(
+                "%d PMD checks: new linter %.2fms/submission, shared linter %.2fms/submission%n",
+                checks.size(),
+                newLinterMillis,
+                sharedLinterMillis
+            );
+        }
+    }
+}
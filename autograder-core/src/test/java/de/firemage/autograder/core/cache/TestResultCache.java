@@ -0,0 +1,205 @@
+package de.firemage.autograder.core.cache;
+
+import de.firemage.autograder.core.CodePosition;
+import de.firemage.autograder.core.Linter;
+import de.firemage.autograder.core.LinterException;
+import de.firemage.autograder.core.LocalizedMessage;
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.ProblemImpl;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.Check;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.SourcePath;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestResultCache {
+    private static final List<ProblemType> PROBLEM_TYPES = List.of(
+        ProblemType.UNUSED_IMPORT,
+        ProblemType.SINGLE_LETTER_LOCAL_NAME
+    );
+
+    private static final String SOURCE = """
+        import java.util.List;
+
+        public class Test {
+            public static void main(String[] args) {
+                int x = args.length;
+                System.out.println(x);
+            }
+        }
+        """;
+
+    private static SourceInfo makeSource(String code) {
+        return StringSourceInfo.fromSourceString(JavaVersion.JAVA_17, "Test", code);
+    }
+
+    private static String computeKey(String code) throws IOException {
+        return ResultCache.computeKey(makeSource(code), PROBLEM_TYPES, -1, Locale.US);
+    }
+
+    private static List<String> describe(Linter linter, List<Problem> problems) {
+        return problems.stream()
+            .map(problem -> "%s %s %s %s".formatted(
+                problem.getProblemType(),
+                problem.getCheck().getClass().getName(),
+                problem.getPosition(),
+                linter.translateMessage(problem.getExplanation())
+            ))
+            .toList();
+    }
+
+    @Test
+    void testResubmissionIsLoadedFromCache(@TempDir Path directory) throws LinterException, IOException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .resultCache(ResultCache.open(directory, 1024 * 1024))
+                .build();
+
+            List<Problem> problems = linter.checkSource(makeSource(SOURCE), null, PROBLEM_TYPES, status -> {});
+            assertFalse(problems.isEmpty());
+
+            // line endings and trailing whitespace do not change the result
+            String resubmission = SOURCE.replace("\n", "  \r\n");
+            List<Problem> cachedProblems = linter.checkSource(makeSource(resubmission), null, PROBLEM_TYPES, status -> {});
+
+            assertTrue(cachedProblems.stream().allMatch(CachedProblem.class::isInstance));
+            assertEquals(describe(linter, problems), describe(linter, cachedProblems));
+        }
+    }
+
+    @Test
+    void testKeyDependsOnCodeAndConfiguration() throws IOException {
+        String key = computeKey(SOURCE);
+
+        assertEquals(key, computeKey(SOURCE.replace("\n", "\t\r\n")));
+        assertNotEquals(key, computeKey(SOURCE.replace("int x", "int y")));
+        assertNotEquals(key, computeKey(SOURCE.replace("    ", "  ")));
+        assertNotEquals(key, ResultCache.computeKey(makeSource(SOURCE), List.of(ProblemType.UNUSED_IMPORT), -1, Locale.US));
+        assertNotEquals(key, ResultCache.computeKey(makeSource(SOURCE), PROBLEM_TYPES, 10, Locale.US));
+        assertNotEquals(key, ResultCache.computeKey(makeSource(SOURCE), PROBLEM_TYPES, -1, Locale.GERMANY));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvicted(@TempDir Path directory) throws IOException {
+        // the entries are evicted until they take at most 90% of the maximum size
+        ResultCache cache = ResultCache.open(directory, 120);
+        SourceInfo source = makeSource(SOURCE);
+
+        cache.store("first", List.of(), Object::toString);
+        cache.store("second", List.of(), Object::toString);
+        Files.setLastModifiedTime(directory.resolve("first.json"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(directory.resolve("second.json"), FileTime.fromMillis(2000));
+
+        // reading an entry marks it as recently used
+        assertTrue(cache.load("first", source, List.of()).isPresent());
+
+        // each empty entry has 33 bytes, so only three of them fit into the cache and the oldest one is evicted
+        cache.store("third", List.of(), Object::toString);
+        cache.store("fourth", List.of(), Object::toString);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> entries = files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(".json"))
+                .sorted()
+                .toList();
+            assertEquals(List.of("first.json", "fourth.json", "third.json"), entries);
+        }
+
+        assertTrue(cache.load("second", source, List.of()).isEmpty());
+    }
+
+    @Test
+    void testEntriesOfEarlierRunsAreCounted(@TempDir Path directory) throws IOException {
+        ResultCache cache = ResultCache.open(directory, 1024);
+        cache.store("first", List.of(), Object::toString);
+        cache.store("second", List.of(), Object::toString);
+        Files.setLastModifiedTime(directory.resolve("first.json"), FileTime.fromMillis(1000));
+
+        // the size of the existing entries is only counted once, when the cache is opened
+        ResultCache smallerCache = ResultCache.open(directory, 90);
+        smallerCache.store("third", List.of(), Object::toString);
+
+        assertFalse(Files.exists(directory.resolve("first.json")));
+        assertTrue(Files.exists(directory.resolve("second.json")));
+        assertTrue(Files.exists(directory.resolve("third.json")));
+    }
+
+    @Test
+    void testStaleTemporaryFilesAreDeleted(@TempDir Path directory) throws IOException {
+        // left behind by writers that crashed before moving them into place
+        Path staleFile = Files.writeString(directory.resolve("stale.tmp"), "{}");
+        Files.setLastModifiedTime(staleFile, FileTime.fromMillis(1000));
+        Path recentFile = Files.writeString(directory.resolve("recent.tmp"), "{}");
+
+        // the directory is swept when the cache is opened
+        ResultCache.open(directory, 1024);
+
+        assertFalse(Files.exists(staleFile));
+        // another process might still be writing it
+        assertTrue(Files.exists(recentFile));
+    }
+
+    @Test
+    void testCorruptEntryIsIgnored(@TempDir Path directory) throws IOException {
+        ResultCache cache = ResultCache.open(directory, 1024);
+        Files.writeString(directory.resolve("broken.json"), "{\"formatVersion\":");
+
+        assertTrue(cache.load("broken", makeSource(SOURCE), List.of()).isEmpty());
+    }
+
+    @Test
+    void testExplanationsAreRestored(@TempDir Path directory) throws IOException {
+        ResultCache cache = ResultCache.open(directory, 1024 * 1024);
+        SourceInfo source = makeSource(SOURCE);
+        Check check = new StubCheck();
+        CodePosition position = new CodePosition(source, SourcePath.of("Test.java"), 1, 1, 1, 22);
+        CodePosition nestedPosition = new CodePosition(source, SourcePath.of("model", "Test.java"), 2, 3, 4, 5);
+
+        LocalizedMessage storableMessage = new LocalizedMessage("status-compiling", Map.of("name", "value", "count", 3));
+        List<Problem> problems = List.of(
+            new ProblemImpl(check, position, storableMessage, ProblemType.UNUSED_IMPORT) {},
+            new ProblemImpl(check, position, bundle -> "translated", ProblemType.UNUSED_IMPORT) {},
+            new ProblemImpl(check, nestedPosition, storableMessage, ProblemType.UNUSED_IMPORT) {}
+        );
+
+        cache.store("entry", problems, translatable -> "stored " + translatable.format(null));
+        List<Problem> cachedProblems = cache.load("entry", source, List.of(check)).orElseThrow();
+
+        assertEquals(storableMessage, cachedProblems.get(0).getExplanation());
+        assertEquals("stored translated", cachedProblems.get(1).getExplanation().format(null));
+        assertSame(check, cachedProblems.get(1).getCheck());
+        assertEquals(position, cachedProblems.get(1).getPosition());
+        assertEquals(nestedPosition, cachedProblems.get(2).getPosition());
+
+        // the problems of checks that no longer exist can not be restored
+        assertTrue(cache.load("entry", source, List.of()).isEmpty());
+    }
+
+    private static final class StubCheck implements Check {
+        @Override
+        public LocalizedMessage getLinter() {
+            return new LocalizedMessage("linter-integrated");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package de.firemage.autograder.core.check;
+
+import de.firemage.autograder.core.ProblemType;
+import org.junit.jupiter.api.Test;
+import org.reflections.Reflections;
+import org.reflections.scanners.Scanners;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestCheckRegistry {
+    @Test
+    void testRegistryContainsAllAnnotatedChecks() {
+        Set<Class<?>> annotatedChecks = new Reflections("de.firemage.autograder.core.check", Scanners.TypesAnnotated)
+            .getTypesAnnotatedWith(ExecutableCheck.class);
+
+        Set<Class<?>> registeredChecks = CheckRegistry.getChecks()
+            .stream()
+            .map(CheckDescriptor::type)
+            .collect(Collectors.toSet());
+
+        assertEquals(annotatedChecks, registeredChecks);
+    }
+
+    @Test
+    void testDescriptorMatchesAnnotation() {
+        for (CheckDescriptor check : CheckRegistry.getChecks()) {
+            ExecutableCheck annotation = check.type().getAnnotation(ExecutableCheck.class);
+
+            assertEquals(Set.of(annotation.reportedProblems()), check.reportedProblems());
+            assertEquals(annotation.enabled(), check.isEnabled());
+            assertInstanceOf(check.type(), check.instantiate());
+        }
+    }
+
+    @Test
+    void testFindChecksForProblemTypes() {
+        List<CheckDescriptor> checks = CheckRegistry.findChecksForProblemTypes(List.of(ProblemType.TODO_COMMENT));
+
+        assertTrue(checks.stream().allMatch(check -> check.reportedProblems().contains(ProblemType.TODO_COMMENT)));
+        assertTrue(checks.stream().anyMatch(check -> check.type().getSimpleName().equals("TodoComment")));
+    }
+}
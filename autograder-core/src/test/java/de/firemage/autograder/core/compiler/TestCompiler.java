@@ -0,0 +1,130 @@
+package de.firemage.autograder.core.compiler;
+
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestCompiler {
+    private static final String UNCHECKED_CAST = "compiler.warn.prob.found.req";
+
+    private static CompilationResult compile(TempLocation tempLocation, String code) throws IOException, CompilationFailureException {
+        SourceInfo source = StringSourceInfo.fromSourceString(JavaVersion.JAVA_17, "Test", code);
+        return new Compiler(tempLocation, JavaVersion.JAVA_17).compileToJar(source).orElseThrow();
+    }
+
+    private static List<CompilationDiagnostic> findUncheckedCasts(CompilationResult result) {
+        return result.diagnostics().stream()
+            .filter(diagnostic -> diagnostic.code().equals(UNCHECKED_CAST))
+            .toList();
+    }
+
+    @Test
+    void testSuppressedWarningsAreReportedAtTheOriginalPosition() throws IOException, CompilationFailureException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            CompilationResult result = compile(tempLocation, """
+                import java.util.List;
+
+                public class Test {
+                    @SuppressWarnings({
+                        "unchecked",
+                        "rawtypes"
+                    })
+                    public static List<String> cast(Object object) {
+                        return (List<String>) object;
+                    }
+                }
+                """);
+
+            List<CompilationDiagnostic> uncheckedCasts = findUncheckedCasts(result);
+            assertEquals(1, uncheckedCasts.size());
+            assertEquals(9, uncheckedCasts.get(0).line());
+            assertEquals(31, uncheckedCasts.get(0).column());
+
+            assertTrue(result.classFiles().containsKey("Test.class"));
+            try (JarFile jar = new JarFile(result.jar().toFile())) {
+                assertNotNull(jar.getEntry("Test.class"));
+            }
+        }
+    }
+
+    @Test
+    void testWarningsAreNotCollectedIfNotRequested() throws IOException, CompilationFailureException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            SourceInfo source = StringSourceInfo.fromSourceString(JavaVersion.JAVA_17, "Test", """
+                import java.util.List;
+
+                public class Test {
+                    public static List<String> cast(Object object) {
+                        return (List<String>) object;
+                    }
+                }
+                """);
+            CompilationResult result = new Compiler(tempLocation, JavaVersion.JAVA_17).compileToJar(source, false).orElseThrow();
+
+            assertEquals(List.of(), findUncheckedCasts(result));
+            assertTrue(result.classFiles().containsKey("Test.class"));
+        }
+    }
+
+    @Test
+    void testClassesAreLoadedFromMemory() throws IOException, CompilationFailureException, ReflectiveOperationException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            CompilationResult result = compile(tempLocation, """
+                package de.example;
+
+                public class Test {
+                    public static String greet() {
+                        return "Hello";
+                    }
+                }
+                """);
+
+            Class<?> type = result.createClassLoader(null).loadClass("de.example.Test");
+            assertEquals("Hello", type.getMethod("greet").invoke(null));
+
+            try (JarInputStream jar = new JarInputStream(new ByteArrayInputStream(result.jarBytes()))) {
+                List<String> entries = new ArrayList<>();
+                for (JarEntry entry = jar.getNextJarEntry(); entry != null; entry = jar.getNextJarEntry()) {
+                    entries.add(entry.getName());
+                }
+
+                assertEquals(List.of("de/", "de/example/", "de/example/Test.class"), entries);
+            }
+        }
+    }
+
+    @Test
+    void testBrokenPatchFallsBackToOriginalCode() throws IOException, CompilationFailureException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            // the ')' in the string ends the match early, so the patched code does not compile
+            CompilationResult result = compile(tempLocation, """
+                import java.util.List;
+
+                public class Test {
+                    @SuppressWarnings({"unchecked", "not a warning)"})
+                    public static List<String> cast(Object object) {
+                        return (List<String>) object;
+                    }
+                }
+                """);
+
+            assertTrue(findUncheckedCasts(result).isEmpty());
+            try (JarFile jar = new JarFile(result.jar().toFile())) {
+                assertNotNull(jar.getEntry("Test.class"));
+            }
+        }
+    }
+}
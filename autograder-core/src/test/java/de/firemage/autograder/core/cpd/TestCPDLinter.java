@@ -0,0 +1,120 @@
+package de.firemage.autograder.core.cpd;
+
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.check.general.CopyPasteCheck;
+import de.firemage.autograder.core.compiler.CompilationFailureException;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.CompilationUnit;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import de.firemage.autograder.core.file.UploadedFile;
+import net.sourceforge.pmd.cpd.CPD;
+import net.sourceforge.pmd.cpd.CPDConfiguration;
+import net.sourceforge.pmd.cpd.JavaLanguage;
+import net.sourceforge.pmd.cpd.SourceCode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestCPDLinter {
+    private static final String METHOD = """
+            public int sum%d(int[] values) {
+                int result = 0;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] > 0) {
+                        result += values[i];
+                    } else {
+                        result -= values[i];
+                    }
+                }
+                System.out.println("The sum is " + result);
+                return result;
+            }
+        """;
+
+    private static final String SHORT_METHOD = """
+            public void print%d(String value) {
+                System.out.println("Value: " + value);
+                System.out.println("Length: " + value.length());
+            }
+        """;
+
+    private static SourceInfo makeSubmission() {
+        return StringSourceInfo.fromSourceStrings(JavaVersion.JAVA_17, Map.of(
+            "Main", "public class Main {\n" + METHOD.formatted(1) + SHORT_METHOD.formatted(1) + "}\n",
+            "Helper", "public class Helper {\n" + METHOD.formatted(2) + SHORT_METHOD.formatted(2) + "}\n"
+        ));
+    }
+
+    private static List<CopyPasteCheck> makeChecks(int... tokenCounts) {
+        return IntStream.of(tokenCounts).mapToObj(CopyPasteCheck::new).toList();
+    }
+
+    private static List<String> describe(List<Problem> problems) {
+        return problems.stream()
+            .map(problem -> ((CopyPasteCheck) problem.getCheck()).getTokenCount() + " " + problem.getExplanation())
+            .sorted()
+            .toList();
+    }
+
+    // the implementation before the submission was tokenized once for all checks,
+    // except that the files are named like in the linter
+    @SuppressWarnings("removal")
+    private static List<Problem> lintWithCPD(UploadedFile file, List<CopyPasteCheck> checks) throws IOException {
+        List<Problem> problems = new ArrayList<>();
+        for (CopyPasteCheck check : checks) {
+            CPDConfiguration cpdConfig = new CPDConfiguration();
+            cpdConfig.setFailOnViolation(false);
+            cpdConfig.setLanguage(new JavaLanguage());
+            cpdConfig.setMinimumTileSize(check.getTokenCount());
+
+            CPD cpd = new CPD(cpdConfig);
+            for (CompilationUnit compilationUnit : file.getSource().compilationUnits()) {
+                cpd.add(new SourceCode(new SourceCode.ReaderCodeLoader(
+                    compilationUnit.toJavaFileObject().openReader(true),
+                    file.getSource().path().resolve(compilationUnit.path().toPath()).toString()
+                )));
+            }
+            cpd.go();
+            cpd.getMatches().forEachRemaining(match -> problems.add(new CPDInCodeProblem(check, match, file.getSource())));
+        }
+
+        return problems;
+    }
+
+    @Test
+    void testSameProblemsAsCPDPerCheck() throws CompilationFailureException, IOException {
+        List<CopyPasteCheck> checks = makeChecks(100, 25, 60);
+
+        try (TempLocation tempLocation = TempLocation.random();
+             UploadedFile file = UploadedFile.build(makeSubmission(), tempLocation, status -> {}, null)) {
+            List<String> expected = describe(lintWithCPD(file, checks));
+            List<String> actual = describe(new CPDLinter().lint(file, checks));
+
+            // the short methods are only reported by the check with the smallest tile size
+            assertTrue(expected.stream().anyMatch(problem -> problem.startsWith("25 ")));
+            assertTrue(expected.stream().anyMatch(problem -> problem.startsWith("60 ")));
+            assertTrue(expected.stream().filter(problem -> problem.startsWith("25 ")).count()
+                > expected.stream().filter(problem -> problem.startsWith("60 ")).count());
+            assertFalse(expected.stream().anyMatch(problem -> problem.startsWith("100 ")));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testNoChecks() throws CompilationFailureException, IOException {
+        try (TempLocation tempLocation = TempLocation.random();
+             UploadedFile file = UploadedFile.build(makeSubmission(), tempLocation, status -> {}, null)) {
+            assertEquals(List.of(), new CPDLinter().lint(file, List.of()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.firemage.autograder.core.errorprone;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestVMLauncher {
+    private static final VMLauncher LAUNCHER = new VMLauncher(List.of(), Optional.empty());
+
+    @Test
+    void testLargeLambdaAndOutputOfTheLambda() throws IOException, InterruptedException {
+        // this would exceed the maximum length of a command line
+        String input = "a".repeat(4 * 1024 * 1024);
+
+        int length = LAUNCHER.runInNewJVM(() -> {
+            // printing must not interfere with the result
+            System.out.println("printed by the lambda");
+            return input.length();
+        }).join();
+
+        assertEquals(input.length(), length);
+    }
+
+    @Test
+    void testResultsAreStreamedWhileTheLambdaRuns(@TempDir Path directory) throws IOException, InterruptedException {
+        String marker = directory.resolve("marker").toString();
+
+        VMLauncher.VMHandle<String> handle = LAUNCHER.streamInNewJVM(sink -> {
+            sink.accept("first");
+            // the lambda only continues after the parent has received the first result
+            while (!Files.exists(Path.of(marker))) {
+                Thread.sleep(10);
+            }
+            sink.accept("second");
+        });
+
+        assertEquals(Optional.of("first"), handle.next());
+        Files.createFile(Path.of(marker));
+        assertEquals(Optional.of("second"), handle.next());
+        assertEquals(Optional.empty(), handle.next());
+    }
+
+    @Test
+    void testFailureIsReported() throws IOException {
+        VMLauncher.VMHandle<String> handle = LAUNCHER.runInNewJVM(() -> {
+            throw new IllegalArgumentException("expected failure");
+        });
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, handle::join);
+        assertTrue(exception.getMessage().contains("expected failure"));
+    }
+}
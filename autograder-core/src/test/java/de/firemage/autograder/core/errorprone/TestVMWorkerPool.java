@@ -0,0 +1,102 @@
+package de.firemage.autograder.core.errorprone;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestVMWorkerPool {
+    private static long workerId() {
+        return ProcessHandle.current().pid();
+    }
+
+    @Test
+    void testWorkersAreReusedAndRecycled() throws IOException, InterruptedException {
+        VMWorkerPool pool = new VMWorkerPool(List.of(), 1, 2);
+
+        long first = pool.run(TestVMWorkerPool::workerId);
+        long second = pool.run(TestVMWorkerPool::workerId);
+        long third = pool.run(TestVMWorkerPool::workerId);
+
+        assertNotEquals(workerId(), first);
+        assertEquals(first, second);
+        // the first worker has completed its two jobs
+        assertNotEquals(second, third);
+    }
+
+    @Test
+    void testFailuresDoNotBreakTheWorker() throws IOException, InterruptedException {
+        VMWorkerPool pool = new VMWorkerPool(List.of(), 1, 10);
+
+        long worker = pool.run(TestVMWorkerPool::workerId);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> pool.run(() -> {
+            throw new IOException("expected failure");
+        }));
+        assertTrue(exception.getMessage().contains("expected failure"));
+
+        assertEquals(worker, pool.run(TestVMWorkerPool::workerId));
+    }
+
+    @Test
+    void testWorkerWithUnreadResultsIsNotReused() throws IOException, InterruptedException {
+        VMWorkerPool pool = new VMWorkerPool(List.of(), 1, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.<Integer>run(sink -> {
+            sink.accept(1);
+            sink.accept(2);
+            sink.accept(3);
+        }, value -> {
+            throw new IllegalArgumentException("expected failure");
+        }));
+
+        // the remaining results of the failed lambda must not be read as the result of the next one
+        assertEquals("next", pool.run(() -> "next"));
+    }
+
+    @Test
+    void testCrashedWorkerIsReplaced() throws IOException, InterruptedException {
+        VMWorkerPool pool = new VMWorkerPool(List.of(), 1, 10);
+
+        assertThrows(IOException.class, () -> pool.run(() -> {
+            Runtime.getRuntime().halt(1);
+            return 0;
+        }));
+
+        assertEquals("still working", pool.run(() -> "still working"));
+    }
+
+    @Test
+    void testErrorsDoNotBreakTheWorker() throws IOException, InterruptedException {
+        VMWorkerPool pool = new VMWorkerPool(List.of(), 1, 10);
+
+        long worker = pool.run(TestVMWorkerPool::workerId);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> pool.run(() -> {
+            throw new StackOverflowError("expected error");
+        }));
+        assertTrue(exception.getMessage().contains("expected error"));
+
+        assertEquals(worker, pool.run(TestVMWorkerPool::workerId));
+    }
+
+    @Test
+    void testClosedPoolStopsIdleWorkers() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        VMWorkerPool pool = new VMWorkerPool(List.of(), 1, 10);
+
+        long worker = pool.run(TestVMWorkerPool::workerId);
+        ProcessHandle process = ProcessHandle.of(worker).orElseThrow();
+        pool.close();
+
+        process.onExit().get(10, TimeUnit.SECONDS);
+        assertFalse(process.isAlive());
+        assertThrows(IllegalStateException.class, () -> pool.run(TestVMWorkerPool::workerId));
+    }
+}
@@ -0,0 +1,61 @@
+package de.firemage.autograder.core.integrated;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestCheckTimeout {
+    @Test
+    void testCheckpointOutsideOfCheck() {
+        CheckTimeout timeout = CheckTimeout.start(Duration.ZERO, Duration.ZERO);
+        assertTrue(timeout.isSubmissionExpired());
+        assertDoesNotThrow(CheckTimeout::checkpoint);
+    }
+
+    @Test
+    void testUnlimited() {
+        CheckTimeout timeout = CheckTimeout.unlimited();
+        assertFalse(timeout.isSubmissionExpired());
+        assertEquals(1, timeout.run(() -> {
+            CheckTimeout.checkpoint();
+            return 1;
+        }));
+    }
+
+    @Test
+    void testCheckExceedsBudget() {
+        CheckTimeout timeout = CheckTimeout.start(Duration.ZERO, null);
+        assertFalse(timeout.isSubmissionExpired());
+        assertThrows(CheckTimeoutException.class, () -> timeout.run(() -> {
+            CheckTimeout.checkpoint();
+            return 1;
+        }));
+
+        // the deadline is only active while the check is running
+        assertDoesNotThrow(CheckTimeout::checkpoint);
+    }
+
+    @Test
+    void testSubmissionDeadlineLimitsCheck() {
+        CheckTimeout timeout = CheckTimeout.start(Duration.ofHours(1), Duration.ZERO);
+        assertThrows(CheckTimeoutException.class, () -> timeout.run(() -> {
+            CheckTimeout.checkpoint();
+            return 1;
+        }));
+    }
+
+    @Test
+    void testCheckWithinBudget() {
+        CheckTimeout timeout = CheckTimeout.start(Duration.ofHours(1), Duration.ofHours(1));
+        assertEquals(1, timeout.run(() -> {
+            CheckTimeout.checkpoint();
+            return 1;
+        }));
+    }
+}
@@ -0,0 +1,151 @@
+package de.firemage.autograder.core.integrated;
+
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.processing.AbstractProcessor;
+import spoon.processing.Processor;
+import spoon.processing.TraversalStrategy;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestElementIndex {
+    private static final String CODE = """
+        import java.util.ArrayList;
+        import java.util.List;
+
+        public class Test {
+            private final List<String> values = new ArrayList<>();
+
+            public void add(String value) {
+                if (value.isEmpty()) {
+                    System.out.println("empty");
+                    return;
+                }
+
+                this.values.add(value.trim());
+            }
+
+            public int count() {
+                return (int) this.values.stream().filter(value -> value.length() > 1).count();
+            }
+        }
+        """;
+
+    private static Launcher buildModel() {
+        Launcher launcher = new Launcher();
+        launcher.addInputResource(new VirtualFile(CODE));
+        launcher.getEnvironment().setComplianceLevel(17);
+        launcher.buildModel();
+        return launcher;
+    }
+
+    private static void assertSameElements(Function<List<CtElement>, Processor<?>> processorFactory) {
+        Launcher launcher = buildModel();
+        CtModel model = launcher.getModel();
+
+        List<CtElement> expected = new ArrayList<>();
+        model.processWith(processorFactory.apply(expected));
+
+        List<CtElement> actual = new ArrayList<>();
+        assertTrue(ElementIndex.of(launcher.getFactory(), model).processWith(processorFactory.apply(actual)));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void testProcessesTheSameElementsAsSpoon() {
+        assertSameElements(elements -> new AbstractProcessor<CtInvocation<?>>() {
+            @Override
+            public void process(CtInvocation<?> ctInvocation) {
+                elements.add(ctInvocation);
+            }
+        });
+
+        assertSameElements(elements -> new AbstractProcessor<CtTypeReference<?>>() {
+            @Override
+            public void process(CtTypeReference<?> ctTypeReference) {
+                elements.add(ctTypeReference);
+            }
+        });
+
+        assertSameElements(elements -> new AbstractProcessor<CtElement>() {
+            @Override
+            public void process(CtElement ctElement) {
+                elements.add(ctElement);
+            }
+        });
+    }
+
+    @Test
+    void testUsesTheTraversalStrategy() {
+        assertSameElements(elements -> new AbstractProcessor<CtStatement>() {
+            @Override
+            public TraversalStrategy getTraversalStrategy() {
+                return TraversalStrategy.PRE_ORDER;
+            }
+
+            @Override
+            public void process(CtStatement ctStatement) {
+                elements.add(ctStatement);
+            }
+        });
+    }
+
+    @Test
+    void testRespectsIsToBeProcessed() {
+        assertSameElements(elements -> new AbstractProcessor<CtStatement>() {
+            @Override
+            public boolean isToBeProcessed(CtStatement ctStatement) {
+                return ctStatement.getParent() instanceof CtStatement;
+            }
+
+            @Override
+            public void process(CtStatement ctStatement) {
+                elements.add(ctStatement);
+            }
+        });
+    }
+
+    @Test
+    void testInterruptStopsProcessing() {
+        assertSameElements(elements -> new AbstractProcessor<CtInvocation<?>>() {
+            @Override
+            public void process(CtInvocation<?> ctInvocation) {
+                elements.add(ctInvocation);
+                if (elements.size() == 2) {
+                    this.interrupt();
+                }
+            }
+        });
+    }
+
+    @Test
+    void testGetElementsMatchesTypeFilter() {
+        Launcher launcher = buildModel();
+        CtModel model = launcher.getModel();
+        ElementIndex index = ElementIndex.of(launcher.getFactory(), model);
+
+        assertEquals(model.getElements(new TypeFilter<>(CtInvocation.class)), index.getElements(CtInvocation.class));
+        assertEquals(model.getElements(new TypeFilter<>(CtStatement.class)), index.getElements(CtStatement.class));
+        // the lists are cached
+        assertSame(index.getElements(CtStatement.class), index.getElements(CtStatement.class));
+    }
+}
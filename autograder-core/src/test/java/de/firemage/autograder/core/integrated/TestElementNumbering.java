@@ -0,0 +1,100 @@
+package de.firemage.autograder.core.integrated;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.CtTypeMember;
+import spoon.reflect.declaration.CtVariable;
+import spoon.reflect.visitor.filter.SameFilter;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestElementNumbering {
+    private static Optional<CtElement> expectedCommonParent(CtElement firstElement, List<CtElement> others) {
+        // this is how the common parent was found before the numbering was introduced
+        Set<CtElement> ctParents = new LinkedHashSet<>();
+        ctParents.add(firstElement);
+        SpoonUtil.parents(firstElement).forEach(ctParents::add);
+
+        for (CtElement other : others) {
+            Set<CtElement> otherParents = new HashSet<>();
+            SpoonUtil.parents(other).forEach(otherParents::add);
+            ctParents.retainAll(otherParents);
+        }
+
+        return ctParents.stream().findFirst();
+    }
+
+    private static List<CtElement> parentChain(CtElement ctElement) {
+        List<CtElement> result = new ArrayList<>();
+        SpoonUtil.parents(ctElement).forEach(result::add);
+        return result;
+    }
+
+    private static void assertSameElements(List<CtElement> expected, List<CtElement> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> testQueriesMatchTheParents() throws URISyntaxException, IOException {
+        Path checkTests = Path.of(TestElementNumbering.class.getResource("/de/firemage/autograder/core/check_tests/").toURI());
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(checkTests)) {
+            files = stream.filter(path -> path.toString().endsWith(".java")).sorted().toList();
+        }
+
+        return files.stream().map(file -> DynamicTest.dynamicTest(checkTests.relativize(file).toString(), () -> {
+            Launcher launcher = new Launcher();
+            launcher.addInputResource(file.toString());
+            launcher.getEnvironment().setComplianceLevel(17);
+            CtModel model = launcher.buildModel();
+
+            List<CtType<?>> types = model.getElements(new TypeFilter<>(CtType.class));
+            for (CtElement ctElement : model.getElements(element -> element instanceof CtVariable<?>
+                || element instanceof CtExecutable<?>
+                || element instanceof CtTypeMember)) {
+                List<CtElement> uses = SpoonUtil.findUses(ctElement);
+
+                Optional<CtElement> commonParent = expectedCommonParent(ctElement, uses);
+                if (commonParent.isPresent()) {
+                    assertSame(commonParent.get(), SpoonUtil.findCommonParent(ctElement, uses));
+                } else {
+                    // spoon sets the parent of some references lazily (e.g. the type of a catch variable),
+                    // which detaches them from the parents, but the numbering still knows where they are
+                    CtElement actual = SpoonUtil.findCommonParent(ctElement, uses);
+                    assertTrue(actual == ctElement || parentChain(ctElement).contains(actual));
+                }
+
+                for (CtType<?> in : types) {
+                    List<CtElement> expected = uses.stream()
+                        .filter(use -> !in.getElements(new SameFilter(use)).isEmpty())
+                        .toList();
+                    assertSameElements(expected, SpoonUtil.findUsesIn(ctElement, in));
+                }
+            }
+        }));
+    }
+}
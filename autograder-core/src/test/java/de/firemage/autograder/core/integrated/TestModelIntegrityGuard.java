@@ -0,0 +1,107 @@
+package de.firemage.autograder.core.integrated;
+
+import de.firemage.autograder.core.LocalizedMessage;
+import de.firemage.autograder.core.check.Check;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtBlock;
+import spoon.reflect.code.CtExpression;
+import spoon.reflect.code.CtReturn;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.path.CtRole;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestModelIntegrityGuard {
+    private static final Check CHECK = () -> new LocalizedMessage("test");
+
+    private Launcher launcher;
+    private ModelIntegrityGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        this.launcher = new Launcher();
+        this.launcher.addInputResource(new VirtualFile("""
+            public class Test {
+                public int value(int a, int b) {
+                    return a + b;
+                }
+            }
+            """));
+        this.launcher.getEnvironment().setComplianceLevel(17);
+        CtModel model = this.launcher.buildModel();
+
+        this.guard = new ModelIntegrityGuard(() -> model.getElements(new TypeFilter<>(CtElement.class)));
+        this.launcher.getEnvironment().setModelChangeListener(this.guard);
+    }
+
+    private <T extends CtElement> T findFirst(Class<T> type) {
+        return this.launcher.getModel().getElements(new TypeFilter<>(type)).get(0);
+    }
+
+    private void runAsCheck(Runnable runnable) {
+        this.guard.enterCheck(CHECK);
+        try {
+            runnable.run();
+        } finally {
+            this.guard.leaveCheck();
+        }
+    }
+
+    @Test
+    void testChangeIsAttributedToCheck() {
+        CtMethod<?> ctMethod = this.findFirst(CtMethod.class);
+        this.runAsCheck(() -> ctMethod.setSimpleName("renamed"));
+
+        List<ModelIntegrityGuard.Change> changes = this.guard.getChanges(CHECK);
+        assertEquals(1, changes.size());
+        assertEquals(ctMethod, changes.get(0).element());
+        assertTrue(this.guard.getOrphans(CHECK).isEmpty());
+    }
+
+    @Test
+    void testChangesOutsideOfChecksAreIgnored() {
+        this.findFirst(CtMethod.class).setSimpleName("renamed");
+
+        assertTrue(this.guard.getChanges(CHECK).isEmpty());
+    }
+
+    @Test
+    void testRevertedChangesAreIgnored() {
+        CtMethod<?> ctMethod = this.findFirst(CtMethod.class);
+        this.runAsCheck(() -> {
+            CtBlock<?> body = ctMethod.getBody();
+            ctMethod.setBody(null);
+            ctMethod.setBody(body);
+        });
+
+        assertTrue(this.guard.getChanges(CHECK).isEmpty());
+        assertEquals(List.of(new ModelIntegrityGuard.Change(ctMethod, CtRole.BODY)), this.guard.getRevertedChanges(CHECK));
+    }
+
+    @Test
+    void testChangesOfClonesAreIgnored() {
+        CtMethod<?> ctMethod = this.findFirst(CtMethod.class);
+        this.runAsCheck(() -> ctMethod.clone().setSimpleName("renamed"));
+
+        assertTrue(this.guard.getChanges(CHECK).isEmpty());
+        assertTrue(this.guard.getOrphans(CHECK).isEmpty());
+    }
+
+    @Test
+    void testMovingElementOutOfModelCreatesOrphan() {
+        CtExpression<?> returned = this.findFirst(CtReturn.class).getReturnedExpression();
+        this.runAsCheck(() -> this.launcher.getFactory().createReturn().setReturnedExpression((CtExpression) returned));
+
+        assertTrue(this.guard.getChanges(CHECK).isEmpty());
+        assertEquals(List.of(returned), this.guard.getOrphans(CHECK));
+    }
+}
@@ -0,0 +1,112 @@
+package de.firemage.autograder.core.integrated;
+
+import de.firemage.autograder.core.LocalizedMessage;
+import de.firemage.autograder.core.check.Check;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestOverridesIndex {
+    private static final Check CHECK = () -> new LocalizedMessage("test");
+
+    private static CtModel buildModel(Launcher launcher) {
+        launcher.getEnvironment().setComplianceLevel(17);
+        return launcher.buildModel();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> testAnswersLikeSpoon() throws URISyntaxException, IOException {
+        Path checkTests = Path.of(TestOverridesIndex.class.getResource("/de/firemage/autograder/core/check_tests/").toURI());
+
+        // the code of the check tests covers a lot of different language features
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(checkTests)) {
+            files = stream.filter(path -> path.toString().endsWith(".java")).sorted().toList();
+        }
+
+        return files.stream().map(file -> DynamicTest.dynamicTest(checkTests.relativize(file).toString(), () -> {
+            Launcher launcher = new Launcher();
+            launcher.addInputResource(file.toString());
+            CtModel model = buildModel(launcher);
+
+            OverridesIndex index = OverridesIndex.of(model);
+            List<CtMethod<?>> methods = model.getElements(new TypeFilter<>(CtMethod.class));
+            for (CtMethod<?> ctMethod : methods) {
+                assertEquals(
+                    !ctMethod.getTopDefinitions().isEmpty(),
+                    index.isOverriding(ctMethod),
+                    () -> "Different answer for %s".formatted(ctMethod)
+                );
+
+                for (CtMethod<?> superMethod : methods) {
+                    assertEquals(
+                        ctMethod.isOverriding(superMethod),
+                        index.isOverriding(ctMethod, superMethod),
+                        () -> "Different answer for %s and %s".formatted(ctMethod, superMethod)
+                    );
+                }
+            }
+        }));
+    }
+
+    @Test
+    void testQueriesDoNotChangeTheModel() {
+        Launcher launcher = new Launcher();
+        launcher.addInputResource(new VirtualFile("""
+            public class Test extends Base {
+                @Override
+                public int value() {
+                    return 2;
+                }
+            }
+
+            class Base {
+                public int value() {
+                    return 1;
+                }
+            }
+            """));
+        CtModel model = buildModel(launcher);
+        List<CtMethod<?>> methods = model.getElements(new TypeFilter<>(CtMethod.class));
+        OverridesIndex.of(model);
+
+        ModelIntegrityGuard guard = new ModelIntegrityGuard(() -> model.getElements(new TypeFilter<>(CtElement.class)));
+        launcher.getEnvironment().setModelChangeListener(guard);
+
+        CtMethod<?> overriding = methods.stream().filter(ctMethod -> ctMethod.getDeclaringType().getSimpleName().equals("Test")).findAny().orElse(null);
+        CtMethod<?> overridden = methods.stream().filter(ctMethod -> ctMethod.getDeclaringType().getSimpleName().equals("Base")).findAny().orElse(null);
+        assertNotNull(overriding);
+        assertNotNull(overridden);
+
+        guard.enterCheck(CHECK);
+        try {
+            assertTrue(SpoonUtil.isOverriddenMethod(overriding));
+            assertFalse(SpoonUtil.isOverriddenMethod(overridden));
+            assertTrue(SpoonUtil.isOverriding(overriding, overridden));
+            assertEquals(List.of(overriding), SpoonUtil.findUses(overridden).stream().filter(CtMethod.class::isInstance).toList());
+        } finally {
+            guard.leaveCheck();
+        }
+
+        assertTrue(guard.getChanges(CHECK).isEmpty());
+        assertTrue(guard.getRevertedChanges(CHECK).isEmpty());
+    }
+}
@@ -0,0 +1,56 @@
+package de.firemage.autograder.core.integrated;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtTypeMember;
+import spoon.reflect.declaration.CtVariable;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TestUsesIndex {
+    private static void assertSameUses(CtModel model, CtElement ctElement) {
+        List<CtElement> expected = model.getElements(new SpoonUtil.UsesFilter(ctElement));
+        List<CtElement> actual = SpoonUtil.findUses(ctElement);
+
+        assertEquals(expected.size(), actual.size(), () -> "Different uses for %s".formatted(ctElement));
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> testFindsTheSameUsesAsTheFilter() throws URISyntaxException, IOException {
+        Path checkTests = Path.of(TestUsesIndex.class.getResource("/de/firemage/autograder/core/check_tests/").toURI());
+
+        // the code of the check tests covers a lot of different language features
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(checkTests)) {
+            files = stream.filter(path -> path.toString().endsWith(".java")).sorted().toList();
+        }
+
+        return files.stream().map(file -> DynamicTest.dynamicTest(checkTests.relativize(file).toString(), () -> {
+            Launcher launcher = new Launcher();
+            launcher.addInputResource(file.toString());
+            launcher.getEnvironment().setComplianceLevel(17);
+            CtModel model = launcher.buildModel();
+
+            for (CtElement ctElement : model.getElements(element -> element instanceof CtVariable<?>
+                || element instanceof CtExecutable<?>
+                || element instanceof CtTypeMember)) {
+                assertSameUses(model, ctElement);
+            }
+        }));
+    }
+}
@@ -0,0 +1,94 @@
+package de.firemage.autograder.core.jfr;
+
+import de.firemage.autograder.core.Linter;
+import de.firemage.autograder.core.LinterException;
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.check.naming.VariablesHaveDescriptiveNamesCheck;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TestEvents {
+    private static final String EVENT_PREFIX = "de.firemage.autograder.";
+
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+        return events.stream()
+            .filter(event -> event.getEventType().getName().equals(EVENT_PREFIX + name))
+            .toList();
+    }
+
+    @Test
+    void testStagesAndChecksAreRecorded(@TempDir Path directory) throws LinterException, IOException {
+        SourceInfo source = StringSourceInfo.fromSourceString(
+            JavaVersion.JAVA_17,
+            "Test",
+            """
+            import java.util.List;
+
+            public class Test {
+                public static void main(String[] args) {
+                    int x = args.length;
+                    System.out.println(x);
+                }
+            }
+            """
+        );
+
+        List<Problem> problems;
+        Path recordingFile = directory.resolve("recording.jfr");
+        try (TempLocation tempLocation = TempLocation.random(); Recording recording = new Recording()) {
+            Linter linter = Linter.builder(Locale.US)
+                .tempLocation(tempLocation)
+                .threads(1)
+                .build();
+
+            for (String name : List.of("Compilation", "ModelBuild", "Check", "Linter")) {
+                recording.enable(EVENT_PREFIX + name);
+            }
+
+            recording.start();
+            problems = linter.checkSource(
+                source,
+                null,
+                List.of(ProblemType.UNUSED_IMPORT, ProblemType.SINGLE_LETTER_LOCAL_NAME),
+                status -> {}
+            );
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        assertFalse(problems.isEmpty());
+        for (RecordedEvent event : events) {
+            assertEquals(source.getName(), event.getString("submission"));
+        }
+
+        assertEquals(1, eventsNamed(events, "Compilation").size());
+        assertEquals(1, eventsNamed(events, "ModelBuild").size());
+
+        List<RecordedEvent> linterEvents = eventsNamed(events, "Linter");
+        assertEquals(1, linterEvents.size());
+        assertEquals("PMD", linterEvents.get(0).getString("linter"));
+        assertEquals(1, linterEvents.get(0).getInt("problems"));
+
+        List<RecordedEvent> checkEvents = eventsNamed(events, "Check");
+        assertEquals(1, checkEvents.size());
+        assertEquals(VariablesHaveDescriptiveNamesCheck.class.getName(), checkEvents.get(0).getClass("check").getName());
+        assertEquals(0, checkEvents.get(0).getInt("problems"));
+    }
+}
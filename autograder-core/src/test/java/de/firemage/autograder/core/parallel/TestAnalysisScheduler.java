@@ -0,0 +1,125 @@
+package de.firemage.autograder.core.parallel;
+
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.ProblemImpl;
+import de.firemage.autograder.core.ProblemType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestAnalysisScheduler {
+    private static Problem problemWithType(ProblemType problemType) {
+        return new ProblemImpl(null, null, null, problemType) {};
+    }
+
+    @Test
+    void testNestedTasksAreCollectedInSubmissionOrder() {
+        for (int threads : List.of(1, 4)) {
+            AnalysisScheduler scheduler = new AnalysisScheduler(threads, null);
+            ProblemType[] types = ProblemType.values();
+
+            scheduler.submitTask((s, reporter) -> {
+                // submit nested tasks that finish in reverse order
+                for (int i = 1; i <= 3; i++) {
+                    int index = i;
+                    s.submitTask((nested, nestedReporter) -> {
+                        Thread.sleep(30L * (3 - index));
+                        nestedReporter.reportProblem(problemWithType(types[index]));
+                    });
+                }
+
+                reporter.reportProblem(problemWithType(types[0]));
+            });
+
+            AnalysisResult result = scheduler.collectProblems();
+
+            assertTrue(!result.failed());
+            assertEquals(
+                IntStream.rangeClosed(0, 3).mapToObj(i -> types[i]).toList(),
+                result.problems().stream().map(Problem::getProblemType).toList()
+            );
+        }
+    }
+
+    @Test
+    void testListenerReceivesProblemsWhenReported() throws InterruptedException {
+        for (int threads : List.of(1, 4)) {
+            AnalysisScheduler scheduler = new AnalysisScheduler(threads, null);
+            Queue<ProblemType> reportedTypes = new ConcurrentLinkedQueue<>();
+            CountDownLatch firstReported = new CountDownLatch(1);
+            scheduler.setProblemListener(new ProblemReporter() {
+                @Override
+                public void reportProblem(Problem problem) {
+                    reportedTypes.add(problem.getProblemType());
+                    firstReported.countDown();
+                }
+
+                @Override
+                public void reportProblems(Collection<Problem> problems) {
+                    problems.forEach(this::reportProblem);
+                }
+            });
+
+            scheduler.submitTask((s, reporter) -> reporter.reportProblem(problemWithType(ProblemType.UNUSED_CODE_ELEMENT)));
+            scheduler.submitTask((s, reporter) -> {
+                if (threads > 1) {
+                    // the problem of the other task is delivered before this task has been completed
+                    assertTrue(firstReported.await(10, TimeUnit.SECONDS));
+                }
+                reporter.reportProblems(List.of(problemWithType(ProblemType.UNUSED_IMPORT)));
+            });
+
+            AnalysisResult result = scheduler.collectProblems();
+
+            assertTrue(!result.failed());
+            assertEquals(List.of(ProblemType.UNUSED_CODE_ELEMENT, ProblemType.UNUSED_IMPORT), List.copyOf(reportedTypes));
+            assertEquals(2, result.problems().size());
+        }
+    }
+
+    @Test
+    void testFailedTaskIsReported() {
+        for (int threads : List.of(1, 4)) {
+            AnalysisScheduler scheduler = new AnalysisScheduler(threads, null);
+            IllegalStateException exception = new IllegalStateException("failed task");
+
+            scheduler.submitTask((s, reporter) -> reporter.reportProblem(problemWithType(ProblemType.UNUSED_CODE_ELEMENT)));
+            scheduler.submitTask((s, reporter) -> {
+                throw exception;
+            });
+
+            AnalysisResult result = scheduler.collectProblems();
+
+            assertTrue(result.failed());
+            assertSame(exception, result.thrownException());
+        }
+    }
+
+    @Test
+    void testErrorOfTaskIsReported() {
+        for (int threads : List.of(1, 4)) {
+            AnalysisScheduler scheduler = new AnalysisScheduler(threads, null);
+            NoClassDefFoundError error = new NoClassDefFoundError("a class of the check");
+
+            scheduler.submitTask((s, reporter) -> reporter.reportProblem(problemWithType(ProblemType.UNUSED_CODE_ELEMENT)));
+            scheduler.submitTask((s, reporter) -> {
+                throw error;
+            });
+
+            AnalysisResult result = scheduler.collectProblems();
+
+            assertTrue(result.failed());
+            assertSame(error, result.thrownException().getCause());
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package de.firemage.autograder.core.plagiarism;
+
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.SourcePath;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestPlagiarismIndex {
+    private static final String INVENTORY = """
+        import java.util.ArrayList;
+        import java.util.List;
+
+        public class Inventory {
+            private final List<String> %1$s = new ArrayList<>();
+
+            public boolean add(String %2$s, int count) {
+                if (%2$s == null || %2$s.isBlank() || count <= %3$d) {
+                    return false;
+                }
+                for (int i = 0; i < count; i++) {
+                    this.%1$s.add(%2$s.trim());
+                }
+                return true;
+            }
+
+            public int remove(String %2$s) {
+                int removed = 0;
+                while (this.%1$s.remove(%2$s)) {
+                    removed++;
+                }
+                if (removed > %3$d) {
+                    System.out.println("Removed " + removed + " items");
+                }
+                return removed;
+            }
+
+            public String describe() {
+                StringBuilder builder = new StringBuilder("Inventory: ");
+                for (String item : this.%1$s) {
+                    builder.append(item).append(", ");
+                }
+                return builder.toString();
+            }
+        }
+        """;
+
+    private static final String MATRIX = """
+        public class Matrix {
+            private final double[][] values;
+
+            public Matrix(int rows, int columns) {
+                this.values = new double[rows][columns];
+            }
+
+            public Matrix multiply(Matrix other) {
+                Matrix result = new Matrix(this.values.length, other.values[0].length);
+                for (int row = 0; row < this.values.length; row++) {
+                    for (int column = 0; column < other.values[0].length; column++) {
+                        double sum = 0.0;
+                        for (int k = 0; k < other.values.length; k++) {
+                            sum += this.values[row][k] * other.values[k][column];
+                        }
+                        result.values[row][column] = sum;
+                    }
+                }
+                return result;
+            }
+
+            public double trace() {
+                double result = 0.0;
+                for (int i = 0; i < Math.min(this.values.length, this.values[0].length); i++) {
+                    result += this.values[i][i];
+                }
+                return result;
+            }
+        }
+        """;
+
+    private static SourceInfo makeInventory(String field, String parameter, int limit) {
+        return StringSourceInfo.fromSourceStrings(JavaVersion.JAVA_17, Map.of(
+            "Inventory", INVENTORY.formatted(field, parameter, limit),
+            "Matrix", MATRIX
+        ));
+    }
+
+    private static SourceInfo makeGrid() {
+        return StringSourceInfo.fromSourceString(JavaVersion.JAVA_17, "Matrix", MATRIX.replace("Matrix", "Grid"));
+    }
+
+    private static List<SharedCode> withFile(List<SharedCode> sharedCode, String file) {
+        return sharedCode.stream().filter(code -> code.file().equals(SourcePath.of(file))).toList();
+    }
+
+    @Test
+    void testRenamedCodeIsFound(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            assertEquals(List.of(), index.addSubmission("first", makeInventory("items", "item", 0)));
+            assertEquals(1, index.size());
+
+            List<SharedCode> sharedCode = withFile(
+                index.addSubmission("second", makeInventory("storage", "name", 1)),
+                "Inventory.java"
+            );
+            assertEquals(1, sharedCode.size());
+
+            SharedCode span = sharedCode.get(0);
+            assertEquals("first", span.otherSubmission());
+            assertEquals("Inventory.java", span.otherFile());
+            assertTrue(span.startLine() >= 5 && span.endLine() <= 32, span.toString());
+            assertTrue(span.endLine() - span.startLine() >= 15, span.toString());
+            assertEquals(span.startLine(), span.otherStartLine());
+            assertEquals(span.endLine(), span.otherEndLine());
+            assertTrue(span.fingerprints() >= PlagiarismIndex.MIN_FINGERPRINTS_PER_SPAN);
+        }
+    }
+
+    @Test
+    void testOnlySimilarCodeIsFound(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            index.addSubmission("first", makeInventory("items", "item", 0));
+
+            // the renamed class only shares code with the class it has been copied from
+            List<SharedCode> sharedCode = index.findSharedCode(makeGrid());
+            assertFalse(sharedCode.isEmpty());
+            assertTrue(sharedCode.stream().allMatch(code -> code.otherFile().equals("Matrix.java")), sharedCode.toString());
+        }
+    }
+
+    @Test
+    void testFindSharedCodeDoesNotAdd(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            index.addSubmission("first", makeInventory("items", "item", 0));
+            List<SharedCode> expected = index.findSharedCode(makeInventory("storage", "name", 1));
+
+            assertFalse(expected.isEmpty());
+            assertEquals(1, index.size());
+            assertEquals(expected, index.findSharedCode(makeInventory("storage", "name", 1)));
+        }
+    }
+
+    @Test
+    void testCommonCodeIsIgnored(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory, 2)) {
+            index.addSubmission("first", makeInventory("items", "item", 0));
+            index.addSubmission("second", makeInventory("storage", "name", 1));
+            assertEquals(2, withFile(index.findSharedCode(makeInventory("a", "b", 2)), "Inventory.java").size());
+
+            // the code is in more than two submissions now
+            index.addSubmission("third", makeInventory("values", "value", 3));
+            assertEquals(List.of(), index.findSharedCode(makeInventory("a", "b", 2)));
+        }
+    }
+
+    @Test
+    void testIndexIsPersisted(@TempDir Path directory) throws IOException {
+        List<SharedCode> expected;
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            index.addSubmission("first", makeInventory("items", "item", 0));
+            expected = index.findSharedCode(makeInventory("storage", "name", 1));
+        }
+
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            assertEquals(1, index.size());
+            assertEquals(expected, index.findSharedCode(makeInventory("storage", "name", 1)));
+        }
+    }
+
+    @Test
+    void testSegmentsAreMerged(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory, 100)) {
+            for (int i = 0; i < 20; i++) {
+                index.addSubmission("submission" + i, makeInventory("items" + i, "item" + i, i));
+                index.flush();
+            }
+
+            try (Stream<Path> files = Files.list(directory)) {
+                assertTrue(files.filter(file -> file.toString().endsWith(".segment")).count() <= 8);
+            }
+
+            List<SharedCode> sharedCode = withFile(index.findSharedCode(makeInventory("a", "b", 2)), "Inventory.java");
+            assertEquals(20, sharedCode.stream().map(SharedCode::otherSubmission).distinct().count());
+        }
+
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory, 100)) {
+            assertEquals(20, index.size());
+            assertEquals(20, withFile(index.findSharedCode(makeInventory("a", "b", 2)), "Inventory.java").size());
+        }
+    }
+
+    @Test
+    void testSubmissionWithSameNameIsReplaced(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            index.addSubmission("first", makeInventory("items", "item", 0));
+
+            // a resubmission is not compared with its earlier copy
+            assertEquals(List.of(), index.addSubmission("first", makeInventory("storage", "name", 1)));
+            assertEquals(1, index.size());
+            assertEquals(List.of(), index.findSharedCode("first", makeInventory("a", "b", 2)));
+
+            List<SharedCode> sharedCode = withFile(index.addSubmission("second", makeInventory("a", "b", 2)), "Inventory.java");
+            assertEquals(List.of("first"), sharedCode.stream().map(SharedCode::otherSubmission).toList());
+        }
+    }
+
+    @Test
+    void testReplacedSubmissionsDoNotCountAsTemplateCode(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory, 1)) {
+            for (int i = 0; i < 20; i++) {
+                index.addSubmission("first", makeInventory("items" + i, "item" + i, i));
+                // the segments are merged a few times, which drops the postings of the replaced submissions
+                index.flush();
+            }
+
+            assertEquals(1, index.size());
+            assertFalse(withFile(index.findSharedCode(makeInventory("a", "b", 2)), "Inventory.java").isEmpty());
+        }
+
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory, 1)) {
+            assertEquals(1, index.size());
+            List<SharedCode> sharedCode = withFile(index.addSubmission("second", makeInventory("a", "b", 2)), "Inventory.java");
+            assertEquals(List.of("first"), sharedCode.stream().map(SharedCode::otherSubmission).toList());
+        }
+    }
+
+    @Test
+    void testDirectoryIsLocked(@TempDir Path directory) throws IOException {
+        try (PlagiarismIndex index = PlagiarismIndex.open(directory)) {
+            assertThrows(IOException.class, () -> PlagiarismIndex.open(directory));
+        }
+
+        // the lock is released when the index is closed
+        PlagiarismIndex.open(directory).close();
+    }
+
+    @Test
+    void testWinnowingSelectsSmallestHashOfEachWindow() {
+        long[] hashes = {77, 74, 42, 17, 98, 50, 17, 98, 8, 88, 67, 39, 77, 74, 42, 17, 98};
+
+        // the example from the paper, which selects the rightmost smallest hash of each window
+        List<Integer> selected = Fingerprinter.winnow(hashes, 4);
+        assertEquals(List.of(17L, 17L, 8L, 39L, 17L), selected.stream().map(index -> hashes[index]).toList());
+        assertEquals(List.of(3, 6, 8, 11, 15), selected);
+    }
+}
@@ -0,0 +1,161 @@
+package de.firemage.autograder.core.pmd;
+
+import de.firemage.autograder.core.Linter;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.compiler.CompilationFailureException;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import de.firemage.autograder.core.file.UploadedFile;
+import net.sourceforge.pmd.Rule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestPMDCache {
+    private static final long MAXIMUM_SIZE = 1024 * 1024;
+
+    private static final String MAIN = """
+        import java.util.List;
+
+        public class Main {
+            public static void main(String[] args) {
+                System.out.println(new Helper().value());
+            }
+        }
+        """;
+
+    private static final String HELPER = """
+        import java.util.Map;
+
+        public class Helper {
+            public Helper() {
+            }
+
+            public int value() {
+                return %d;
+            }
+        }
+        """;
+
+    private static SourceInfo makeSubmission(int value) {
+        return StringSourceInfo.fromSourceStrings(
+            JavaVersion.JAVA_17,
+            Map.of("Main", MAIN, "Helper", HELPER.formatted(value))
+        );
+    }
+
+    private static List<PMDCheck> findPMDChecks() {
+        return Linter.builder(Locale.US)
+            .build()
+            .findChecksForProblemTypes(List.of(ProblemType.values()))
+            .stream()
+            .filter(PMDCheck.class::isInstance)
+            .map(PMDCheck.class::cast)
+            .toList();
+    }
+
+    private static List<String> lint(PMDLinter linter, SourceInfo submission, TempLocation tempLocation)
+        throws CompilationFailureException, IOException {
+        try (UploadedFile file = UploadedFile.build(submission, tempLocation, status -> {}, null)) {
+            return linter.lint(file, findPMDChecks())
+                .stream()
+                .map(problem -> problem.getCheck().getClass().getSimpleName() + " at " + problem.getDisplayLocation())
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static List<Path> listEntries(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".json")).toList();
+        }
+    }
+
+    @Test
+    void testCachedViolationsAreReported(@TempDir Path directory) throws CompilationFailureException, IOException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            List<String> expected = lint(new PMDLinter(null), makeSubmission(1), tempLocation);
+            assertFalse(expected.isEmpty());
+
+            // a new linter for every submission behaves like a new process
+            assertEquals(expected, lint(new PMDLinter(null, PMDCache.open(directory, MAXIMUM_SIZE)), makeSubmission(1), tempLocation));
+            assertEquals(2, listEntries(directory).size());
+            assertEquals(expected, lint(new PMDLinter(null, PMDCache.open(directory, MAXIMUM_SIZE)), makeSubmission(1), tempLocation));
+            assertEquals(2, listEntries(directory).size());
+
+            // only the changed file gets a new entry
+            assertEquals(
+                lint(new PMDLinter(null), makeSubmission(2), tempLocation),
+                lint(new PMDLinter(null, PMDCache.open(directory, MAXIMUM_SIZE)), makeSubmission(2), tempLocation)
+            );
+            assertEquals(3, listEntries(directory).size());
+        }
+    }
+
+    @Test
+    void testViolationsAreLoadedFromCache(@TempDir Path directory) throws CompilationFailureException, IOException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            PMDLinter linter = new PMDLinter(null, PMDCache.open(directory, MAXIMUM_SIZE));
+            List<String> expected = lint(linter, makeSubmission(1), tempLocation);
+
+            // the problems can only be at line 42, if the violations are loaded from the modified entries
+            for (Path entry : listEntries(directory)) {
+                Files.writeString(entry, Files.readString(entry).replaceAll("\"(start|end)Line\":\\d+", "\"$1Line\":42"));
+            }
+
+            List<String> cached = lint(linter, makeSubmission(1), tempLocation);
+            assertEquals(expected.size(), cached.size());
+            assertEquals(
+                expected.stream().map(problem -> problem.replaceAll(":\\d+$", ":42")).toList(),
+                cached
+            );
+        }
+    }
+
+    @Test
+    void testFingerprintDependsOnMessage() {
+        Rule rule = findPMDChecks().get(0).getRules().get(0).deepCopy();
+        String fingerprint = PMDCache.fingerprint(List.of(rule));
+        assertEquals(fingerprint, PMDCache.fingerprint(List.of(rule.deepCopy())));
+
+        rule.setMessage(rule.getMessage() + " changed");
+        assertNotEquals(fingerprint, PMDCache.fingerprint(List.of(rule)));
+    }
+
+    @Test
+    void testCacheSizeIsBounded(@TempDir Path directory) throws CompilationFailureException, IOException {
+        try (TempLocation tempLocation = TempLocation.random()) {
+            lint(new PMDLinter(null, PMDCache.open(directory, MAXIMUM_SIZE)), makeSubmission(1), tempLocation);
+            long entrySize = 0;
+            for (Path entry : listEntries(directory)) {
+                entrySize = Math.max(entrySize, Files.size(entry));
+            }
+
+            // there is only space for about two entries, so the entries of earlier submissions are evicted
+            PMDLinter linter = new PMDLinter(null, PMDCache.open(directory, 2 * entrySize + entrySize / 2));
+            for (int i = 2; i < 10; i++) {
+                lint(linter, makeSubmission(i), tempLocation);
+            }
+
+            long size = 0;
+            for (Path entry : listEntries(directory)) {
+                size += Files.size(entry);
+            }
+            assertTrue(size <= 2 * entrySize + entrySize / 2, "size " + size + " exceeds the maximum");
+        }
+    }
+}
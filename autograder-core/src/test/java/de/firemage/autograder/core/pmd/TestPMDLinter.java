@@ -0,0 +1,103 @@
+package de.firemage.autograder.core.pmd;
+
+import de.firemage.autograder.core.Linter;
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.compiler.CompilationFailureException;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import de.firemage.autograder.core.file.UploadedFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TestPMDLinter {
+    private static SourceInfo makeSubmission(int index) {
+        return StringSourceInfo.fromSourceString(
+            JavaVersion.JAVA_17,
+            "Test",
+            """
+            import java.util.List;
+
+            public class Test {
+                private static int unused%d;
+
+                public static void main(String[] args) {
+                    int[] values = {1, 2, %d};
+                    for (int i = 0; i < values.length; i++) {
+                        int x = values[i];
+                        System.out.println(x);
+                    }
+                }
+            }
+            """.formatted(index, index)
+        );
+    }
+
+    private static List<PMDCheck> findPMDChecks() {
+        return Linter.builder(Locale.US)
+            .build()
+            .findChecksForProblemTypes(List.of(ProblemType.values()))
+            .stream()
+            .filter(PMDCheck.class::isInstance)
+            .map(PMDCheck.class::cast)
+            .toList();
+    }
+
+    private static List<String> describe(List<Problem> problems) {
+        return problems.stream()
+            .map(problem -> problem.getProblemType() + " at " + problem.getDisplayLocation())
+            .sorted()
+            .toList();
+    }
+
+    @Test
+    void testSharedLinterReportsSameProblemsConcurrently()
+        throws CompilationFailureException, IOException, InterruptedException, ExecutionException {
+        List<SourceInfo> submissions = IntStream.range(0, 8).mapToObj(TestPMDLinter::makeSubmission).toList();
+
+        try (TempLocation tempLocation = TempLocation.random()) {
+            List<List<String>> expected = new ArrayList<>();
+            for (SourceInfo submission : submissions) {
+                try (UploadedFile file = UploadedFile.build(submission, tempLocation, status -> {}, null)) {
+                    expected.add(describe(new PMDLinter(null).lint(file, findPMDChecks())));
+                }
+            }
+
+            PMDLinter linter = new PMDLinter(null);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<List<String>>> futures = new ArrayList<>();
+                for (SourceInfo submission : submissions) {
+                    // every submission gets new check instances, like in the linter
+                    List<PMDCheck> checks = findPMDChecks();
+                    futures.add(executor.submit(() -> {
+                        try (UploadedFile file = UploadedFile.build(submission, tempLocation, status -> {}, null)) {
+                            return describe(linter.lint(file, checks));
+                        }
+                    }));
+                }
+
+                for (int i = 0; i < submissions.size(); i++) {
+                    assertFalse(expected.get(i).isEmpty());
+                    assertEquals(expected.get(i), futures.get(i).get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
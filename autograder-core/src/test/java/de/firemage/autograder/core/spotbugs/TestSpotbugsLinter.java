@@ -0,0 +1,183 @@
+package de.firemage.autograder.core.spotbugs;
+
+import de.firemage.autograder.core.LocalizedMessage;
+import de.firemage.autograder.core.Problem;
+import de.firemage.autograder.core.ProblemType;
+import de.firemage.autograder.core.compiler.CompilationFailureException;
+import de.firemage.autograder.core.compiler.JavaVersion;
+import de.firemage.autograder.core.errorprone.TempLocation;
+import de.firemage.autograder.core.file.SourceInfo;
+import de.firemage.autograder.core.file.SourcePath;
+import de.firemage.autograder.core.file.StringSourceInfo;
+import de.firemage.autograder.core.file.UploadedFile;
+import edu.umd.cs.findbugs.DetectorFactory;
+import edu.umd.cs.findbugs.DetectorFactoryCollection;
+import edu.umd.cs.findbugs.Plugin;
+import edu.umd.cs.findbugs.config.UserPreferences;
+import edu.umd.cs.findbugs.plan.DetectorOrderingConstraint;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestSpotbugsLinter {
+    private static final String STRING_CONSTRUCTOR = "DM_STRING_CTOR";
+    private static final String DEAD_STORE = "DLS_DEAD_LOCAL_STORE";
+
+    private static final class BugPatternCheck extends SpotbugsCheck {
+        private BugPatternCheck(Collection<String> bugPatterns, Effort effort) {
+            super(new LocalizedMessage("linter-spotbugs"), bugPatterns, ProblemType.UNCHECKED_TYPE_CAST, effort);
+        }
+    }
+
+    private static SourceInfo makeSubmission() {
+        return StringSourceInfo.fromSourceString(JavaVersion.JAVA_17, "Main", """
+            public class Main {
+                public static void main(String[] args) {
+                    String copy = new String(args[0]);
+                    int unused = copy.length();
+                    unused = args.length;
+                    System.out.println(copy);
+                }
+            }
+            """);
+    }
+
+    private static Set<String> names(Collection<DetectorFactory> factories) {
+        return factories.stream().map(DetectorFactory::getShortName).collect(Collectors.toSet());
+    }
+
+    private static Set<String> reportedTypes(List<Problem> problems) {
+        return problems.stream()
+            .map(problem -> ((SpotbugsCheck) problem.getCheck()).getBugPatterns())
+            .flatMap(Set::stream)
+            .collect(Collectors.toSet());
+    }
+
+    @Test
+    void testOnlyNeededDetectorsAreSelected() {
+        Set<String> selected = names(SpotbugsLinter.selectDetectors(Set.of(STRING_CONSTRUCTOR)));
+
+        assertTrue(selected.contains("DumbMethods"), selected.toString());
+        assertFalse(selected.contains("FindDeadLocalStores"), selected.toString());
+        assertFalse(selected.contains("TestingGround"), selected.toString());
+    }
+
+    @Test
+    void testPrerequisitesAreSelected() {
+        DetectorFactoryCollection collection = DetectorFactoryCollection.instance();
+        Set<DetectorFactory> selected = SpotbugsLinter.selectDetectors(Set.of(STRING_CONSTRUCTOR, DEAD_STORE));
+
+        List<DetectorOrderingConstraint> constraints = new ArrayList<>();
+        for (Plugin plugin : collection.plugins()) {
+            plugin.interPassConstraintIterator().forEachRemaining(constraints::add);
+            plugin.intraPassConstraintIterator().forEachRemaining(constraints::add);
+        }
+
+        for (DetectorOrderingConstraint constraint : constraints) {
+            if (!constraint.isSingleSource() || selected.stream().noneMatch(constraint.getLater()::selectFactory)) {
+                continue;
+            }
+
+            collection.factoryIterator().forEachRemaining(factory -> {
+                if (constraint.getEarlier().selectFactory(factory)) {
+                    assertTrue(selected.contains(factory), constraint.toString());
+                }
+            });
+        }
+    }
+
+    @Test
+    void testUnknownBugPatternIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SpotbugsLinter.selectDetectors(Set.of("NOT_A_BUG_PATTERN")));
+    }
+
+    @Test
+    void testCheckWithUnknownBugPatternCannotBeCreated() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new BugPatternCheck(List.of(STRING_CONSTRUCTOR, "NOT_A_BUG_PATTERN"), SpotbugsCheck.Effort.DEFAULT)
+        );
+    }
+
+    @Test
+    void testHighestEffortIsUsed() {
+        SpotbugsLinter linter = new SpotbugsLinter();
+
+        UserPreferences preferences = linter.getUserPreferences(List.of(
+            new BugPatternCheck(List.of(STRING_CONSTRUCTOR), SpotbugsCheck.Effort.MIN),
+            new BugPatternCheck(List.of(DEAD_STORE), SpotbugsCheck.Effort.MAX)
+        ));
+        assertEquals(UserPreferences.EFFORT_MAX, preferences.getEffort());
+
+        DetectorFactoryCollection collection = DetectorFactoryCollection.instance();
+        assertTrue(preferences.isDetectorEnabled(collection.getFactory("DumbMethods")));
+        assertTrue(preferences.isDetectorEnabled(collection.getFactory("FindDeadLocalStores")));
+    }
+
+    @Test
+    void testSelectedDetectorsReportBugs() throws CompilationFailureException, IOException, InterruptedException {
+        List<SpotbugsCheck> checks = List.of(
+            new BugPatternCheck(List.of(STRING_CONSTRUCTOR), SpotbugsCheck.Effort.DEFAULT),
+            new BugPatternCheck(List.of(DEAD_STORE), SpotbugsCheck.Effort.DEFAULT)
+        );
+
+        try (TempLocation tempLocation = TempLocation.random();
+             UploadedFile file = UploadedFile.build(makeSubmission(), tempLocation, status -> {}, null)) {
+            SpotbugsLinter linter = new SpotbugsLinter();
+            List<Problem> problems = linter.lint(file, file.getCompilationResult().jar(), checks);
+            assertEquals(Set.of(STRING_CONSTRUCTOR, DEAD_STORE), reportedTypes(problems));
+
+            // the selection of one analysis does not change the bugs that the next one reports
+            problems = linter.lint(file, file.getCompilationResult().jar(), List.of(checks.get(0)));
+            assertEquals(Set.of(STRING_CONSTRUCTOR), reportedTypes(problems));
+        }
+    }
+
+    @Test
+    void testProblemsAreReportedInTheirFile() throws CompilationFailureException, IOException, InterruptedException {
+        SourceInfo submission = StringSourceInfo.fromSourceStrings(JavaVersion.JAVA_17, Map.of(
+            "com.example.Main", """
+                package com.example;
+
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println(Helper.copy(args[0]));
+                    }
+                }
+                """,
+            "com.example.Helper", """
+                package com.example;
+
+                public class Helper {
+                    public static String copy(String value) {
+                        return new String(value);
+                    }
+                }
+                """
+        ));
+
+        try (TempLocation tempLocation = TempLocation.random();
+             UploadedFile file = UploadedFile.build(submission, tempLocation, status -> {}, null)) {
+            List<Problem> problems = new SpotbugsLinter().lint(
+                file,
+                file.getCompilationResult().jar(),
+                List.of(new BugPatternCheck(List.of(STRING_CONSTRUCTOR), SpotbugsCheck.Effort.DEFAULT))
+            );
+
+            assertEquals(1, problems.size());
+            assertEquals(SourcePath.of("com", "example", "Helper.java"), problems.get(0).getPosition().file());
+            assertEquals(5, problems.get(0).getPosition().startLine());
+        }
+    }
+}
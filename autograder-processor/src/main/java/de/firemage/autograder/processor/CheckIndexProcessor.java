@@ -0,0 +1,177 @@
+package de.firemage.autograder.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates an index of all classes that are annotated with {@code @ExecutableCheck}, so the linter
+ * does not have to scan the classpath and instantiate the checks through reflection.
+ * <p>
+ * The index is the class {@code de.firemage.autograder.core.check.GeneratedCheckIndex}. It is written
+ * in the first round that finds checks, so that the generated source is compiled in the next round.
+ * Checks that are generated by other processors in later rounds can not be added to it anymore.
+ */
+@SupportedAnnotationTypes(CheckIndexProcessor.EXECUTABLE_CHECK)
+public class CheckIndexProcessor extends AbstractProcessor {
+    static final String EXECUTABLE_CHECK = "de.firemage.autograder.core.check.ExecutableCheck";
+    private static final String CHECK = "de.firemage.autograder.core.check.Check";
+    private static final String PROBLEM_TYPE = "de.firemage.autograder.core.ProblemType";
+    private static final String INDEX_PACKAGE = "de.firemage.autograder.core.check";
+    private static final String INDEX_NAME = "GeneratedCheckIndex";
+
+    // sorted by the qualified name of the check, so the generated code does not depend on the order of the sources
+    private final Map<String, CheckEntry> checks = new TreeMap<>();
+    private boolean isIndexWritten;
+
+    private record CheckEntry(String qualifiedName, Set<String> reportedProblems, boolean isEnabled) {
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (this.isIndexWritten) {
+                    this.processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.ERROR,
+                        "The check has been generated after the index of the checks",
+                        element
+                    );
+                    continue;
+                }
+
+                this.addCheck(element);
+            }
+        }
+
+        // a source file created in the last round would not be processed anymore, which javac warns about
+        if (!this.isIndexWritten && !this.checks.isEmpty() && !roundEnv.processingOver()) {
+            this.writeIndex();
+            this.isIndexWritten = true;
+        }
+
+        return false;
+    }
+
+    private void addCheck(Element element) {
+        Messager messager = this.processingEnv.getMessager();
+        if (element.getKind() != ElementKind.CLASS) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Only classes can be checks", element);
+            return;
+        }
+
+        TypeElement type = (TypeElement) element;
+        TypeMirror checkType = this.processingEnv.getElementUtils().getTypeElement(CHECK).asType();
+        if (!this.processingEnv.getTypeUtils().isAssignable(type.asType(), checkType)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "The check does not implement Check", element);
+            return;
+        }
+
+        if (!type.getModifiers().contains(Modifier.PUBLIC) || type.getModifiers().contains(Modifier.ABSTRACT)
+            || type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "The check must be a public, non-abstract top-level or static class", element);
+            return;
+        }
+
+        boolean hasConstructor = ElementFilter.constructorsIn(type.getEnclosedElements())
+            .stream()
+            .anyMatch(constructor -> constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC));
+        if (!hasConstructor) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "The check must have a public constructor without parameters", element);
+            return;
+        }
+
+        Set<String> reportedProblems = new LinkedHashSet<>();
+        boolean isEnabled = true;
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(EXECUTABLE_CHECK)) {
+                continue;
+            }
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                String name = entry.getKey().getSimpleName().toString();
+                if (name.equals("reportedProblems")) {
+                    for (Object value : (List<?>) entry.getValue().getValue()) {
+                        VariableElement constant = (VariableElement) ((AnnotationValue) value).getValue();
+                        reportedProblems.add(constant.getSimpleName().toString());
+                    }
+                } else if (name.equals("enabled")) {
+                    isEnabled = (Boolean) entry.getValue().getValue();
+                }
+            }
+        }
+
+        String qualifiedName = type.getQualifiedName().toString();
+        this.checks.put(qualifiedName, new CheckEntry(qualifiedName, reportedProblems, isEnabled));
+    }
+
+    private void writeIndex() {
+        try {
+            JavaFileObject file = this.processingEnv.getFiler().createSourceFile(INDEX_PACKAGE + "." + INDEX_NAME);
+            try (PrintWriter writer = new PrintWriter(file.openWriter())) {
+                writer.println("package " + INDEX_PACKAGE + ";");
+                writer.println();
+                writer.println("import " + PROBLEM_TYPE + ";");
+                writer.println();
+                writer.println("import java.util.List;");
+                writer.println("import java.util.Set;");
+                writer.println();
+                writer.println("@javax.annotation.processing.Generated(\"" + CheckIndexProcessor.class.getName() + "\")");
+                writer.println("final class " + INDEX_NAME + " {");
+                writer.println("    private " + INDEX_NAME + "() {");
+                writer.println("    }");
+                writer.println();
+                writer.println("    static List<CheckDescriptor> checks() {");
+                writer.println("        return List.of(");
+
+                List<CheckEntry> entries = List.copyOf(this.checks.values());
+                for (int i = 0; i < entries.size(); i++) {
+                    CheckEntry entry = entries.get(i);
+                    writer.println("            new CheckDescriptor(");
+                    writer.println("                " + entry.qualifiedName() + ".class,");
+                    writer.println("                " + entry.qualifiedName() + "::new,");
+                    writer.println("                Set.of(" + String.join(", ", entry.reportedProblems()
+                        .stream()
+                        .map(problem -> "ProblemType." + problem)
+                        .toList()) + "),");
+                    writer.println("                " + entry.isEnabled());
+                    writer.println("            )" + (i == entries.size() - 1 ? "" : ","));
+                }
+
+                writer.println("        );");
+                writer.println("    }");
+                writer.println("}");
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}